@@ -0,0 +1,15 @@
+package com.planify.user_service.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lokalni (Caffeine) predpomnilniki. Imena, velikost in TTL so nastavljeni v spring.cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ORGANIZATIONS = "organizations";
+    public static final String ORGANIZATIONS_BY_SLUG = "organizationsBySlug";
+}
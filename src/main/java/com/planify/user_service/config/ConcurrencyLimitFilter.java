@@ -0,0 +1,122 @@
+package com.planify.user_service.config;
+
+import com.planify.user_service.service.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Omejevanje sočasnih API zahtevkov po skupinah končnih točk (AdaptiveConcurrencyLimit). Zahtevek nad omejitvijo
+ * takoj zavrnemo s 503 in glavo Retry-After, namesto da bi čakal v vrsti Tomcata ali bazena povezav.
+ * Filter je takoj za RequestDeadlineFilter, zato zavrnjeni zahtevki ne porabijo niti preverjanja JWT.
+ * Zahtevki izven /api (actuator, health probe, dokumentacija) niso omejeni.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public enum Group {
+        AUTH, ORG_ADMIN, READS, SEARCH;
+
+        String tag() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private final boolean enabled;
+    private final String retryAfter;
+    private final Map<Group, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> accepted = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> rejected = new EnumMap<>(Group.class);
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${planify.concurrency.enabled:true}") boolean enabled,
+                                  @Value("${planify.concurrency.initial-limit:50}") int initialLimit,
+                                  @Value("${planify.concurrency.min-limit:10}") int minLimit,
+                                  @Value("${planify.concurrency.max-limit:500}") int maxLimit,
+                                  @Value("${planify.concurrency.tolerance:1.5}") double tolerance,
+                                  @Value("${planify.concurrency.smoothing:0.2}") double smoothing,
+                                  @Value("${planify.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+
+        for (Group group : Group.values()) {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+            limits.put(group, limit);
+            Gauge.builder("planify.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("group", group.tag())
+                    .register(meterRegistry);
+            Gauge.builder("planify.concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("group", group.tag())
+                    .register(meterRegistry);
+            accepted.put(group, requestCounter(meterRegistry, group, "accepted"));
+            rejected.put(group, requestCounter(meterRegistry, group, "rejected"));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = classify(request);
+        AdaptiveConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            rejected.get(group).increment();
+            log.debug("Shedding {} {} ({} limit {} reached)", request.getMethod(), request.getRequestURI(), group.tag(), limit.getLimit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.getWriter().write("Service is overloaded, please retry later");
+            return;
+        }
+
+        accepted.get(group).increment();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    static Group classify(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/api/auth/")) {
+            return Group.AUTH;
+        }
+        if (uri.endsWith("/search") || uri.endsWith("/autocomplete")) {
+            return Group.SEARCH;
+        }
+        return "GET".equals(request.getMethod()) ? Group.READS : Group.ORG_ADMIN;
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, Group group, String outcome) {
+        return Counter.builder("planify.concurrency.requests")
+                .tag("group", group.tag())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
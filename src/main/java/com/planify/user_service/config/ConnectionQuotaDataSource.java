@@ -0,0 +1,143 @@
+package com.planify.user_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Kvote povezav iz bazena po razredih končnih točk. Razred je ime bulkheada na metodi kontrolerja
+ * (npr. keycloakWrites, reads), nastavi ga IsolationConfig za čas obdelave zahtevka. Zahtevek razreda s kvoto
+ * lahko hkrati drži največ toliko povezav, kot je kvota; ko je izčrpana, po db-quota-timeout dobi napako,
+ * namesto da bi izpraznil bazen za ostale razrede. Povezave izven razredov (filtri, Kafka, periodična opravila)
+ * niso omejene.
+ */
+@Slf4j
+public class ConnectionQuotaDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Semaphore> quotas = new HashMap<>();
+    private final Map<String, Integer> sizes;
+    private final long timeoutNanos;
+    private volatile MeterRegistry meterRegistry;
+
+    public ConnectionQuotaDataSource(DataSource target, Map<String, Integer> quotas, Duration timeout) {
+        super(target);
+        this.sizes = Map.copyOf(quotas);
+        this.timeoutNanos = timeout.toNanos();
+        this.sizes.forEach((name, size) -> this.quotas.put(name, new Semaphore(size, true)));
+    }
+
+    public static void enter(String isolationClass) {
+        CURRENT.set(isolationClass);
+    }
+
+    public static void exit() {
+        CURRENT.remove();
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        quotas.forEach((name, quota) -> Gauge.builder("planify.db.quota.available", quota, Semaphore::availablePermits)
+                .tag("class", name)
+                .register(registry));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Semaphore quota = acquire();
+        try {
+            return withQuota(super.getConnection(), quota);
+        } catch (SQLException | RuntimeException e) {
+            release(quota);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Semaphore quota = acquire();
+        try {
+            return withQuota(super.getConnection(username, password), quota);
+        } catch (SQLException | RuntimeException e) {
+            release(quota);
+            throw e;
+        }
+    }
+
+    private Semaphore acquire() throws SQLException {
+        String isolationClass = CURRENT.get();
+        Semaphore quota = isolationClass == null ? null : quotas.get(isolationClass);
+        if (quota == null) {
+            return null;
+        }
+        try {
+            if (quota.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return quota;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            Counter.builder("planify.db.quota.rejected")
+                    .tag("class", isolationClass)
+                    .register(registry)
+                    .increment();
+        }
+        log.warn("Connection quota for {} exhausted ({} connections)", isolationClass, sizes.get(isolationClass));
+        throw new SQLTransientConnectionException("Connection quota for " + isolationClass + " exhausted");
+    }
+
+    private static void release(Semaphore quota) {
+        if (quota != null) {
+            quota.release();
+        }
+    }
+
+    /**
+     * Ovije povezavo tako, da close() vrne tudi mesto v kvoti (največ enkrat).
+     */
+    private static Connection withQuota(Connection connection, Semaphore quota) {
+        if (quota == null) {
+            return connection;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            quota.release();
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,97 @@
+package com.planify.user_service.config;
+
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Izolacija razredov končnih točk. Metode kontrolerjev z @Bulkhead(name = "keycloakWrites") oz. "reads" imajo
+ * vsak svoj semaforski bulkhead (resilience4j.bulkhead.instances) in svojo kvoto povezav iz bazena
+ * (planify.isolation.db-quota), zato počasen Keycloak ne more zasesti vseh niti in povezav, ki jih potrebujejo branja.
+ */
+@Configuration
+@Slf4j
+public class IsolationConfig implements WebMvcConfigurer {
+
+    @Bean
+    public static BeanPostProcessor connectionQuotaPostProcessor() {
+        return new ConnectionQuotaPostProcessor();
+    }
+
+    @Bean
+    public MeterBinder connectionQuotaMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionQuotaDataSource quotaDataSource) {
+                quotaDataSource.bindTo(registry);
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod handlerMethod) {
+                    Bulkhead bulkhead = handlerMethod.getMethodAnnotation(Bulkhead.class);
+                    if (bulkhead != null) {
+                        ConnectionQuotaDataSource.enter(bulkhead.name());
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                ConnectionQuotaDataSource.exit();
+            }
+        });
+    }
+
+    /**
+     * Ovije bean "dataSource" (Hikari ali usmerjevalnik primarna/replika) s kvotami povezav.
+     */
+    static class ConnectionQuotaPostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+        private Environment environment;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            Binder binder = Binder.get(environment);
+            Map<String, Integer> quotas = binder.bind("planify.isolation.db-quota", Bindable.mapOf(String.class, Integer.class))
+                    .orElse(Map.of());
+            if (quotas.isEmpty()) {
+                return bean;
+            }
+            Duration timeout = binder.bind("planify.isolation.db-quota-timeout", Duration.class)
+                    .orElse(Duration.ofSeconds(2));
+            log.info("Connection quotas per endpoint class: {}", quotas);
+            return new ConnectionQuotaDataSource(dataSource, quotas, timeout);
+        }
+    }
+}
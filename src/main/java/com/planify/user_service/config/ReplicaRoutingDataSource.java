@@ -0,0 +1,147 @@
+package com.planify.user_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Transakcije z readOnly = true usmeri na repliko, vse ostalo na primarno bazo.
+ * Uporabnik, katerega transakcija je pred kratkim kaj zapisala, v oknu stickyWindow bere s primarne baze
+ * (read-your-writes). Transakcije brez readOnly, ki le berejo, okna ne odprejo.
+ * Deluje le za LazyConnectionDataSourceProxy, ki povezavo pridobi šele ob prvem stavku,
+ * ko je readOnly zastavica transakcije že nastavljena.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // Ob tej velikosti se iz tabele odstranijo potekli vnosi
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long stickyWindowNanos;
+    private final LongSupplier clock;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private final Counter writes;
+    private final Counter reads;
+    private final Counter stickyReads;
+
+    public ReplicaRoutingDataSource(Duration stickyWindow, MeterRegistry meterRegistry) {
+        this(stickyWindow, meterRegistry, System::nanoTime);
+    }
+
+    ReplicaRoutingDataSource(Duration stickyWindow, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.stickyWindowNanos = stickyWindow.toNanos();
+        this.clock = clock;
+        this.writes = routingCounter(meterRegistry, PRIMARY, "write");
+        this.reads = routingCounter(meterRegistry, REPLICA, "read");
+        this.stickyReads = routingCounter(meterRegistry, PRIMARY, "read-your-writes");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String principal = currentPrincipal();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            // Okno štejemo od potrditve in le, če je transakcija res pisala (WriteTrackingStatementInspector)
+            if (principal != null && TransactionSynchronizationManager.isSynchronizationActive() && tracker() == null) {
+                TransactionSynchronizationManager.registerSynchronization(new WriteTracker(principal));
+            }
+            return PRIMARY;
+        }
+
+        if (principal != null && wroteRecently(principal)) {
+            stickyReads.increment();
+            return PRIMARY;
+        }
+
+        reads.increment();
+        return REPLICA;
+    }
+
+    /**
+     * Trenutna transakcija je izvedla INSERT, UPDATE ali DELETE. Kliče ga WriteTrackingStatementInspector.
+     */
+    public static void markWrite() {
+        WriteTracker tracker = tracker();
+        if (tracker != null) {
+            tracker.wrote = true;
+        }
+    }
+
+    private static WriteTracker tracker() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        // Sinhronizacije so vezane na transakcijo (REQUIRES_NEW jih začasno odloži), zato vidimo le svojo
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteTracker tracker) {
+                return tracker;
+            }
+        }
+        return null;
+    }
+
+    private final class WriteTracker implements TransactionSynchronization {
+
+        private final String principal;
+        private boolean wrote;
+
+        private WriteTracker(String principal) {
+            this.principal = principal;
+        }
+
+        @Override
+        public void afterCommit() {
+            if (wrote) {
+                recordWrite(principal);
+            }
+        }
+    }
+
+    private void recordWrite(String principal) {
+        long now = clock.getAsLong();
+        lastWrites.put(principal, now);
+        if (lastWrites.size() > CLEANUP_THRESHOLD) {
+            lastWrites.values().removeIf(t -> now - t > stickyWindowNanos);
+        }
+    }
+
+    private boolean wroteRecently(String principal) {
+        Long lastWrite = lastWrites.get(principal);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (clock.getAsLong() - lastWrite > stickyWindowNanos) {
+            lastWrites.remove(principal, lastWrite);
+            return false;
+        }
+        return true;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static Counter routingCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("planify.datasource.routing")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
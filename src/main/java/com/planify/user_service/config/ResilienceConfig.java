@@ -0,0 +1,42 @@
+package com.planify.user_service.config;
+
+import com.planify.user_service.service.RequestDeadline;
+import io.github.resilience4j.common.circuitbreaker.configuration.CircuitBreakerConfigCustomizer;
+import io.github.resilience4j.common.retry.configuration.RetryConfigCustomizer;
+import io.github.resilience4j.retry.RetryConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Dopolnitve nastavitev resilience4j za klice v Keycloak glede na rok zahtevka (RequestDeadline).
+ */
+@Configuration
+public class ResilienceConfig {
+
+    private static final String KEYCLOAK = "keycloakService";
+
+    /**
+     * Ponovni poskus le, če do roka ostane vsaj min-retry-budget (čakanje pred poskusom + sam klic).
+     * Instanca keycloakService v application.yaml nima retryExceptions, ker bi se z retryOnException združili
+     * z "ali" in rok ne bi več omejeval ponovitev; predikat zato sam omeji ponovitve na izjeme (Exception).
+     */
+    @Bean
+    public RetryConfigCustomizer keycloakRetryDeadline(@Value("${planify.deadline.min-retry-budget:2s}") Duration minRetryBudget) {
+        return RetryConfigCustomizer.of(KEYCLOAK, builder -> {
+            RetryConfig.Builder<?> retry = builder;
+            retry.retryOnException(e -> e instanceof Exception && RequestDeadline.hasAtLeast(minRetryBudget));
+        });
+    }
+
+    /**
+     * Napaka po preteku roka zahtevka ni dokaz, da Keycloak ne deluje, zato je breaker ne šteje.
+     */
+    @Bean
+    public CircuitBreakerConfigCustomizer keycloakCircuitBreakerDeadline() {
+        return CircuitBreakerConfigCustomizer.of(KEYCLOAK, builder -> builder
+                .ignoreException(e -> RequestDeadline.expired()));
+    }
+}
@@ -26,7 +26,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll() // registracija, login
                 .requestMatchers("/api/users/**").permitAll() // uporabniki
                 .requestMatchers("/api/organizations/**").permitAll() // organizacije
-                .requestMatchers("/internal/**").permitAll() // interni API (zaenkrat)
+                .requestMatchers("/internal/**").authenticated() // interni API: client-credentials JWT z vlogo internal_service
                 .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers("/api/resilience/**").permitAll() // Fault tolerance monitoring
                 .requestMatchers(
@@ -22,6 +22,12 @@ public class UserProvisioningFilter extends OncePerRequestFilter {
 
     private final UserService userService;
 
+    // Servisni računi drugih storitev (/internal) niso uporabniki
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/internal/");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -0,0 +1,43 @@
+package com.planify.user_service.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+
+/**
+ * Označi transakcijo, ki izvede DML stavek, da ReplicaRoutingDataSource po potrditvi odpre okno read-your-writes.
+ * Nastavljen je s hibernate.session_factory.statement_inspector in vidi tudi nativne poizvedbe.
+ */
+public class WriteTrackingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        if (isWrite(sql)) {
+            ReplicaRoutingDataSource.markWrite();
+        }
+        return sql;
+    }
+
+    static boolean isWrite(String sql) {
+        String statement = stripLeadingComments(sql).toLowerCase(Locale.ROOT);
+        if (statement.startsWith("insert") || statement.startsWith("update")
+                || statement.startsWith("delete") || statement.startsWith("merge")) {
+            return true;
+        }
+        // CTE, npr. WITH moved AS (DELETE ... RETURNING ...) INSERT INTO ...
+        return statement.startsWith("with")
+                && (statement.contains("insert into") || statement.contains("delete from") || statement.contains("update "));
+    }
+
+    private static String stripLeadingComments(String sql) {
+        String statement = sql.strip();
+        while (statement.startsWith("/*")) {
+            int end = statement.indexOf("*/");
+            if (end < 0) {
+                return statement;
+            }
+            statement = statement.substring(end + 2).strip();
+        }
+        return statement;
+    }
+}
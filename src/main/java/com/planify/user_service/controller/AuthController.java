@@ -1,7 +1,16 @@
 package com.planify.user_service.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.planify.user_service.model.RegisterRequest;
+import com.planify.user_service.model.UserEntity;
 import com.planify.user_service.service.AuthService;
+import com.planify.user_service.service.AvailabilityService;
+import com.planify.user_service.service.IdempotencyService;
+import com.planify.user_service.service.PendingRegistrationService;
+import com.planify.user_service.service.RequestDeadline;
+import com.planify.user_service.service.UserService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,13 +20,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -28,6 +42,11 @@ import java.util.UUID;
 public class AuthController {
 
     private final AuthService authService;
+    private final AvailabilityService availabilityService;
+    private final IdempotencyService idempotencyService;
+    private final PendingRegistrationService pendingRegistrationService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Registracija novega uporabnika
@@ -36,23 +55,158 @@ public class AuthController {
      */
     @Operation(
         summary = "Register new user",
-        description = "Creates a new user account in both the database and Keycloak. Assigns default role UPORABNIK."
+        description = "Creates a new user account in both the database and Keycloak. Assigns default role UPORABNIK. "
+                + "While Keycloak is unavailable the registration is queued and completed later (202 with a status handle)."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "User successfully registered"),
-        @ApiResponse(responseCode = "400", description = "Invalid data - email already exists or validation failed", content = @Content)
+        @ApiResponse(responseCode = "202", description = "Keycloak unavailable - registration queued, poll statusUrl"),
+        @ApiResponse(responseCode = "400", description = "Invalid data - email already exists or validation failed", content = @Content),
+        @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still in progress", content = @Content),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used with a different request", content = @Content),
+        @ApiResponse(responseCode = "504", description = "Request deadline exceeded while calling Keycloak", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later", content = @Content)
     })
     @PostMapping("/register")
+    @Bulkhead(name = "keycloakWrites")
     public ResponseEntity<?> register(
+            @Parameter(description = "Optional key; retries with the same key replay the first successful response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Parameter(required = true)
             @RequestBody RegisterRequest request) {
+        ResponseEntity<?> response = idempotencyService.execute("register", idempotencyKey, request, checkpoint -> {
+            try {
+                // Ponovitev po delnem neuspehu nadaljuje z že ustvarjenim Keycloak uporabnikom
+                UUID keycloakId = checkpoint.resume().map(UUID::fromString).orElse(null);
+                if (keycloakId == null && pendingRegistrationService.shouldDefer()) {
+                    return ResponseEntity.accepted().body(pendingRegistrationService.enqueue(request));
+                }
+                return ResponseEntity.ok(authService.registerUser(request, keycloakId,
+                        created -> checkpoint.record(created.toString())));
+            } catch (RequestDeadline.ExceededException e) {
+                log.warn(e.getMessage());
+                return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.getMessage());
+            } catch (Exception e) {
+                log.error(e.getMessage());
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }, AuthController::storedRegistration);
+        if ("true".equals(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER))) {
+            return replayedRegistration(response);
+        }
+        return response;
+    }
+
+    /**
+     * Za ponovitve z istim Idempotency-Key shranimo le sporočilo in id-je, brez osebnih podatkov uporabnika.
+     * Ponovitev iz njih sestavi enak odgovor kot prvi klic (replayedRegistration).
+     */
+    private static Object storedRegistration(Object body) {
+        if (body instanceof Map<?, ?> response && response.get("user") instanceof UserEntity user) {
+            Map<String, Object> stored = new LinkedHashMap<>();
+            stored.put("message", response.get("message"));
+            stored.put("userId", user.getId());
+            stored.put("keycloakId", user.getKeycloakId());
+            return stored;
+        }
+        return body;
+    }
+
+    /**
+     * Ponovitev vrne enako obliko odgovora kot prvi klic ({message, user}); uporabnika preberemo po shranjenem id-ju.
+     * Shranjen odgovor odložene registracije (202) nima id-ja uporabnika in se vrne nespremenjen.
+     */
+    private ResponseEntity<?> replayedRegistration(ResponseEntity<?> replayed) {
         try {
-            return ResponseEntity.ok(authService.registerUser(request));
+            JsonNode stored = objectMapper.readTree(String.valueOf(replayed.getBody()));
+            if (!stored.hasNonNull("userId")) {
+                return replayed;
+            }
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", stored.path("message").asText());
+            body.put("user", userService.getUser(UUID.fromString(stored.get("userId").asText())));
+            return ResponseEntity.status(replayed.getStatusCode())
+                    .headers(replayed.getHeaders())
+                    .body(body);
         } catch (Exception e) {
             log.error(e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
         }
+    }
+
+    /**
+     * Stanje odložene registracije
+     * @param registrationId: ročaj, ki ga vrne registracija z odgovorom 202
+     * @return stanje (PENDING, COMPLETED, FAILED) in id uporabnika, ko je registracija zaključena
+     */
+    @Operation(
+        summary = "Get deferred registration status",
+        description = "Returns the status of a registration that was queued while Keycloak was unavailable."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Status retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Unknown registration", content = @Content),
+        @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @GetMapping("/register/{registrationId}")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<?> getRegistrationStatus(
+            @Parameter(required = true)
+            @PathVariable UUID registrationId) {
+        try {
+            return pendingRegistrationService.getStatus(registrationId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
 
+    /**
+     * Preveri, ali so uporabniško ime, email in slug organizacije še prosti (pred registracijo).
+     */
+    @Operation(
+        summary = "Check availability",
+        description = "Checks whether a username, email and/or organization slug are still free. Returns a map of the requested fields to true (available) or false (taken). "
+                + "Usernames are compared case-insensitively. Email checks are rate limited per client."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Availability checked successfully"),
+        @ApiResponse(responseCode = "400", description = "No field to check was given", content = @Content),
+        @ApiResponse(responseCode = "429", description = "Too many email checks from this client, retry later", content = @Content),
+        @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @GetMapping("/availability")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<?> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String slug,
+            HttpServletRequest httpRequest) {
+        if (username == null && email == null && slug == null) {
+            return ResponseEntity.badRequest().body("At least one of username, email or slug is required");
+        }
+        // Preverjanje emaila brez prijave bi sicer omogočalo naštevanje registriranih naslovov
+        if (email != null && !availabilityService.tryAcquireEmailCheck(httpRequest.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Too many email availability checks, retry later");
+        }
+        try {
+            Map<String, Boolean> result = new LinkedHashMap<>();
+            if (username != null) {
+                result.put("username", availabilityService.isUsernameAvailable(username));
+            }
+            if (email != null) {
+                result.put("email", availabilityService.isEmailAvailable(email));
+            }
+            if (slug != null) {
+                result.put("slug", availabilityService.isSlugAvailable(slug));
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
     }
 
     @Operation(
@@ -66,6 +220,7 @@ public class AuthController {
     })
     @GetMapping("{orgId}/roles")
     @PreAuthorize("hasRole('UPORABNIK')")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getRoles(
         @Parameter(required = true)
         @PathVariable UUID orgId) {
@@ -0,0 +1,35 @@
+package com.planify.user_service.controller;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Duration;
+
+/**
+ * Poln bulkhead razreda končnih točk (@Bulkhead na metodi kontrolerja) vrne 503 z glavo Retry-After.
+ * Izjema nastane izven telesa metode, zato je try/catch v kontrolerjih ne ujame.
+ */
+@RestControllerAdvice
+@Slf4j
+public class BulkheadExceptionHandler {
+
+    private final String retryAfter;
+
+    public BulkheadExceptionHandler(@Value("${planify.isolation.retry-after:1s}") Duration retryAfter) {
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<String> handleBulkheadFull(BulkheadFullException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                .body("Service is overloaded, please retry later");
+    }
+}
@@ -0,0 +1,122 @@
+package com.planify.user_service.controller;
+
+import com.planify.user_service.model.*;
+import com.planify.user_service.service.BatchLookupService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/internal")
+@RequiredArgsConstructor
+@Tag(name = "Internal", description = "Batch lookups for other Planify services")
+@SecurityRequirement(name = "bearer-jwt")
+// Le druge storitve: servisni račun (client credentials) z vlogo internal_service
+@PreAuthorize("hasRole('INTERNAL_SERVICE')")
+public class InternalController {
+
+    private final BatchLookupService batchLookupService;
+
+    /**
+     * Paketno iskanje aktivnih uporabnikov po id-jih in/ali keycloak id-jih
+     * @return profili najdenih uporabnikov (neznani id-ji so izpuščeni)
+     */
+    @Operation(
+            summary = "Batch lookup of users",
+            description = "Returns profiles of active users matching any of the given ids or Keycloak ids. Unknown ids are omitted."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Users successfully retrieved"),
+            @ApiResponse(responseCode = "400", description = "Too many keys in one request", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid service token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Caller is not an internal service", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving users", content = @Content)
+    })
+    @PostMapping("/users/batch")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<?> getUsers(
+            @Parameter(required = true)
+            @RequestBody UserBatchRequest body) {
+        try {
+            return ResponseEntity.ok(batchLookupService.findUsers(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Paketno iskanje organizacij po id-jih in/ali slugih
+     * @return najdene organizacije (neznani ključi so izpuščeni)
+     */
+    @Operation(
+            summary = "Batch lookup of organizations",
+            description = "Returns organizations matching any of the given ids or slugs. Unknown keys are omitted."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Organizations successfully retrieved"),
+            @ApiResponse(responseCode = "400", description = "Too many keys in one request", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid service token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Caller is not an internal service", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving organizations", content = @Content)
+    })
+    @PostMapping("/organizations/batch")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<?> getOrganizations(
+            @Parameter(required = true)
+            @RequestBody OrganizationBatchRequest body) {
+        try {
+            return ResponseEntity.ok(batchLookupService.findOrganizations(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Vloge uporabnikov v organizacijah za seznam parov (uporabnik, organizacija)
+     * @return članstva; par brez članstva ni v odgovoru, par z več vlogami je v odgovoru večkrat
+     */
+    @Operation(
+            summary = "Batch lookup of memberships",
+            description = "Returns the memberships for the given (userId, organizationId) pairs. Pairs without a membership are omitted; a user with several roles in an organization appears once per role."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Memberships successfully retrieved"),
+            @ApiResponse(responseCode = "400", description = "Too many pairs in one request", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid service token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Caller is not an internal service", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving memberships", content = @Content)
+    })
+    @PostMapping("/memberships/batch")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<?> getMemberships(
+            @Parameter(required = true)
+            @RequestBody List<MembershipKey> body) {
+        try {
+            return ResponseEntity.ok(batchLookupService.findMemberships(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+}
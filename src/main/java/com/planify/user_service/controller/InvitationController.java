@@ -7,6 +7,7 @@ import com.planify.user_service.model.UserEntity;
 import com.planify.user_service.service.InvitationsService;
 import com.planify.user_service.service.OrganizationService;
 import com.planify.user_service.service.UserService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -56,6 +57,7 @@ public class InvitationController {
     })
     @PreAuthorize("hasRole('ADMINISTRATOR')")
     @GetMapping
+    @Bulkhead(name = "reads")
     public ResponseEntity<List<InvitationEntity>> getInvitations() {
         try{
             List<InvitationEntity> invitations = invitationsService.getInvitations();
@@ -81,6 +83,7 @@ public class InvitationController {
     })
     @PreAuthorize("hasRole('ORG_ADMIN')")
     @GetMapping("/{orgId}/pending")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getInvitations(
             @Parameter(required = true)
             @PathVariable UUID orgId) {
@@ -114,6 +117,7 @@ public class InvitationController {
     })
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/currentUser")
+    @Bulkhead(name = "reads")
     public ResponseEntity<List<InvitationEntity>> getInvitationsByCurrentUser() {
         try{
             List<InvitationEntity> invitations = invitationsService.getInvitationsByCurrentUserIdAndStatus(InvitationStatus.PENDING);
@@ -137,10 +141,12 @@ public class InvitationController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Invitation accepted"),
             @ApiResponse(responseCode = "500", description = "Error occurred while accepting invitation"),
-            @ApiResponse(responseCode = "401", description = "User is not logged into application")
+            @ApiResponse(responseCode = "401", description = "User is not logged into application"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
     })
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/{invitationToken}/accept")
+    @Bulkhead(name = "keycloakWrites")
     public ResponseEntity<InvitationEntity> acceptInvitation(
             @Parameter(required = true)
             @PathVariable String invitationToken) {
@@ -1,8 +1,12 @@
 package com.planify.user_service.controller;
 
 import com.planify.user_service.model.*;
+import com.planify.user_service.service.AutocompleteService;
+import com.planify.user_service.service.IdempotencyService;
 import com.planify.user_service.service.OrganizationService;
+import com.planify.user_service.service.RequestDeadline;
 import com.planify.user_service.service.UserService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -33,6 +37,8 @@ public class OrganizationController {
 
     private final OrganizationService organizationService;
     private final UserService userService;
+    private final AutocompleteService autocompleteService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Ustvari novo organizacijo v sistemu
@@ -45,20 +51,31 @@ public class OrganizationController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Organization created"),
-            @ApiResponse(responseCode = "500", description = "Error occurred while creating organization")
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still in progress", content = @Content),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used with a different request", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Error occurred while creating organization"),
+            @ApiResponse(responseCode = "504", description = "Request deadline exceeded while calling Keycloak"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
     })
     @PostMapping
-    public ResponseEntity<OrganizationEntity> createOrganization(
+    @Bulkhead(name = "keycloakWrites")
+    public ResponseEntity<?> createOrganization(
+            @Parameter(description = "Optional key; retries with the same key replay the first successful response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Parameter(required = true)
             @RequestBody Organization body) {
-        try{
-            OrganizationEntity org = organizationService.createOrganization(body);
-            return ResponseEntity.status(201).body(org);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return ResponseEntity.status(500).body(null);
-        }
-
+        return idempotencyService.execute("create-organization", idempotencyKey, body, () -> {
+            try {
+                OrganizationEntity org = organizationService.createOrganization(body);
+                return ResponseEntity.status(201).body(org);
+            } catch (RequestDeadline.ExceededException e) {
+                log.warn(e.getMessage());
+                return ResponseEntity.status(504).body(null);
+            } catch (Exception e) {
+                log.error(e.getMessage());
+                return ResponseEntity.status(500).body(null);
+            }
+        });
     }
 
 
@@ -101,6 +118,41 @@ public class OrganizationController {
 
     }
 
+    /**
+     * Admin povabi več uporabnikov v organizacijo naenkrat
+     * @param orgId: Id organizacije, v katero hočemo uporabnike povabiti
+     * @param body: seznam uporabnikov in vlog, ki jih hočemo povabiti
+     * @return izid povabila za vsakega uporabnika
+     */
+    @Operation(
+            summary = "Invite multiple users to organization",
+            description = "Invite a list of users in one request. Returns an outcome for every user. Only organization administrator can do this."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Invitations processed"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while sending invitations"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+    })
+    @PostMapping("/{orgId}/invite/bulk")
+    @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    public ResponseEntity<?> inviteUsers(
+            @Parameter(required = true)
+            @PathVariable UUID orgId,
+            @Parameter(required = true)
+            @RequestBody List<BulkInvitationItem> body) {
+        try {
+            UserEntity user = userService.getCurrentUser();
+
+            List<BulkInvitationResult> results = organizationService.inviteUsersToOrganization(
+                    orgId, body, user.getId());
+
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
     /**
      * Pridobi id organizacije glede na prijavljenega administratora organizacije.
      * @return Identifikator organizacije.
@@ -116,6 +168,7 @@ public class OrganizationController {
     })
     @GetMapping("/admin/org")
     @PreAuthorize("hasRole('ORG_ADMIN')")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getOrganizationsId() {
         try{
             // pridobimo uporabnika, ki je poslal zahtevek
@@ -142,10 +195,12 @@ public class OrganizationController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "User successfully removed"),
             @ApiResponse(responseCode = "500", description = "Error occurred while removing user"),
-            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
     })
     @DeleteMapping("/{orgId}/members/{userId}")
     @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "keycloakWrites")
     public ResponseEntity<?> removeUser(
             @Parameter(required = true)
             @PathVariable UUID orgId,
@@ -176,10 +231,12 @@ public class OrganizationController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "User successfully removed"),
             @ApiResponse(responseCode = "500", description = "Error occurred while removing user"),
-            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
     })
     @DeleteMapping("/me/memberships/{orgId}")
     @PreAuthorize("hasRole('UPORABNIK')")
+    @Bulkhead(name = "keycloakWrites")
     public ResponseEntity<?> removeCurrentUser(
             @Parameter(required = true)
             @PathVariable UUID orgId) {
@@ -209,10 +266,12 @@ public class OrganizationController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Request successfully accepted"),
             @ApiResponse(responseCode = "500", description = "Error occurred while accepting request"),
-            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
     })
     @PostMapping("/{orgId}/join-request/{requestId}/approve")
     @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "keycloakWrites")
     public ResponseEntity<?> approveJoinRequest(
             @Parameter(required = true)
             @PathVariable UUID orgId,
@@ -267,6 +326,74 @@ public class OrganizationController {
     }
 
 
+    /**
+     * Odobri več zahtev za vstop v organizacijo naenkrat
+     * @param orgId: Id organizacije, za katero odobrimo zahteve
+     * @param body: seznam Id-jev zahtev, ki jih hočemo odobriti
+     * @return izid za vsako zahtevo
+     */
+    @Operation(
+            summary = "Accept multiple requests to join organization",
+            description = "Accept selected pending requests and assign GUEST role to their users. Requests handled concurrently by another administrator are skipped. Only organization administrator can do this."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Requests processed"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while accepting requests"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
+    })
+    @PostMapping("/{orgId}/join-request/bulk/approve")
+    @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "keycloakWrites")
+    public ResponseEntity<?> approveJoinRequests(
+            @Parameter(required = true)
+            @PathVariable UUID orgId,
+            @Parameter(required = true)
+            @RequestBody List<UUID> body) {
+        try {
+            UserEntity user = userService.getCurrentUser();
+
+            return ResponseEntity.ok(organizationService.approveJoinRequests(orgId, user.getId(), body));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
+
+    /**
+     * Zavrne več zahtev za vstop v organizacijo naenkrat
+     * @param orgId: Id organizacije, za katero zavrnemo zahteve
+     * @param body: seznam Id-jev zahtev, ki jih hočemo zavrniti
+     * @return izid za vsako zahtevo
+     */
+    @Operation(
+            summary = "Reject multiple requests to join organization",
+            description = "Reject selected pending requests. Requests handled concurrently by another administrator are skipped. Only organization administrator can do this."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Requests processed"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while rejecting requests"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+    })
+    @PostMapping("/{orgId}/join-request/bulk/reject")
+    @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    public ResponseEntity<?> rejectJoinRequests(
+            @Parameter(required = true)
+            @PathVariable UUID orgId,
+            @Parameter(required = true)
+            @RequestBody List<UUID> body) {
+        try {
+            UserEntity user = userService.getCurrentUser();
+
+            return ResponseEntity.ok(organizationService.rejectJoinRequests(orgId, user.getId(), body));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
+
     /**
      * Pridobi vse neodgovorjene zahteve za pridružitev organizaciji
      * @param orgId: id organizacije, za katero hočemo pridobiti zahteve
@@ -283,6 +410,7 @@ public class OrganizationController {
     })
     @GetMapping("/{orgId}/join-requests")
     @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "reads")
     public ResponseEntity<List<JoinRequestEntity>> getJoinRequests(
             @Parameter(required = true)
             @PathVariable UUID orgId) {
@@ -297,6 +425,72 @@ public class OrganizationController {
     }
 
 
+    /**
+     * Pridobi zgodovino obdelanih zahtev za pridružitev organizaciji (vključno z arhiviranimi)
+     * @param orgId: id organizacije
+     * @param page: številka strani (od 0)
+     * @param size: velikost strani (največ 100)
+     * @return seznam obdelanih zahtev, od najnovejše naprej
+     */
+    @Operation(
+            summary = "Get join request history for organization",
+            description = "Get approved and rejected join requests of organization, including archived ones, newest first. Only organization administrator can see this."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "History successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving history"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+    })
+    @GetMapping("/{orgId}/join-requests/history")
+    @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<List<JoinRequestHistoryEntry>> getJoinRequestHistory(
+            @Parameter(required = true)
+            @PathVariable UUID orgId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(organizationService.getJoinRequestHistory(orgId, page, size));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+
+    /**
+     * Pridobi zgodovino razrešenih povabil organizacije (vključno z arhiviranimi)
+     * @param orgId: id organizacije
+     * @param page: številka strani (od 0)
+     * @param size: velikost strani (največ 100)
+     * @return seznam razrešenih povabil, od najnovejšega naprej
+     */
+    @Operation(
+            summary = "Get invitation history for organization",
+            description = "Get accepted, rejected and expired invitations of organization, including archived ones, newest first. Only organization administrator can see this."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "History successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving history"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+    })
+    @GetMapping("/{orgId}/invitations/history")
+    @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<List<InvitationHistoryEntry>> getInvitationHistory(
+            @Parameter(required = true)
+            @PathVariable UUID orgId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(organizationService.getInvitationHistory(orgId, page, size));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+
     /**
      * Spremeni vlogo v organizaciji uporbaniku
      * @param orgId: id organizacije
@@ -311,10 +505,12 @@ public class OrganizationController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Role successfully accepted"),
             @ApiResponse(responseCode = "500", description = "Error occurred while changing role"),
-            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent Keycloak-bound requests, retry later")
     })
     @PutMapping("/{orgId}/members/{userId}/role")
     @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "keycloakWrites")
     public ResponseEntity<?> changeUserRole(
             @Parameter(required = true)
             @PathVariable UUID orgId,
@@ -351,6 +547,7 @@ public class OrganizationController {
     })
     @GetMapping("/{orgId}/members")
     @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getOrganizationsUsers(
             @Parameter(required = true)
             @PathVariable UUID orgId) {
@@ -380,6 +577,7 @@ public class OrganizationController {
     })
     @GetMapping("/{orgId}/keycloak/members")
     @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getOrganizationsKeycloakUsers(
             @Parameter(required = true)
             @PathVariable UUID orgId) {
@@ -392,6 +590,34 @@ public class OrganizationController {
         }
     }
 
+    /**
+     * Pridobimo število članov organizacije
+     * @param orgId: Id organizacije
+     * @return število različnih uporabnikov z vsaj eno vlogo v organizaciji
+     */
+    @Operation(
+            summary = "Get member count of organization",
+            description = "Returns number of distinct members of specific organization. Only administrator can see it."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Count successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while counting members"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not organization administrator")
+    })
+    @GetMapping("/{orgId}/members/count")
+    @PreAuthorize("hasRole('ORG_ADMIN') and @orgSecurity.isAdmin(#orgId, authentication)")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<?> getOrganizationMemberCount(
+            @Parameter(required = true)
+            @PathVariable UUID orgId) {
+        try{
+            return ResponseEntity.ok(organizationService.getMemberCount(orgId));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
     /**
      * Pridobimo vse organizacije v naši bazi glede na iskalno vrednost
      * @return seznam organizacij
@@ -407,6 +633,7 @@ public class OrganizationController {
     })
     @PreAuthorize("hasRole('UPORABNIK')")
     @GetMapping("/search")
+    @Bulkhead(name = "reads")
     public ResponseEntity<List<OrganizationEntity>> searchOrgs(
             @Parameter(required = true)
             @RequestParam String query) {
@@ -419,4 +646,87 @@ public class OrganizationController {
         }
     }
 
+    /**
+     * Predlogi organizacij za sprotno iskanje (typeahead) po slugu ali imenu
+     * @param prefix: začetek sluga ali imena organizacije
+     * @param limit: največje število predlogov
+     * @return seznam predlogov (id, ime organizacije)
+     */
+    @Operation(
+            summary = "Autocomplete organizations",
+            description = "Returns organizations whose slug or name starts with the given prefix, served from an in-memory index."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Suggestions successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving suggestions"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not authenticated")
+    })
+    @PreAuthorize("hasRole('UPORABNIK')")
+    @GetMapping("/autocomplete")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<List<AutocompleteSuggestion>> autocompleteOrgs(
+            @Parameter(required = true)
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        try{
+            return ResponseEntity.ok(autocompleteService.suggestOrganizations(prefix, limit));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Pridobi organizacijo po id-ju (streže se iz predpomnilnika)
+     * @param orgId: id organizacije
+     * @return objekt organizacije
+     */
+    @Operation(
+            summary = "Get organization",
+            description = "Returns organization by id. Served from a local cache."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Organization successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving organization")
+    })
+    @PreAuthorize("hasRole('UPORABNIK')")
+    @GetMapping("/{orgId}")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<OrganizationEntity> getOrganization(
+            @Parameter(required = true)
+            @PathVariable UUID orgId) {
+        try{
+            return ResponseEntity.ok(organizationService.getOrganizationById(orgId));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Pridobi organizacijo po slug-u (streže se iz predpomnilnika)
+     * @param slug: unikatni identifikator organizacije v URL-ju
+     * @return objekt organizacije
+     */
+    @Operation(
+            summary = "Get organization by slug",
+            description = "Returns organization by its unique slug. Served from a local cache."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Organization successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving organization")
+    })
+    @PreAuthorize("hasRole('UPORABNIK')")
+    @GetMapping("/slug/{slug}")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<OrganizationEntity> getOrganizationBySlug(
+            @Parameter(required = true)
+            @PathVariable String slug) {
+        try{
+            return ResponseEntity.ok(organizationService.getOrganizationBySlug(slug));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
 }
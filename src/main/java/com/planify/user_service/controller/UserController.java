@@ -1,9 +1,14 @@
 package com.planify.user_service.controller;
 
+import com.planify.user_service.model.AutocompleteSuggestion;
 import com.planify.user_service.model.JoinRequestEntity;
 import com.planify.user_service.model.OrganizationEntity;
+import com.planify.user_service.model.UserDashboard;
 import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.service.AutocompleteService;
+import com.planify.user_service.service.DashboardService;
 import com.planify.user_service.service.UserService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -34,6 +39,8 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
+    private final DashboardService dashboardService;
+    private final AutocompleteService autocompleteService;
 
     /**
      * Pridobimo vse uporabnike v naši bazi
@@ -50,6 +57,7 @@ public class UserController {
     })
     @PreAuthorize("hasRole('ADMINISTRATOR')")
     @GetMapping
+    @Bulkhead(name = "reads")
     public ResponseEntity<List<UserEntity>> getUsers() {
         try{
             List<UserEntity> users = userService.getUsers();
@@ -73,6 +81,7 @@ public class UserController {
             @ApiResponse(responseCode = "500", description = "Error occurred while retrieving user"),
     })
     @GetMapping("/{userId}")
+    @Bulkhead(name = "reads")
     public ResponseEntity<UserEntity> getUser(
             @Parameter(required = true)
             @PathVariable UUID userId) {
@@ -100,6 +109,7 @@ public class UserController {
     })
     @PreAuthorize("hasRole('ORG_ADMIN')")
     @GetMapping("/search")
+    @Bulkhead(name = "reads")
     public ResponseEntity<List<UserEntity>> searchUsers(
             @Parameter(required = true)
             @RequestParam String username) {
@@ -112,6 +122,36 @@ public class UserController {
         }
     }
 
+    /**
+     * Predlogi uporabniških imen za sprotno iskanje (typeahead)
+     * @param prefix: začetek uporabniškega imena
+     * @param limit: največje število predlogov
+     * @return seznam predlogov (id, uporabniško ime)
+     */
+    @Operation(
+            summary = "Autocomplete usernames",
+            description = "Returns usernames starting with the given prefix, served from an in-memory index. Only visible to organization administrators."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Suggestions successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving suggestions"),
+            @ApiResponse(responseCode = "401", description = "Logged in user is not an organization administrator")
+    })
+    @PreAuthorize("hasRole('ORG_ADMIN')")
+    @GetMapping("/autocomplete")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<List<AutocompleteSuggestion>> autocompleteUsers(
+            @Parameter(required = true)
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        try{
+            return ResponseEntity.ok(autocompleteService.suggestUsers(prefix, limit));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
 
     /**
      * Pridobimo seznam organizacij, katerih član je trenutni uporabnik
@@ -128,6 +168,7 @@ public class UserController {
     })
     @PreAuthorize("hasRole('UPORABNIK')")
     @GetMapping("me/orgs")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getUsersOrganizations() {
         try{
             List<OrganizationEntity> users = userService.getUsersOrganizations().stream().toList();
@@ -153,6 +194,7 @@ public class UserController {
     })
     @PreAuthorize("hasRole('UPORABNIK')")
     @GetMapping("me/join-requests")
+    @Bulkhead(name = "reads")
     public ResponseEntity<?> getUsersJoinRequests() {
         try{
             List<JoinRequestEntity> users = userService.getPendingUsersJoinRequests().stream().toList();
@@ -178,6 +220,7 @@ public class UserController {
     })
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/me")
+    @Bulkhead(name = "reads")
     public ResponseEntity<UserEntity> getCurrentUser() {
         try{
             UserEntity user = userService.getCurrentUser();
@@ -188,6 +231,31 @@ public class UserController {
         }
     }
 
+    /**
+     * Zbirni podatki za začetno stran trenutno prijavljenega uporabnika
+     * @return profil, organizacije z vlogami, čakajoča povabila in prošnje za včlanitev
+     */
+    @Operation(
+            summary = "Get current user dashboard",
+            description = "Returns the profile of the currently logged in user, their organizations with roles, pending invitations and pending join requests in a single response."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Dashboard successfully retrieved"),
+            @ApiResponse(responseCode = "500", description = "Error occurred while retrieving dashboard"),
+            @ApiResponse(responseCode = "401", description = "User is not logged in")
+    })
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/me/dashboard")
+    @Bulkhead(name = "reads")
+    public ResponseEntity<UserDashboard> getDashboard() {
+        try {
+            return ResponseEntity.ok(dashboardService.getDashboard());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
     /**
      * Izbriše trenutno prijavljenega uporabnika
      * @return
@@ -231,6 +299,7 @@ public class UserController {
     })
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/me/export")
+    @Bulkhead(name = "reads")
     public ResponseEntity<Map<String, Object>> exportUserData() {
         try {
             UserEntity user = userService.getCurrentUser();
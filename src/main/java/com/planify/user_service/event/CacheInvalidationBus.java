@@ -0,0 +1,145 @@
+package com.planify.user_service.event;
+
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Obvešča druge replike o spremembah uporabnikov, organizacij in članstev prek Postgres NOTIFY.
+ * Obvestila se zberejo v transakciji in pošljejo tik pred potrditvijo; Postgres jih dostavi šele ob COMMIT,
+ * ob ROLLBACK pa jih zavrže. Lokalni predpomnilniki se posodobijo neposredno v servisih,
+ * zato CacheInvalidationListener obvestil lastne instance ne obdela.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    public static final String CHANNEL = "planify_cache_invalidation";
+
+    // Omejitev velikosti NOTIFY sporočila je 8000 bajtov
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+    private static final char ORIGIN_SEPARATOR = '|';
+    private static final char ENTRY_SEPARATOR = ';';
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final Counter sentCounter;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${planify.cache.invalidation.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.sentCounter = Counter.builder("planify.cache.invalidation")
+                .tag("direction", "sent")
+                .register(meterRegistry);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void organizationChanged(UUID orgId) {
+        publish(CacheInvalidationEvent.Type.ORGANIZATION, orgId);
+    }
+
+    public void userChanged(UUID userId) {
+        publish(CacheInvalidationEvent.Type.USER, userId);
+    }
+
+    public void membershipsChanged(UUID userId) {
+        publish(CacheInvalidationEvent.Type.MEMBERSHIP, userId);
+    }
+
+    public void membershipsChanged(Collection<UUID> userIds) {
+        userIds.forEach(this::membershipsChanged);
+    }
+
+    private void publish(CacheInvalidationEvent.Type type, UUID id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        String entry = type.code() + id.toString();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(List.of(entry));
+            return;
+        }
+
+        // Vnose iste transakcije združimo in pošljemo z enim klicem pg_notify na paket
+        @SuppressWarnings("unchecked")
+        Set<String> entries = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (entries == null) {
+            Set<String> pending = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    send(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationBus.this);
+                }
+            });
+            entries = pending;
+        }
+        entries.add(entry);
+    }
+
+    private void send(Collection<String> entries) {
+        for (String payload : encode(instanceId, entries)) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)::text", String.class, CHANNEL, payload);
+        }
+        sentCounter.increment(entries.size());
+        log.debug("Cache invalidation sent for {} entries", entries.size());
+    }
+
+    /**
+     * Format sporočila: {@code <instanca>|O<uuid>;U<uuid>;...}
+     */
+    static List<String> encode(String origin, Collection<String> entries) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (String entry : entries) {
+            if (sb.length() > 0 && sb.length() + entry.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                payloads.add(sb.toString());
+                sb.setLength(0);
+            }
+            sb.append(sb.length() == 0 ? origin + ORIGIN_SEPARATOR : String.valueOf(ENTRY_SEPARATOR)).append(entry);
+        }
+        if (sb.length() > 0) {
+            payloads.add(sb.toString());
+        }
+        return payloads;
+    }
+
+    static String origin(String payload) {
+        int idx = payload.indexOf(ORIGIN_SEPARATOR);
+        return idx < 0 ? "" : payload.substring(0, idx);
+    }
+
+    static List<CacheInvalidationEvent> decode(String payload) {
+        List<CacheInvalidationEvent> events = new ArrayList<>();
+        String body = payload.substring(payload.indexOf(ORIGIN_SEPARATOR) + 1);
+        for (String entry : body.split(String.valueOf(ENTRY_SEPARATOR))) {
+            if (entry.length() < 2) {
+                continue;
+            }
+            events.add(new CacheInvalidationEvent(
+                    CacheInvalidationEvent.Type.fromCode(entry.charAt(0)),
+                    UUID.fromString(entry.substring(1))));
+        }
+        return events;
+    }
+}
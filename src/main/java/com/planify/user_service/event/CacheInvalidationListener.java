@@ -0,0 +1,191 @@
+package com.planify.user_service.event;
+
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Posluša kanal CacheInvalidationBus.CHANNEL na ločeni povezavi do primarne baze (izven bazena povezav)
+ * in obvestila drugih replik objavi kot lokalne CacheInvalidationEvent dogodke.
+ * Po izgubi povezave se ponovno poveže in objavi CacheInvalidationEvent.ALL, saj so bila vmesna obvestila izgubljena.
+ */
+@Component
+@ConditionalOnProperty(name = "planify.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CacheInvalidationListener {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final CacheInvalidationBus bus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+
+    private final Counter receivedCounter;
+    private final Counter reconnectCounter;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CacheInvalidationListener(DataSourceProperties dataSourceProperties,
+                                     CacheInvalidationBus bus,
+                                     ApplicationEventPublisher eventPublisher,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${planify.cache.invalidation.poll-timeout:500ms}") Duration pollTimeout,
+                                     @Value("${planify.cache.invalidation.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.bus = bus;
+        this.eventPublisher = eventPublisher;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+        this.receivedCounter = Counter.builder("planify.cache.invalidation")
+                .tag("direction", "received")
+                .register(meterRegistry);
+        this.reconnectCounter = Counter.builder("planify.cache.invalidation.reconnects")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+            thread = new Thread(this::run, "cache-invalidation-listener");
+            thread.setDaemon(true);
+            thread.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            if (thread != null) {
+                thread.interrupt();
+            }
+            closeQuietly(connection);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                connection = c;
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CacheInvalidationBus.CHANNEL);
+                }
+                log.info("Listening for cache invalidations on channel {}", CacheInvalidationBus.CHANNEL);
+
+                if (connectedBefore) {
+                    // Med prekinitvijo smo lahko zamudili obvestila
+                    reconnectCounter.increment();
+                    dispatch(CacheInvalidationEvent.all());
+                }
+                connectedBefore = true;
+
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            handle(n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener connection lost: {}", e.getMessage());
+                    sleep(reconnectDelay);
+                }
+            } catch (RuntimeException e) {
+                // Nepričakovana napaka (npr. gonilnik) ne sme ustaviti niti; ponovno se povežemo
+                if (running) {
+                    log.error("Cache invalidation listener failed: {}", e.getMessage(), e);
+                    sleep(reconnectDelay);
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        if (bus.getInstanceId().equals(CacheInvalidationBus.origin(payload))) {
+            return;
+        }
+        List<CacheInvalidationEvent> events;
+        try {
+            events = CacheInvalidationBus.decode(payload);
+        } catch (RuntimeException e) {
+            log.error("Failed to decode cache invalidation '{}': {}", payload, e.getMessage());
+            return;
+        }
+        for (CacheInvalidationEvent event : events) {
+            receivedCounter.increment();
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Napaka v poslušalcu enega dogodka ne sme ustaviti poslušanja; TTL predpomnilnikov pokrije izpuščene vnose.
+     */
+    private void dispatch(CacheInvalidationEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Failed to apply cache invalidation {}: {}", event, e.getMessage(), e);
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) {
+            return;
+        }
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // povezavo zapiramo ob zaustavitvi
+        }
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.core.env.Environment;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class KafkaProducer {
@@ -35,6 +37,21 @@ public class KafkaProducer {
         }
     }
 
+    /**
+     * Pošlje vse dogodke in počaka, da jih producer odda v skupnih batch-ih.
+     */
+    public void publishInvitationSentEvents(List<InvitationSentEvent> events) {
+        String invitationsTopic = environment.getProperty("planify.kafka.topic.invitation-sent");
+        if (invitationsTopic != null && !events.isEmpty()) {
+            for (InvitationSentEvent event : events) {
+                kafkaTemplate.send(invitationsTopic,
+                        event.invitationId().toString(),
+                        event);
+            }
+            kafkaTemplate.flush();
+        }
+    }
+
     public void publishJoinRequestRespondedEvent(JoinRequestRespondedEvent event) {
         String joinRequestsTopic = environment.getProperty("planify.kafka.topic.join-request-responded");
         if (joinRequestsTopic != null) {
@@ -44,6 +61,18 @@ public class KafkaProducer {
         }
     }
 
+    public void publishJoinRequestRespondedEvents(List<JoinRequestRespondedEvent> events) {
+        String joinRequestsTopic = environment.getProperty("planify.kafka.topic.join-request-responded");
+        if (joinRequestsTopic != null && !events.isEmpty()) {
+            for (JoinRequestRespondedEvent event : events) {
+                kafkaTemplate.send(joinRequestsTopic,
+                        event.joinRequestId().toString(),
+                        event);
+            }
+            kafkaTemplate.flush();
+        }
+    }
+
     public void publishInvitationRespondedEvent(InvitationRespondedEvent event) {
         String invitationsTopic = environment.getProperty("planify.kafka.topic.invitation-responded");
         if (invitationsTopic != null) {
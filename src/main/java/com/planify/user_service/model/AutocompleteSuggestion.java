@@ -0,0 +1,8 @@
+package com.planify.user_service.model;
+
+import java.util.UUID;
+
+public record AutocompleteSuggestion(
+        UUID id,
+        String label               // username ali ime organizacije
+) {}
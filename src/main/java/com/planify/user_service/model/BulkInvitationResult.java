@@ -0,0 +1,18 @@
+package com.planify.user_service.model;
+
+import java.util.UUID;
+
+public record BulkInvitationResult(
+        UUID userId,
+        boolean invited,
+        UUID invitationId,         // null, če povabilo ni bilo ustvarjeno
+        String error
+) {
+    public static BulkInvitationResult invited(UUID userId, UUID invitationId) {
+        return new BulkInvitationResult(userId, true, invitationId, null);
+    }
+
+    public static BulkInvitationResult failed(UUID userId, String error) {
+        return new BulkInvitationResult(userId, false, null, error);
+    }
+}
@@ -0,0 +1,17 @@
+package com.planify.user_service.model;
+
+import java.util.UUID;
+
+public record BulkModerationResult(
+        UUID joinRequestId,
+        boolean processed,
+        String error
+) {
+    public static BulkModerationResult processed(UUID joinRequestId) {
+        return new BulkModerationResult(joinRequestId, true, null);
+    }
+
+    public static BulkModerationResult failed(UUID joinRequestId, String error) {
+        return new BulkModerationResult(joinRequestId, false, error);
+    }
+}
@@ -0,0 +1,13 @@
+package com.planify.user_service.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record DashboardInvitation(
+        UUID id,
+        String token,
+        UUID organizationId,
+        String organizationName,
+        KeycloakRole role,
+        LocalDateTime expiresAt
+) {}
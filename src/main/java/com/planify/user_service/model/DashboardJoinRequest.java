@@ -0,0 +1,11 @@
+package com.planify.user_service.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record DashboardJoinRequest(
+        UUID id,
+        UUID organizationId,
+        String organizationName,
+        LocalDateTime createdAt
+) {}
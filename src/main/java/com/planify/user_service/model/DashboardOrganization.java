@@ -0,0 +1,12 @@
+package com.planify.user_service.model;
+
+import java.util.List;
+import java.util.UUID;
+
+public record DashboardOrganization(
+        UUID id,
+        String name,
+        String slug,
+        OrganizationType type,
+        List<KeycloakRole> roles
+) {}
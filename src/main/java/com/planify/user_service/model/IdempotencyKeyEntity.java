@@ -0,0 +1,64 @@
+package com.planify.user_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Zapis Idempotency-Key: odtis zahtevka in shranjen odgovor. Vrstice zapisuje IdempotencyService.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKeyEntity {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    @Column(name = "owner_token", nullable = false)
+    private UUID ownerToken;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    // Stranski učinek neuspele izvedbe, ki ga ponovitev nadaljuje (stanje FAILED)
+    @Column
+    private String progress;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(nullable = false, length = 64)
+        private String scope;
+
+        @Column(name = "idempotency_key", nullable = false, length = 512)
+        private String key;
+    }
+}
@@ -0,0 +1,7 @@
+package com.planify.user_service.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED,
+    FAILED
+}
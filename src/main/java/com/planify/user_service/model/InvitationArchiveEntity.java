@@ -0,0 +1,52 @@
+package com.planify.user_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Arhivirano (razrešeno) povabilo. Žeton se ne arhivira. Vrstice se le berejo, zapisuje jih ArchiveService.
+ */
+@Entity
+@Immutable
+@Table(name = "invitations_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvitationArchiveEntity {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "organization_id", nullable = false)
+    private UUID organizationId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private KeycloakRole role;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private InvitationStatus status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "accepted_at")
+    private LocalDateTime acceptedAt;
+
+    @Column(name = "created_by_user_id", nullable = false)
+    private UUID createdByUserId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,17 @@
+package com.planify.user_service.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record InvitationHistoryEntry(
+        UUID id,
+        UUID userId,
+        UUID organizationId,
+        KeycloakRole role,
+        InvitationStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime expiresAt,
+        LocalDateTime acceptedAt,
+        UUID createdByUserId,
+        boolean archived           // true, če je zapis že premaknjen v arhiv
+) {}
@@ -0,0 +1,45 @@
+package com.planify.user_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Arhivirana (obdelana) prošnja za vstop. Vrstice se le berejo, zapisuje jih ArchiveService.
+ */
+@Entity
+@Immutable
+@Table(name = "join_requests_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JoinRequestArchiveEntity {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "organization_id", nullable = false)
+    private UUID organizationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JoinRequestStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "handled_at")
+    private LocalDateTime handledAt;
+
+    @Column(name = "handled_by_user_id")
+    private UUID handledByUserId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -13,7 +13,7 @@ import java.util.UUID;
 public class JoinRequestEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne
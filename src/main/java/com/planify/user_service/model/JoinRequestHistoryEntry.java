@@ -0,0 +1,15 @@
+package com.planify.user_service.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record JoinRequestHistoryEntry(
+        UUID id,
+        UUID userId,
+        UUID organizationId,
+        JoinRequestStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime handledAt,
+        UUID handledByUserId,
+        boolean archived           // true, če je zapis že premaknjen v arhiv
+) {}
@@ -0,0 +1,10 @@
+package com.planify.user_service.model;
+
+import java.util.UUID;
+
+public record MembershipEdge(
+        UUID userId,
+        UUID keycloakId,
+        UUID organizationId,
+        KeycloakRole role
+) {}
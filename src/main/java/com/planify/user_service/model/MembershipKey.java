@@ -0,0 +1,8 @@
+package com.planify.user_service.model;
+
+import java.util.UUID;
+
+public record MembershipKey(
+        UUID userId,
+        UUID organizationId
+) {}
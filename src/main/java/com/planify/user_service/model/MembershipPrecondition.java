@@ -0,0 +1,27 @@
+package com.planify.user_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Rezultat združenega preverjanja pred ustvarjanjem prošnje za vstop ali povabila.
+ * Organizacija in uporabnik sta naložena v istem stavku, stanje pa je zapisano kot bitna maska.
+ */
+@Getter
+@AllArgsConstructor
+public class MembershipPrecondition {
+
+    public static final int MEMBER = 1;                  // uporabnik ima vsaj eno vlogo v organizaciji
+    public static final int HAS_ROLE = 1 << 1;           // uporabnik že ima zahtevano vlogo
+    public static final int PENDING_JOIN_REQUEST = 1 << 2;
+    public static final int PENDING_INVITATION = 1 << 3;
+    public static final int REQUESTER_ADMIN = 1 << 4;    // pobudnik je ORG_ADMIN organizacije
+
+    private OrganizationEntity organization;
+    private UserEntity user;
+    private Integer status;
+
+    public boolean has(int flag) {
+        return (status & flag) != 0;
+    }
+}
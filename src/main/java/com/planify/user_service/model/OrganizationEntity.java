@@ -14,7 +14,7 @@ import java.util.*;
 public class OrganizationEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -15,7 +15,7 @@ import java.util.UUID;
 public class OrganizationMembershipEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne
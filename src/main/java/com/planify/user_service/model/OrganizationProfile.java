@@ -0,0 +1,46 @@
+package com.planify.user_service.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Nespremenljivi podatki organizacije, ki jih hrani OrganizationCache (brez povezav na članstva, prošnje in povabila).
+ */
+public record OrganizationProfile(
+        UUID id,
+        String name,
+        String slug,
+        String description,
+        OrganizationType type,
+        LocalDateTime createdAt,
+        UUID createdByUserId
+) {
+
+    public static OrganizationProfile of(OrganizationEntity org) {
+        return new OrganizationProfile(
+                org.getId(),
+                org.getName(),
+                org.getSlug(),
+                org.getDescription(),
+                org.getType(),
+                org.getCreatedAt(),
+                org.getCreatedByUserId()
+        );
+    }
+
+    /**
+     * Nova odklopljena entiteta za obstoječe odgovore API-ja; članstva, prošnje in povabila so prazni.
+     * Ni namenjena zapisovanju: za povezave pri zapisu uporabi OrganizationRepository.getReferenceById.
+     */
+    public OrganizationEntity toEntity() {
+        OrganizationEntity org = new OrganizationEntity();
+        org.setId(id);
+        org.setName(name);
+        org.setSlug(slug);
+        org.setDescription(description);
+        org.setType(type);
+        org.setCreatedAt(createdAt);
+        org.setCreatedByUserId(createdByUserId);
+        return org;
+    }
+}
@@ -0,0 +1,75 @@
+package com.planify.user_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Registracija, ki čaka na Keycloak. Zapisuje jo PendingRegistrationService.
+ */
+@Entity
+@Table(name = "pending_registrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingRegistrationEntity {
+
+    // Naključen (ne UUIDv7), ker je id tudi ročaj za javno poizvedbo o stanju
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String email;
+
+    private String mobile;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    private String role;
+
+    @Column(name = "consent_email")
+    private Boolean consentEmail;
+
+    @Column(name = "consent_sms")
+    private Boolean consentSms;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @Column(name = "encrypted_password")
+    private byte[] encryptedPassword;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PendingRegistrationStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "keycloak_id")
+    private UUID keycloakId;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
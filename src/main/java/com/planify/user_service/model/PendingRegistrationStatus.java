@@ -0,0 +1,7 @@
+package com.planify.user_service.model;
+
+public enum PendingRegistrationStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
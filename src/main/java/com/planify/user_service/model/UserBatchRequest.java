@@ -0,0 +1,9 @@
+package com.planify.user_service.model;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UserBatchRequest(
+        List<UUID> ids,
+        List<UUID> keycloakIds
+) {}
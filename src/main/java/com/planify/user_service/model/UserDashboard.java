@@ -0,0 +1,14 @@
+package com.planify.user_service.model;
+
+import java.util.List;
+
+/**
+ * Odgovor /api/users/me/dashboard: profil, organizacije z vlogami, čakajoča povabila in prošnje za včlanitev.
+ * Povabila in prošnje vsebujejo le id in ime organizacije, brez vgnezdenih entitet.
+ */
+public record UserDashboard(
+        UserProfile profile,
+        List<DashboardOrganization> organizations,
+        List<DashboardInvitation> invitations,
+        List<DashboardJoinRequest> joinRequests
+) {}
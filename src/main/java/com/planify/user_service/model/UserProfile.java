@@ -0,0 +1,54 @@
+package com.planify.user_service.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Podatki uporabnika, ki jih hrani OffHeapUserProfileStore (brez povezav na članstva in prošnje).
+ */
+public record UserProfile(
+        UUID id,
+        UUID keycloakId,
+        String email,
+        String username,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        boolean emailConsent,
+        boolean smsConsent,
+        LocalDateTime createdAt
+) {
+
+    public static UserProfile of(UserEntity user) {
+        return new UserProfile(
+                user.getId(),
+                user.getKeycloakId(),
+                user.getEmail(),
+                user.getUsername(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getPhoneNumber(),
+                Boolean.TRUE.equals(user.getEmailConsent()),
+                Boolean.TRUE.equals(user.getSmsConsent()),
+                user.getCreatedAt()
+        );
+    }
+
+    /**
+     * Odklopljena entiteta za obstoječe odgovore API-ja; članstva in prošnje so prazni.
+     */
+    public UserEntity toEntity() {
+        UserEntity user = new UserEntity();
+        user.setId(id);
+        user.setKeycloakId(keycloakId);
+        user.setEmail(email);
+        user.setUsername(username);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setPhoneNumber(phoneNumber);
+        user.setEmailConsent(emailConsent);
+        user.setSmsConsent(smsConsent);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
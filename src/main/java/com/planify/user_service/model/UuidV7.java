@@ -0,0 +1,20 @@
+package com.planify.user_service.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Identifikator entitete se generira kot časovno urejen UUID (verzija 7).
+ * Obstoječi (naključni v4) ključi ostanejo veljavni, saj je tip stolpca še vedno UUID.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7 {
+}
@@ -0,0 +1,43 @@
+package com.planify.user_service.model.event;
+
+import java.util.UUID;
+
+/**
+ * Lokalni dogodek, ki ga sproži CacheInvalidationListener, ko druga replika spremeni podatke.
+ * Tip ALL pomeni, da so bila obvestila morda izgubljena in je treba zavreči vse lokalne predpomnilnike.
+ */
+public record CacheInvalidationEvent(
+        Type type,
+        UUID id                        // null pri tipu ALL
+) {
+
+    public enum Type {
+        ORGANIZATION('O'),
+        USER('U'),
+        MEMBERSHIP('M'),               // id je id uporabnika, čigar članstva so se spremenila
+        ALL('*');
+
+        private final char code;
+
+        Type(char code) {
+            this.code = code;
+        }
+
+        public char code() {
+            return code;
+        }
+
+        public static Type fromCode(char code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cache invalidation type: " + code);
+        }
+    }
+
+    public static CacheInvalidationEvent all() {
+        return new CacheInvalidationEvent(Type.ALL, null);
+    }
+}
@@ -0,0 +1,120 @@
+package com.planify.user_service.repository;
+
+import com.planify.user_service.model.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, IdempotencyKeyEntity.Key> {
+
+    /**
+     * Zasede ključ za izvajanje. Vrne 1, če je ključ nov, če je prejšnji izvajalec obtičal (updated_at pred :staleBefore),
+     * če je prejšnja izvedba istega zahtevka delno uspela (FAILED) ali če je zapis potekel; sicer 0.
+     * Zabeležen progress ostane le za isti zahtevek v veljavnem zapisu.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO {h-schema}idempotency_keys
+               (scope, idempotency_key, request_hash, status, owner_token, created_at, updated_at, expires_at)
+        VALUES (:scope, :key, :requestHash, 'IN_PROGRESS', :owner, :now, :now, :expiresAt)
+        ON CONFLICT (scope, idempotency_key) DO UPDATE
+           SET request_hash = EXCLUDED.request_hash,
+               status = 'IN_PROGRESS',
+               owner_token = EXCLUDED.owner_token,
+               response_status = NULL,
+               response_body = NULL,
+               progress = CASE WHEN idempotency_keys.request_hash = EXCLUDED.request_hash
+                                AND idempotency_keys.expires_at >= :now
+                               THEN idempotency_keys.progress END,
+               created_at = EXCLUDED.created_at,
+               updated_at = EXCLUDED.updated_at,
+               expires_at = EXCLUDED.expires_at
+         WHERE (idempotency_keys.status = 'IN_PROGRESS' AND idempotency_keys.updated_at < :staleBefore)
+            OR (idempotency_keys.status = 'FAILED' AND idempotency_keys.request_hash = EXCLUDED.request_hash)
+            OR idempotency_keys.expires_at < :now
+    """, nativeQuery = true)
+    int claim(String scope, String key, String requestHash, UUID owner,
+              LocalDateTime now, LocalDateTime staleBefore, LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE {h-schema}idempotency_keys
+           SET status = 'COMPLETED',
+               response_status = :responseStatus,
+               response_body = :responseBody,
+               updated_at = :now
+         WHERE scope = :scope
+           AND idempotency_key = :key
+           AND owner_token = :owner
+    """, nativeQuery = true)
+    int complete(String scope, String key, UUID owner, int responseStatus, String responseBody, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE {h-schema}idempotency_keys
+           SET progress = :progress,
+               updated_at = :now
+         WHERE scope = :scope
+           AND idempotency_key = :key
+           AND owner_token = :owner
+           AND status = 'IN_PROGRESS'
+    """, nativeQuery = true)
+    int recordProgress(String scope, String key, UUID owner, String progress, LocalDateTime now);
+
+    /**
+     * Izvedba je po stranskem učinku spodletela: ključ ostane zaseden, ponovitev z istim zahtevkom jo nadaljuje.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE {h-schema}idempotency_keys
+           SET status = 'FAILED',
+               updated_at = :now
+         WHERE scope = :scope
+           AND idempotency_key = :key
+           AND owner_token = :owner
+           AND status = 'IN_PROGRESS'
+    """, nativeQuery = true)
+    int fail(String scope, String key, UUID owner, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM {h-schema}idempotency_keys
+         WHERE scope = :scope
+           AND idempotency_key = :key
+           AND owner_token = :owner
+           AND status = 'IN_PROGRESS'
+    """, nativeQuery = true)
+    int release(String scope, String key, UUID owner);
+
+    // Brez readOnly, da beremo s primarne baze (replika lahko zaostaja za zasegom ključa)
+    @Transactional
+    @Query("""
+        SELECT k
+          FROM IdempotencyKeyEntity k
+         WHERE k.id.scope = :scope
+           AND k.id.key = :key
+    """)
+    Optional<IdempotencyKeyEntity> findOnPrimary(String scope, String key);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM {h-schema}idempotency_keys
+         WHERE (scope, idempotency_key) IN (SELECT scope, idempotency_key
+                                              FROM {h-schema}idempotency_keys
+                                             WHERE expires_at < :now
+                                             LIMIT :limit
+                                               FOR UPDATE SKIP LOCKED)
+    """, nativeQuery = true)
+    int purgeExpiredChunk(LocalDateTime now, int limit);
+}
@@ -0,0 +1,54 @@
+package com.planify.user_service.repository;
+
+import com.planify.user_service.model.InvitationArchiveEntity;
+import com.planify.user_service.model.InvitationHistoryEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface InvitationArchiveRepository extends JpaRepository<InvitationArchiveEntity, UUID> {
+
+    @Query("""
+        SELECT new com.planify.user_service.model.InvitationHistoryEntry(
+               a.id, a.userId, a.organizationId, a.role, a.status, a.createdAt, a.expiresAt, a.acceptedAt,
+               a.createdByUserId, true)
+          FROM InvitationArchiveEntity a
+         WHERE a.organizationId = :orgId
+         ORDER BY a.createdAt DESC
+    """)
+    List<InvitationHistoryEntry> findHistoryByOrganizationId(UUID orgId, Pageable pageable);
+
+    /**
+     * Poskrbi, da obstajajo mesečne particije za vsa izbrana povabila.
+     */
+    @Query(value = """
+        SELECT count(*)
+          FROM (SELECT {h-schema}ensure_archive_partition('invitations_archive', m.month)
+                  FROM (SELECT DISTINCT CAST(date_trunc('month', i.created_at) AS date) AS month
+                          FROM {h-schema}invitations i
+                         WHERE i.id IN (:ids)) m) p
+    """, nativeQuery = true)
+    long ensurePartitions(Collection<UUID> ids);
+
+    /**
+     * Premakne izbrana povabila v arhiv z enim stavkom (DELETE ... RETURNING v INSERT).
+     */
+    @Modifying
+    @Query(value = """
+        WITH moved AS (
+            DELETE FROM {h-schema}invitations
+             WHERE id IN (:ids)
+            RETURNING id, organization_id, user_id, role, status, expires_at, created_at, accepted_at, created_by_user_id
+        )
+        INSERT INTO {h-schema}invitations_archive
+               (id, organization_id, user_id, role, status, expires_at, created_at, accepted_at, created_by_user_id, archived_at)
+        SELECT id, organization_id, user_id, role, status, expires_at, created_at, accepted_at, created_by_user_id, now()
+          FROM moved
+    """, nativeQuery = true)
+    int moveToArchive(Collection<UUID> ids);
+}
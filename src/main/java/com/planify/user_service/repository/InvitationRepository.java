@@ -1,9 +1,17 @@
 package com.planify.user_service.repository;
 
+import com.planify.user_service.model.DashboardInvitation;
 import com.planify.user_service.model.InvitationEntity;
+import com.planify.user_service.model.InvitationHistoryEntry;
 import com.planify.user_service.model.InvitationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,4 +24,73 @@ public interface InvitationRepository extends JpaRepository<InvitationEntity, UU
 
     List<InvitationEntity> findByOrganizationIdAndStatus(UUID orgId, InvitationStatus status);
     List<InvitationEntity> findByOrganizationIdAndStatusAndUserId(UUID orgId, InvitationStatus status, UUID userId);
-}
\ No newline at end of file
+
+    @Query("""
+        SELECT i.user.id
+          FROM InvitationEntity i
+         WHERE i.organization.id = :orgId
+           AND i.status = com.planify.user_service.model.InvitationStatus.PENDING
+           AND i.user.id IN :userIds
+    """)
+    List<UUID> findPendingUserIds(UUID orgId, Collection<UUID> userIds);
+
+    // Metode za RetentionService; vsak klic obdela največ :limit vrstic v svoji transakciji
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE {h-schema}invitations
+           SET status = 'EXPIRED'
+         WHERE id IN (SELECT id
+                        FROM {h-schema}invitations
+                       WHERE status = 'PENDING'
+                         AND expires_at < :now
+                       LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+    """, nativeQuery = true)
+    int expirePendingChunk(LocalDateTime now, int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM {h-schema}invitations
+         WHERE id IN (SELECT id
+                        FROM {h-schema}invitations
+                       WHERE status = 'EXPIRED'
+                         AND expires_at < :cutoff
+                       LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+    """, nativeQuery = true)
+    int purgeExpiredChunk(LocalDateTime cutoff, int limit);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.InvitationHistoryEntry(
+               i.id, i.user.id, i.organization.id, i.role, i.status, i.createdAt, i.expiresAt, i.acceptedAt,
+               i.createdByUserId, false)
+          FROM InvitationEntity i
+         WHERE i.organization.id = :orgId
+           AND i.status <> com.planify.user_service.model.InvitationStatus.PENDING
+         ORDER BY i.createdAt DESC
+    """)
+    List<InvitationHistoryEntry> findHistoryByOrganizationId(UUID orgId, Pageable pageable);
+
+    @Query(value = """
+        SELECT id
+          FROM {h-schema}invitations
+         WHERE status <> 'PENDING'
+           AND created_at < :cutoff
+         LIMIT :limit
+           FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<UUID> lockResolvedBefore(LocalDateTime cutoff, int limit);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.DashboardInvitation(
+               i.id, i.token, i.organization.id, i.organization.name, i.role, i.expiresAt)
+          FROM InvitationEntity i
+         WHERE i.user.id = :userId
+           AND i.status = com.planify.user_service.model.InvitationStatus.PENDING
+         ORDER BY i.createdAt DESC
+    """)
+    List<DashboardInvitation> findPendingDashboardInvitations(UUID userId);
+}
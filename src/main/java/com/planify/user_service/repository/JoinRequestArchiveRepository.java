@@ -0,0 +1,53 @@
+package com.planify.user_service.repository;
+
+import com.planify.user_service.model.JoinRequestArchiveEntity;
+import com.planify.user_service.model.JoinRequestHistoryEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface JoinRequestArchiveRepository extends JpaRepository<JoinRequestArchiveEntity, UUID> {
+
+    @Query("""
+        SELECT new com.planify.user_service.model.JoinRequestHistoryEntry(
+               a.id, a.userId, a.organizationId, a.status, a.createdAt, a.handledAt, a.handledByUserId, true)
+          FROM JoinRequestArchiveEntity a
+         WHERE a.organizationId = :orgId
+         ORDER BY a.createdAt DESC
+    """)
+    List<JoinRequestHistoryEntry> findHistoryByOrganizationId(UUID orgId, Pageable pageable);
+
+    /**
+     * Poskrbi, da obstajajo mesečne particije za vse izbrane prošnje.
+     */
+    @Query(value = """
+        SELECT count(*)
+          FROM (SELECT {h-schema}ensure_archive_partition('join_requests_archive', m.month)
+                  FROM (SELECT DISTINCT CAST(date_trunc('month', jr.created_at) AS date) AS month
+                          FROM {h-schema}join_requests jr
+                         WHERE jr.id IN (:ids)) m) p
+    """, nativeQuery = true)
+    long ensurePartitions(Collection<UUID> ids);
+
+    /**
+     * Premakne izbrane prošnje v arhiv z enim stavkom (DELETE ... RETURNING v INSERT).
+     */
+    @Modifying
+    @Query(value = """
+        WITH moved AS (
+            DELETE FROM {h-schema}join_requests
+             WHERE id IN (:ids)
+            RETURNING id, user_id, organization_id, status, created_at, handled_at, handled_by_user_id
+        )
+        INSERT INTO {h-schema}join_requests_archive
+               (id, user_id, organization_id, status, created_at, handled_at, handled_by_user_id, archived_at)
+        SELECT id, user_id, organization_id, status, created_at, handled_at, handled_by_user_id, now()
+          FROM moved
+    """, nativeQuery = true)
+    int moveToArchive(Collection<UUID> ids);
+}
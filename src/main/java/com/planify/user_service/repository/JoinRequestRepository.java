@@ -1,9 +1,19 @@
 package com.planify.user_service.repository;
 
+import com.planify.user_service.model.DashboardJoinRequest;
 import com.planify.user_service.model.JoinRequestEntity;
+import com.planify.user_service.model.JoinRequestHistoryEntry;
 import com.planify.user_service.model.JoinRequestStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,4 +24,83 @@ public interface JoinRequestRepository extends JpaRepository<JoinRequestEntity,
     List<JoinRequestEntity> findByUserIdAndOrganizationId(UUID userId, UUID orgId);
 
     List<JoinRequestEntity> findByUserIdAndStatus(UUID userId, JoinRequestStatus ststus);
-}
\ No newline at end of file
+
+    @Query("""
+        SELECT jr.user.id
+          FROM JoinRequestEntity jr
+         WHERE jr.organization.id = :orgId
+           AND jr.status = com.planify.user_service.model.JoinRequestStatus.PENDING
+           AND jr.user.id IN :userIds
+    """)
+    List<UUID> findPendingUserIds(UUID orgId, Collection<UUID> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT jr FROM JoinRequestEntity jr WHERE jr.id = :id")
+    Optional<JoinRequestEntity> findByIdForUpdate(UUID id);
+
+    /**
+     * Zaklene čakajoče prošnje organizacije. Vrstice, ki jih trenutno obdeluje drug administrator, preskoči.
+     */
+    @Query(value = """
+        SELECT jr.id
+          FROM {h-schema}join_requests jr
+         WHERE jr.id IN (:ids)
+           AND jr.organization_id = :orgId
+           AND jr.status = 'PENDING'
+         ORDER BY jr.id
+           FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<UUID> lockPendingForUpdate(UUID orgId, Collection<UUID> ids);
+
+    @Query("""
+        SELECT jr
+          FROM JoinRequestEntity jr
+          JOIN FETCH jr.user
+          JOIN FETCH jr.organization
+         WHERE jr.id IN :ids
+    """)
+    List<JoinRequestEntity> findWithUserByIdIn(Collection<UUID> ids);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM {h-schema}join_requests
+         WHERE id IN (SELECT id
+                        FROM {h-schema}join_requests
+                       WHERE status <> 'PENDING'
+                         AND handled_at < :cutoff
+                       LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+    """, nativeQuery = true)
+    int purgeHandledChunk(LocalDateTime cutoff, int limit);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.JoinRequestHistoryEntry(
+               jr.id, jr.user.id, jr.organization.id, jr.status, jr.createdAt, jr.handledAt, jr.handledByUserId, false)
+          FROM JoinRequestEntity jr
+         WHERE jr.organization.id = :orgId
+           AND jr.status <> com.planify.user_service.model.JoinRequestStatus.PENDING
+         ORDER BY jr.createdAt DESC
+    """)
+    List<JoinRequestHistoryEntry> findHistoryByOrganizationId(UUID orgId, Pageable pageable);
+
+    @Query(value = """
+        SELECT id
+          FROM {h-schema}join_requests
+         WHERE status <> 'PENDING'
+           AND handled_at < :cutoff
+         LIMIT :limit
+           FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<UUID> lockHandledBefore(LocalDateTime cutoff, int limit);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.DashboardJoinRequest(
+               jr.id, jr.organization.id, jr.organization.name, jr.createdAt)
+          FROM JoinRequestEntity jr
+         WHERE jr.user.id = :userId
+           AND jr.status = com.planify.user_service.model.JoinRequestStatus.PENDING
+         ORDER BY jr.createdAt DESC
+    """)
+    List<DashboardJoinRequest> findPendingDashboardJoinRequests(UUID userId);
+}
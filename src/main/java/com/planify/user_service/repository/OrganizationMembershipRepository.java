@@ -1,15 +1,24 @@
 package com.planify.user_service.repository;
 
 import com.planify.user_service.model.KeycloakRole;
+import com.planify.user_service.model.MemberRole;
+import com.planify.user_service.model.MembershipEdge;
+import com.planify.user_service.model.MembershipPrecondition;
 import com.planify.user_service.model.OrganizationEntity;
 import com.planify.user_service.model.OrganizationMembershipEntity;
 import com.planify.user_service.model.OrganizationSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface OrganizationMembershipRepository extends JpaRepository<OrganizationMembershipEntity, UUID> {
     List<OrganizationMembershipEntity> findByUserId(UUID userId);
@@ -28,7 +37,142 @@ public interface OrganizationMembershipRepository extends JpaRepository<Organiza
         )
           FROM OrganizationMembershipEntity om
          WHERE om.user.id = :adminId
-           AND UPPER(om.role) = 'ORG_ADMIN'
+           AND om.role = com.planify.user_service.model.KeycloakRole.ORG_ADMIN
     """)
     Optional<OrganizationSummary> findOrganizationByAdmin(UUID adminId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        DELETE FROM OrganizationMembershipEntity om
+         WHERE om.user.id = :userId
+    """)
+    int bulkDeleteByUserId(UUID userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        DELETE FROM OrganizationMembershipEntity om
+         WHERE om.user.id = :userId
+           AND om.organization.id = :orgId
+    """)
+    int bulkDeleteByUserIdAndOrganizationId(UUID userId, UUID orgId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        DELETE FROM OrganizationMembershipEntity om
+         WHERE om.user.id = :userId
+           AND om.organization.id = :orgId
+           AND om.role IN :roles
+    """)
+    int bulkDeleteByUserIdAndOrganizationIdAndRoleIn(UUID userId, UUID orgId, Collection<KeycloakRole> roles);
+
+    @Query("""
+        SELECT om.user.keycloakId
+          FROM OrganizationMembershipEntity om
+         WHERE om.organization.id = :orgId
+           AND om.role = :role
+    """)
+    List<UUID> findKeycloakIdsByOrganizationIdAndRole(UUID orgId, KeycloakRole role);
+
+    @Query("""
+        SELECT COUNT(DISTINCT om.user.id)
+          FROM OrganizationMembershipEntity om
+         WHERE om.organization.id = :orgId
+    """)
+    long countMembersByOrganizationId(UUID orgId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.planify.user_service.model.MembershipEdge(u.id, u.keycloakId, om.organization.id, om.role)
+          FROM OrganizationMembershipEntity om
+          JOIN om.user u
+    """)
+    Stream<MembershipEdge> streamEdges();
+
+    @Query("""
+        SELECT new com.planify.user_service.model.MembershipEdge(u.id, u.keycloakId, om.organization.id, om.role)
+          FROM OrganizationMembershipEntity om
+          JOIN om.user u
+         WHERE u.id IN :userIds
+    """)
+    List<MembershipEdge> findEdgesByUserIdIn(Collection<UUID> userIds);
+
+    /**
+     * Vsa preverjanja pred vstopom v organizacijo v enem stavku.
+     * Prazen rezultat pomeni, da organizacija ali (aktiven) uporabnik ne obstaja.
+     */
+    @Query("""
+        SELECT new com.planify.user_service.model.MembershipPrecondition(
+               o,
+               u,
+               CASE WHEN EXISTS (SELECT 1 FROM OrganizationMembershipEntity m
+                                  WHERE m.user.id = :userId AND m.organization.id = :orgId) THEN 1 ELSE 0 END
+             + CASE WHEN EXISTS (SELECT 1 FROM OrganizationMembershipEntity m
+                                  WHERE m.user.id = :userId AND m.organization.id = :orgId AND m.role = :role) THEN 2 ELSE 0 END
+             + CASE WHEN EXISTS (SELECT 1 FROM JoinRequestEntity jr
+                                  WHERE jr.user.id = :userId AND jr.organization.id = :orgId
+                                    AND jr.status = com.planify.user_service.model.JoinRequestStatus.PENDING) THEN 4 ELSE 0 END
+             + CASE WHEN EXISTS (SELECT 1 FROM InvitationEntity i
+                                  WHERE i.user.id = :userId AND i.organization.id = :orgId
+                                    AND i.status = com.planify.user_service.model.InvitationStatus.PENDING) THEN 8 ELSE 0 END
+             + CASE WHEN EXISTS (SELECT 1 FROM OrganizationMembershipEntity m
+                                  WHERE m.user.id = :requestedByUserId AND m.organization.id = :orgId
+                                    AND m.role = com.planify.user_service.model.KeycloakRole.ORG_ADMIN) THEN 16 ELSE 0 END)
+          FROM OrganizationEntity o, UserEntity u
+         WHERE o.id = :orgId
+           AND u.id = :userId
+           AND u.deletedAt IS NULL
+    """)
+    Optional<MembershipPrecondition> checkPreconditions(UUID orgId, UUID userId, UUID requestedByUserId, KeycloakRole role);
+
+    /**
+     * Preverjanja pred prošnjo za vstop: le članstvo in čakajoče prošnje/povabila (brez vloge in pobudnika).
+     * Prazen rezultat pomeni, da organizacija ali (aktiven) uporabnik ne obstaja.
+     */
+    @Query("""
+        SELECT new com.planify.user_service.model.MembershipPrecondition(
+               o,
+               u,
+               CASE WHEN EXISTS (SELECT 1 FROM OrganizationMembershipEntity m
+                                  WHERE m.user.id = :userId AND m.organization.id = :orgId) THEN 1 ELSE 0 END
+             + CASE WHEN EXISTS (SELECT 1 FROM JoinRequestEntity jr
+                                  WHERE jr.user.id = :userId AND jr.organization.id = :orgId
+                                    AND jr.status = com.planify.user_service.model.JoinRequestStatus.PENDING) THEN 4 ELSE 0 END
+             + CASE WHEN EXISTS (SELECT 1 FROM InvitationEntity i
+                                  WHERE i.user.id = :userId AND i.organization.id = :orgId
+                                    AND i.status = com.planify.user_service.model.InvitationStatus.PENDING) THEN 8 ELSE 0 END)
+          FROM OrganizationEntity o, UserEntity u
+         WHERE o.id = :orgId
+           AND u.id = :userId
+           AND u.deletedAt IS NULL
+    """)
+    Optional<MembershipPrecondition> checkJoinRequestPreconditions(UUID orgId, UUID userId);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.MemberRole(om.user.id, om.role)
+          FROM OrganizationMembershipEntity om
+         WHERE om.organization.id = :orgId
+           AND om.user.id IN :userIds
+    """)
+    List<MemberRole> findRolesByOrganizationIdAndUserIdIn(UUID orgId, Collection<UUID> userIds);
+
+    /**
+     * Id-ji članstev za natanko podane pare (uporabnik, organizacija); tabeli sta poravnani po indeksu.
+     * Pare poveže baza prek unnest, zato se ne naloži vseh kombinacij uporabnikov in organizacij.
+     */
+    @Query(value = """
+        SELECT m.id
+          FROM unnest(CAST(:userIds AS uuid[]), CAST(:orgIds AS uuid[])) AS p(user_id, organization_id)
+          JOIN {h-schema}organization_memberships m
+            ON m.user_id = p.user_id
+           AND m.organization_id = p.organization_id
+    """, nativeQuery = true)
+    List<UUID> findIdsByUserAndOrganizationPairs(UUID[] userIds, UUID[] orgIds);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.MembershipEdge(u.id, u.keycloakId, om.organization.id, om.role)
+          FROM OrganizationMembershipEntity om
+          JOIN om.user u
+         WHERE om.id IN :ids
+    """)
+    List<MembershipEdge> findEdgesByIdIn(Collection<UUID> ids);
 }
@@ -1,17 +1,27 @@
 package com.planify.user_service.repository;
 
+import com.planify.user_service.model.AutocompleteSuggestion;
 import com.planify.user_service.model.OrganizationEntity;
+import com.planify.user_service.model.OrganizationSummary;
 import com.planify.user_service.model.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface OrganizationRepository extends JpaRepository<OrganizationEntity, UUID> {
     Optional<OrganizationEntity> findBySlug(String slug);
 
+    boolean existsBySlug(String slug);
+
     List<OrganizationEntity> findByCreatedByUserId(UUID userId);
 
     @Query("""
@@ -21,4 +31,36 @@ public interface OrganizationRepository extends JpaRepository<OrganizationEntity
           OR o.name LIKE CONCAT(:searchValue, '%')
        """)
     List<OrganizationEntity> findOrgsBySearchValue(String searchValue);
+
+    // Predpona je že normalizirana (male črke, ubežani % in _); indeksa idx_organizations_*_lower_prefix
+    @Query("""
+       SELECT new com.planify.user_service.model.AutocompleteSuggestion(o.id, o.name)
+         FROM OrganizationEntity o
+        WHERE lower(o.slug) LIKE CONCAT(:prefix, '%') ESCAPE '!'
+           OR lower(o.name) LIKE CONCAT(:prefix, '%') ESCAPE '!'
+        ORDER BY length(o.name), o.name, o.id
+       """)
+    List<AutocompleteSuggestion> findSuggestionsBySlugOrNamePrefix(String prefix, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.planify.user_service.model.OrganizationSummary(o.name, o.slug, o.id)
+          FROM OrganizationEntity o
+    """)
+    Stream<OrganizationSummary> streamSummaries();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT o.slug
+          FROM OrganizationEntity o
+    """)
+    Stream<String> streamSlugs();
+
+    @Query("""
+        SELECT o
+          FROM OrganizationEntity o
+         WHERE o.id IN :ids
+            OR o.slug IN :slugs
+    """)
+    List<OrganizationEntity> findByIdInOrSlugIn(Collection<UUID> ids, Collection<String> slugs);
 }
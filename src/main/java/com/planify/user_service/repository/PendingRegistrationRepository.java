@@ -0,0 +1,52 @@
+package com.planify.user_service.repository;
+
+import com.planify.user_service.model.PendingRegistrationEntity;
+import com.planify.user_service.model.PendingRegistrationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PendingRegistrationRepository extends JpaRepository<PendingRegistrationEntity, UUID> {
+
+    @Query("""
+        SELECT COUNT(p) > 0
+          FROM PendingRegistrationEntity p
+         WHERE p.status = com.planify.user_service.model.PendingRegistrationStatus.PENDING
+           AND (p.username = :username OR p.email = :email)
+    """)
+    boolean existsPending(String username, String email);
+
+    long countByStatus(PendingRegistrationStatus status);
+
+    /**
+     * Zaklene naslednjo registracijo, ki je na vrsti; vrstice, ki jih obdeluje druga replika, preskoči.
+     */
+    @Query(value = """
+        SELECT *
+          FROM {h-schema}pending_registrations
+         WHERE status = 'PENDING'
+           AND next_attempt_at <= :now
+         ORDER BY next_attempt_at
+         LIMIT 1
+           FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    Optional<PendingRegistrationEntity> lockNextDue(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM {h-schema}pending_registrations
+         WHERE id IN (SELECT id
+                        FROM {h-schema}pending_registrations
+                       WHERE status <> 'PENDING'
+                         AND updated_at < :cutoff
+                       LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+    """, nativeQuery = true)
+    int purgeFinishedChunk(LocalDateTime cutoff, int limit);
+}
@@ -1,20 +1,43 @@
 package com.planify.user_service.repository;
 
 import com.planify.user_service.model.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<UserEntity, UUID> {
     Optional<UserEntity> findByKeycloakId(UUID keycloakId);
 
     Optional<UserEntity> findByEmail(String email);
 
+    boolean existsByUsername(String username);
+
+    // Uporabniško ime brez razlikovanja velikih in malih črk (indeks idx_users_username_lower)
+    @Query("""
+        SELECT COUNT(u) > 0
+          FROM UserEntity u
+         WHERE lower(u.username) = :username
+    """)
+    boolean existsByNormalizedUsername(String username);
+
+    boolean existsByEmail(String email);
+
     Optional<UserEntity> findByIdAndDeletedAtIsNull(UUID id);
 
+    List<UserEntity> findByIdInAndDeletedAtIsNull(Collection<UUID> ids);
+
     @Query("""
        SELECT u
        FROM UserEntity u
@@ -22,6 +45,23 @@ public interface UserRepository extends JpaRepository<UserEntity, UUID> {
        """)
     List<UserEntity> findUsersBySearchValue(String searchValue);
 
+    // Predpona je že normalizirana (male črke, ubežani % in _); indeks idx_users_username_lower_prefix
+    @Query("""
+       SELECT new com.planify.user_service.model.AutocompleteSuggestion(u.id, u.username)
+         FROM UserEntity u
+        WHERE lower(u.username) LIKE CONCAT(:prefix, '%') ESCAPE '!'
+          AND u.deletedAt IS NULL
+        ORDER BY length(u.username), u.username, u.id
+       """)
+    List<AutocompleteSuggestion> findSuggestionsByUsernamePrefix(String prefix, Pageable pageable);
+
+    @Query("""
+       SELECT u.id
+       FROM UserEntity u
+       WHERE u.username LIKE CONCAT(:searchValue, '%')
+       """)
+    List<UUID> findUserIdsBySearchValue(String searchValue);
+
     @Query("""
        SELECT u
        FROM UserEntity u
@@ -30,6 +70,13 @@ public interface UserRepository extends JpaRepository<UserEntity, UUID> {
        """)
     List<UserEntity> findUsersByOrganization(UUID orgId);
 
+    @Query("""
+       SELECT m.user.id
+       FROM OrganizationMembershipEntity m
+       WHERE m.organization.id = :orgId
+       """)
+    List<UUID> findUserIdsByOrganization(UUID orgId);
+
     @Query("""
        SELECT o
        FROM OrganizationEntity o
@@ -52,4 +99,67 @@ public interface UserRepository extends JpaRepository<UserEntity, UUID> {
            AND u.deletedAt is null
     """)
     Optional<UserEntity> findActiveByKeycloakId(UUID keycloakId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.planify.user_service.model.AutocompleteSuggestion(u.id, u.username)
+          FROM UserEntity u
+         WHERE u.deletedAt is null
+           AND u.username is not null
+    """)
+    Stream<AutocompleteSuggestion> streamActiveUsernames();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.planify.user_service.model.UserProfile(
+                   u.id, u.keycloakId, u.email, u.username, u.firstName, u.lastName,
+                   u.phoneNumber, u.emailConsent, u.smsConsent, u.createdAt)
+          FROM UserEntity u
+         WHERE u.deletedAt is null
+    """)
+    Stream<UserProfile> streamActiveProfiles();
+
+    // Vključno z mehko izbrisanimi, saj UNIQUE omejitev velja tudi zanje
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT u.username
+          FROM UserEntity u
+    """)
+    Stream<String> streamUsernames();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT u.email
+          FROM UserEntity u
+    """)
+    Stream<String> streamEmails();
+
+    /**
+     * Trajno izbriše uporabnike, ki so bili mehko izbrisani pred :cutoff in nanje ne kaže nobena vrstica.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM {h-schema}users
+         WHERE id IN (SELECT u.id
+                        FROM {h-schema}users u
+                       WHERE u.deleted_at < :cutoff
+                         AND NOT EXISTS (SELECT 1 FROM {h-schema}organizations o WHERE o.created_by_user_id = u.id)
+                         AND NOT EXISTS (SELECT 1 FROM {h-schema}organization_memberships m WHERE m.user_id = u.id)
+                         AND NOT EXISTS (SELECT 1 FROM {h-schema}join_requests j WHERE j.user_id = u.id OR j.handled_by_user_id = u.id)
+                         AND NOT EXISTS (SELECT 1 FROM {h-schema}invitations i WHERE i.user_id = u.id OR i.created_by_user_id = u.id)
+                       LIMIT :limit
+                         FOR UPDATE OF u SKIP LOCKED)
+    """, nativeQuery = true)
+    int purgeSoftDeletedChunk(LocalDateTime cutoff, int limit);
+
+    @Query("""
+        SELECT new com.planify.user_service.model.UserProfile(
+                   u.id, u.keycloakId, u.email, u.username, u.firstName, u.lastName,
+                   u.phoneNumber, u.emailConsent, u.smsConsent, u.createdAt)
+          FROM UserEntity u
+         WHERE u.deletedAt is null
+           AND (u.id IN :ids OR u.keycloakId IN :keycloakIds)
+    """)
+    List<UserProfile> findActiveProfilesByIdInOrKeycloakIdIn(Collection<UUID> ids, Collection<UUID> keycloakIds);
 }
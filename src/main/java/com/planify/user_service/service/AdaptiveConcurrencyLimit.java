@@ -0,0 +1,101 @@
+package com.planify.user_service.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prilagodljiva omejitev sočasnih zahtevkov (po vzoru Gradient2). Primerjamo kratkoročno in dolgoročno povprečje
+ * latence: dokler kratkoročna latenca ne preseže dolgoročne za več kot faktor tolerance, omejitev raste za
+ * približno sqrt(limit); ko se zahtevki začnejo vrstiti (latenca raste), se omejitev sorazmerno zmanjša.
+ * Omejitev ne raste, če je v obdelavi manj kot polovica dovoljenih zahtevkov (obremenitev je premajhna,
+ * da bi o omejitvi karkoli povedala).
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Require tolerance >= 1 and smoothing in (0, 1]");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Zasede mesto za zahtevek ali vrne false, če je omejitev dosežena.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sprosti mesto in latenco zahtevka upošteva pri prilagajanju omejitve.
+     */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (longRtt == 0) {
+                shortRtt = rttNanos;
+                longRtt = rttNanos;
+            }
+            shortRtt += (rttNanos - shortRtt) * 2.0 / (SHORT_WINDOW + 1);
+            longRtt += (rttNanos - longRtt) * 2.0 / (LONG_WINDOW + 1);
+
+            // Po daljšem obdobju visoke latence (ki je dvignila dolgoročno povprečje) se hitreje vrnemo na normalo
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+
+            double current = limit;
+            if (inFlightBefore < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            double target = current * gradient + Math.sqrt(current);
+            double next = current * (1 - smoothing) + target * smoothing;
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,49 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.repository.InvitationArchiveRepository;
+import com.planify.user_service.repository.InvitationRepository;
+import com.planify.user_service.repository.JoinRequestArchiveRepository;
+import com.planify.user_service.repository.JoinRequestRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Premika obdelane prošnje za vstop in razrešena povabila v mesečno particionirane arhivske tabele.
+ * Vsak klic premakne en kos v svoji transakciji; zanko in premore vodi RetentionService.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveService {
+
+    private final JoinRequestRepository joinRequestRepository;
+    private final JoinRequestArchiveRepository joinRequestArchiveRepository;
+    private final InvitationRepository invitationRepository;
+    private final InvitationArchiveRepository invitationArchiveRepository;
+
+    @Transactional
+    public int archiveJoinRequestsChunk(LocalDateTime cutoff, int limit) {
+        List<UUID> ids = joinRequestRepository.lockHandledBefore(cutoff, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        joinRequestArchiveRepository.ensurePartitions(ids);
+        return joinRequestArchiveRepository.moveToArchive(ids);
+    }
+
+    @Transactional
+    public int archiveInvitationsChunk(LocalDateTime cutoff, int limit) {
+        List<UUID> ids = invitationRepository.lockResolvedBefore(cutoff, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        invitationArchiveRepository.ensurePartitions(ids);
+        return invitationArchiveRepository.moveToArchive(ids);
+    }
+}
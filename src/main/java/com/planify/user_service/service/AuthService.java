@@ -2,11 +2,13 @@ package com.planify.user_service.service;
 
 import com.planify.user_service.model.*;
 import com.planify.user_service.repository.OrganizationMembershipRepository;
+import com.planify.user_service.repository.PendingRegistrationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -16,11 +18,26 @@ public class AuthService {
     private final UserService userService;
     private final KeycloakService keycloakClient;
     private final OrganizationMembershipRepository organizationMembershipRepository;
+    private final AvailabilityService availabilityService;
+    private final PendingRegistrationRepository pendingRegistrationRepository;
 
     public Map<String, Object> registerUser(RegisterRequest request) {
+        return registerUser(request, null, id -> {});
+    }
+
+    /**
+     * Registracija, ki jo je mogoče nadaljevati: onCreated prejme id Keycloak uporabnika takoj po ustvarjanju,
+     * ponovni poskus pa ga poda kot existingKeycloakId in uporabnika ne ustvari znova (preverjanje zasedenosti
+     * takrat preskočimo, saj je uporabnik v Keycloak-u že naš).
+     */
+    public Map<String, Object> registerUser(RegisterRequest request, UUID existingKeycloakId, Consumer<UUID> onCreated) {
+
+        if (existingKeycloakId == null) {
+            validateRegistration(request);
+        }
 
         // Ustvarimo novega uporabnika v Keycloak-u
-        UUID keycloakUserId = createKeycloakUser(request);
+        UUID keycloakUserId = createKeycloakUser(request, existingKeycloakId, onCreated);
 
         // Shranimo uporabnika v naš DB
         UserEntity user = userService.createLocalUserProfile(
@@ -41,20 +58,44 @@ public class AuthService {
         return response;
     }
 
-    private UUID createKeycloakUser(RegisterRequest req) {
+    /**
+     * Zasedeno uporabniško ime ali email (tudi v čakalni vrsti odloženih registracij) zavrnemo pred klici v Keycloak.
+     */
+    public void validateRegistration(RegisterRequest request) {
+        if (request.getUsername() != null && !availabilityService.isUsernameAvailable(request.getUsername())) {
+            throw new RuntimeException("Username already exists");
+        }
+        if (request.getEmail() != null && !availabilityService.isEmailAvailable(request.getEmail())) {
+            throw new RuntimeException("Email already exists");
+        }
+        if (pendingRegistrationRepository.existsPending(request.getUsername(), request.getEmail())) {
+            throw new RuntimeException("Registration for this username or email is already pending");
+        }
+    }
+
+    /**
+     * Ustvari in nastavi Keycloak uporabnika. Če je existingKeycloakId podan (ponovni poskus odložene registracije),
+     * uporabnika ne ustvari znova, ampak le ponovi nastavitve. Id novega uporabnika sporoči onCreated takoj po
+     * ustvarjanju, da ga kličoči lahko shrani, preden se nastavitve morda ne posrečijo.
+     */
+    UUID createKeycloakUser(RegisterRequest req, UUID existingKeycloakId, Consumer<UUID> onCreated) {
         log.info("Creating Keycloak user for username: {}", req.getUsername());
         try {
             // Admin token (da lahko ustvarimo uporabnika)
             String adminToken = keycloakClient.getAdminToken();
 
             // Ustvarimo Keycloak uporabnika
-            UUID keycloakUserId = keycloakClient.createUser(
-                    req.getUsername(),
-                    req.getEmail(),
-                    req.getFirstName(),
-                    req.getLastName(),
-                    adminToken
-            );
+            UUID keycloakUserId = existingKeycloakId;
+            if (keycloakUserId == null) {
+                keycloakUserId = keycloakClient.createUser(
+                        req.getUsername(),
+                        req.getEmail(),
+                        req.getFirstName(),
+                        req.getLastName(),
+                        adminToken
+                );
+                onCreated.accept(keycloakUserId);
+            }
 
             // Uporabniku nastavimo geslo
             keycloakClient.setPassword(keycloakUserId, req.getPassword(), adminToken);
@@ -71,6 +112,9 @@ public class AuthService {
             keycloakClient.assignRole(keycloakUserId, KeycloakRole.UPORABNIK, adminToken);
 
             return keycloakUserId;
+        } catch (RequestDeadline.ExceededException e) {
+            // Rok zahtevka je potekel, kličoči vrne 504 namesto splošne napake
+            throw e;
         } catch (Exception e) {
             log.error("Failed to create Keycloak user: {}", e.getMessage());
             throw new RuntimeException("Failed to create user in Keycloak. " + e.getMessage());
@@ -97,4 +141,35 @@ public class AuthService {
         keycloakClient.removeRole(userKeycloakId, role, adminToken);
     }
 
+    public void assignRoles(UUID userKeycloakId, Collection<KeycloakRole> roles) {
+        if (roles.isEmpty()) {
+            return;
+        }
+        String adminToken = keycloakClient.getAdminToken();
+        keycloakClient.assignRoles(userKeycloakId, roles, adminToken);
+    }
+
+    /**
+     * Dodeli vloge več uporabnikom z enim admin tokenom, za vsakega uporabnika z enim klicem.
+     */
+    public void assignRoles(Map<UUID, ? extends Collection<KeycloakRole>> rolesByUser) {
+        if (rolesByUser.isEmpty()) {
+            return;
+        }
+        String adminToken = keycloakClient.getAdminToken();
+        rolesByUser.forEach((userKeycloakId, roles) -> {
+            if (!roles.isEmpty()) {
+                keycloakClient.assignRoles(userKeycloakId, roles, adminToken);
+            }
+        });
+    }
+
+    public void removeRoles(UUID userKeycloakId, Collection<KeycloakRole> roles) {
+        if (roles.isEmpty()) {
+            return;
+        }
+        String adminToken = keycloakClient.getAdminToken();
+        keycloakClient.removeRoles(userKeycloakId, roles, adminToken);
+    }
+
 }
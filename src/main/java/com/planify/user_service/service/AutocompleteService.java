@@ -0,0 +1,307 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.AutocompleteSuggestion;
+import com.planify.user_service.model.OrganizationEntity;
+import com.planify.user_service.model.OrganizationSummary;
+import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.OrganizationRepository;
+import com.planify.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Autocomplete za uporabniška imena in organizacije (slug, ime), ki se streže iz pomnilnika.
+ * Indeks se zgradi ob zagonu in se sproti posodablja ob ustvarjanju/brisanju uporabnikov in organizacij.
+ * Dokler indeks ni pripravljen (ali če preseže omejitev velikosti), se iskanje izvede v bazi
+ * z enako normalizirano predpono (male črke), razvrščeno po dolžini oznake.
+ */
+@Service
+@Slf4j
+public class AutocompleteService {
+
+    private static final Comparator<AutocompleteSuggestion> ORDER = Comparator
+            .comparingInt((AutocompleteSuggestion s) -> s.label().length())
+            .thenComparing(AutocompleteSuggestion::label)
+            .thenComparing(AutocompleteSuggestion::id);
+
+    private final UserRepository userRepository;
+    private final OrganizationRepository organizationRepository;
+
+    private final int topK;
+    private final int maxEntries;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private RadixTrie<AutocompleteSuggestion> users;
+    private RadixTrie<AutocompleteSuggestion> organizations;
+    private boolean ready;
+    private boolean usersTruncated;
+    private boolean organizationsTruncated;
+    // Ime in slug, pod katerima je organizacija v indeksu (za odstranitev starih ključev ob preimenovanju)
+    private Map<UUID, OrganizationSummary> indexedOrganizations = new HashMap<>();
+    // Spremembe, ki prispejo med gradnjo indeksa, ponovno uporabimo na novem indeksu
+    private List<Consumer<AutocompleteService>> pending;
+
+    private final Timer userLookupTimer;
+    private final Timer organizationLookupTimer;
+
+    public AutocompleteService(UserRepository userRepository,
+                               OrganizationRepository organizationRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${planify.autocomplete.top-k:10}") int topK,
+                               @Value("${planify.autocomplete.max-entries:2000000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.organizationRepository = organizationRepository;
+        this.topK = topK;
+        this.maxEntries = maxEntries;
+        this.users = new RadixTrie<>(topK, ORDER);
+        this.organizations = new RadixTrie<>(topK, ORDER);
+
+        this.userLookupTimer = Timer.builder("planify.autocomplete.lookup")
+                .tag("index", "users")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.organizationLookupTimer = Timer.builder("planify.autocomplete.lookup")
+                .tag("index", "organizations")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("planify.autocomplete.entries", this, s -> s.entries(true))
+                .tag("index", "users")
+                .register(meterRegistry);
+        Gauge.builder("planify.autocomplete.entries", this, s -> s.entries(false))
+                .tag("index", "organizations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Zgradi indeks s pretočnim branjem tabel users in organizations.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        RadixTrie<AutocompleteSuggestion> newUsers = new RadixTrie<>(topK, ORDER);
+        RadixTrie<AutocompleteSuggestion> newOrganizations = new RadixTrie<>(topK, ORDER);
+        Map<UUID, OrganizationSummary> newIndexedOrganizations = new HashMap<>();
+        boolean newUsersTruncated;
+        boolean newOrganizationsTruncated;
+
+        try (Stream<AutocompleteSuggestion> stream = userRepository.streamActiveUsernames()) {
+            newUsersTruncated = !stream.allMatch(s -> addBounded(newUsers, s.label(), s));
+        }
+        try (Stream<OrganizationSummary> stream = organizationRepository.streamSummaries()) {
+            newOrganizationsTruncated = !stream.allMatch(o -> {
+                AutocompleteSuggestion s = new AutocompleteSuggestion(o.getId(), o.getName());
+                newIndexedOrganizations.put(o.getId(), o);
+                return addBounded(newOrganizations, o.getSlug(), s) && addBounded(newOrganizations, o.getName(), s);
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            users = newUsers;
+            organizations = newOrganizations;
+            indexedOrganizations = newIndexedOrganizations;
+            usersTruncated = newUsersTruncated;
+            organizationsTruncated = newOrganizationsTruncated;
+            List<Consumer<AutocompleteService>> replay = pending;
+            pending = null;
+            replay.forEach(op -> op.accept(this));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (newUsersTruncated || newOrganizationsTruncated) {
+            log.warn("Autocomplete index exceeded {} entries, falling back to database search", maxEntries);
+        }
+        log.info("Autocomplete index built in {} ms ({} user keys, {} organization keys)",
+                System.currentTimeMillis() - start, newUsers.size(), newOrganizations.size());
+    }
+
+    public List<AutocompleteSuggestion> suggestUsers(String prefix, int limit) {
+        String key = normalize(prefix);
+        int max = Math.max(0, Math.min(limit, topK));
+        if (max == 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (ready && !usersTruncated) {
+                return userLookupTimer.record(() -> users.search(key, max));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return userRepository.findSuggestionsByUsernamePrefix(likePrefix(key), PageRequest.of(0, max));
+    }
+
+    public List<AutocompleteSuggestion> suggestOrganizations(String prefix, int limit) {
+        String key = normalize(prefix);
+        int max = Math.max(0, Math.min(limit, topK));
+        if (max == 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (ready && !organizationsTruncated) {
+                return organizationLookupTimer.record(() -> organizations.search(key, max));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return organizationRepository.findSuggestionsBySlugOrNamePrefix(likePrefix(key), PageRequest.of(0, max));
+    }
+
+    public void userCreated(UserEntity user) {
+        if (user.getUsername() == null) {
+            return;
+        }
+        AutocompleteSuggestion s = new AutocompleteSuggestion(user.getId(), user.getUsername());
+        afterCommit(svc -> svc.usersTruncated |= !svc.addBounded(svc.users, s.label(), s));
+    }
+
+    public void userRemoved(UserEntity user) {
+        if (user.getUsername() == null) {
+            return;
+        }
+        AutocompleteSuggestion s = new AutocompleteSuggestion(user.getId(), user.getUsername());
+        afterCommit(svc -> svc.users.remove(normalize(s.label()), s));
+    }
+
+    /**
+     * Doda organizacijo ali osveži njene ključe; ključi prejšnjega imena in sluga se odstranijo.
+     */
+    public void organizationCreated(OrganizationEntity org) {
+        OrganizationSummary summary = new OrganizationSummary(org.getName(), org.getSlug(), org.getId());
+        afterCommit(svc -> svc.indexOrganization(summary));
+    }
+
+    public void organizationRemoved(UUID orgId) {
+        afterCommit(svc -> svc.unindexOrganization(orgId));
+    }
+
+    /**
+     * Obvestilo druge replike (CacheInvalidationListener): vnos osvežimo iz baze.
+     * Ob morebitni izgubi obvestil (ALL) indeks zgradimo znova.
+     */
+    @EventListener
+    @Transactional(readOnly = true)
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        switch (event.type()) {
+            case USER -> userRepository.findById(event.id()).ifPresent(user -> {
+                if (user.getDeletedAt() != null) {
+                    userRemoved(user);
+                } else {
+                    userCreated(user);
+                }
+            });
+            case ORGANIZATION -> organizationRepository.findById(event.id())
+                    .ifPresentOrElse(this::organizationCreated, () -> organizationRemoved(event.id()));
+            case ALL -> rebuild();
+            default -> {
+            }
+        }
+    }
+
+    private void afterCommit(Consumer<AutocompleteService> op) {
+        Runnable apply = () -> {
+            lock.writeLock().lock();
+            try {
+                op.accept(this);
+                if (pending != null) {
+                    pending.add(op);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+
+        // Indeks posodobimo šele, ko je transakcija potrjena
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private void indexOrganization(OrganizationSummary org) {
+        unindexOrganization(org.getId());
+        indexedOrganizations.put(org.getId(), org);
+        AutocompleteSuggestion s = new AutocompleteSuggestion(org.getId(), org.getName());
+        organizationsTruncated |= !(addBounded(organizations, org.getSlug(), s) && addBounded(organizations, org.getName(), s));
+    }
+
+    private void unindexOrganization(UUID orgId) {
+        OrganizationSummary previous = indexedOrganizations.remove(orgId);
+        if (previous == null) {
+            return;
+        }
+        AutocompleteSuggestion s = new AutocompleteSuggestion(previous.getId(), previous.getName());
+        for (String value : new String[]{previous.getSlug(), previous.getName()}) {
+            if (value != null) {
+                organizations.remove(normalize(value), s);
+            }
+        }
+    }
+
+    private boolean addBounded(RadixTrie<AutocompleteSuggestion> trie, String value, AutocompleteSuggestion s) {
+        if (value == null) {
+            return true;
+        }
+        if (trie.size() >= maxEntries) {
+            return false;
+        }
+        trie.put(normalize(value), s);
+        return true;
+    }
+
+    private double entries(boolean userIndex) {
+        lock.readLock().lock();
+        try {
+            return userIndex ? users.size() : organizations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Znaka % in _ v vnosu iščemo dobesedno (ESCAPE '!' v poizvedbah)
+    private static String likePrefix(String key) {
+        return key.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
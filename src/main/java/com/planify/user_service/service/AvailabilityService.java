@@ -0,0 +1,286 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.OrganizationEntity;
+import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.OrganizationRepository;
+import com.planify.user_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Preverjanje razpoložljivosti uporabniškega imena, emaila in sluga organizacije.
+ * Za vsako polje hranimo Bloomov filter vseh vrednosti v bazi (tudi mehko izbrisanih uporabnikov, saj UNIQUE
+ * omejitev velja tudi zanje). Če filter vrednosti ne vsebuje, je prosta brez poizvedbe v bazo; možen zadetek
+ * potrdimo z enim iskanjem po unikatnem indeksu. Filtri se zgradijo ob zagonu in vsako noč znova (izbrisane
+ * vrstice iz filtra ne moremo odstraniti), vmes pa se dopolnjujejo ob vstavljanju.
+ * Uporabniška imena primerjamo z malimi črkami, kot jih hrani Keycloak. Preverjanje emaila je dostopno brez
+ * prijave, zato je omejeno na planify.availability.email-checks-per-minute na odjemalca.
+ */
+@Service
+@Slf4j
+public class AvailabilityService {
+
+    public enum Field {
+        USERNAME, EMAIL, SLUG;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+
+        String normalize(String value) {
+            return this == USERNAME && value != null ? value.toLowerCase(Locale.ROOT) : value;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final OrganizationRepository organizationRepository;
+    private final long expectedInsertions;
+    private final double fpp;
+
+    private final Map<Field, BloomFilter> filters = new EnumMap<>(Field.class);
+    // ReentrantLock namesto synchronized, da virtualne niti ne ostanejo pripete
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean ready;
+    // Vstavljanja, ki prispejo med gradnjo filtrov, ponovno uporabimo na novih filtrih
+    private List<Consumer<Map<Field, BloomFilter>>> pending;
+
+    private final Map<Field, Counter> negatives = new EnumMap<>(Field.class);
+    private final Map<Field, Counter> confirmed = new EnumMap<>(Field.class);
+    private final Map<Field, Counter> falsePositives = new EnumMap<>(Field.class);
+
+    // Število preverjanj emaila na odjemalca v trenutnem minutnem oknu
+    private final Cache<String, AtomicInteger> emailChecks;
+    private final int emailChecksPerMinute;
+    private final Counter emailChecksRejected;
+
+    public AvailabilityService(UserRepository userRepository,
+                               OrganizationRepository organizationRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${planify.availability.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${planify.availability.fpp:0.01}") double fpp,
+                               @Value("${planify.availability.email-checks-per-minute:10}") int emailChecksPerMinute) {
+        this.userRepository = userRepository;
+        this.organizationRepository = organizationRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.emailChecksPerMinute = emailChecksPerMinute;
+        this.emailChecks = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+        this.emailChecksRejected = checkCounter(meterRegistry, Field.EMAIL, "rate_limited");
+
+        for (Field field : Field.values()) {
+            negatives.put(field, checkCounter(meterRegistry, field, "negative"));
+            confirmed.put(field, checkCounter(meterRegistry, field, "confirmed"));
+            falsePositives.put(field, checkCounter(meterRegistry, field, "false_positive"));
+            // Dejanski delež lažno pozitivnih med vrednostmi, ki jih v bazi ni
+            Gauge.builder("planify.availability.false-positive-rate", this, s -> s.observedFpp(field))
+                    .tag("field", field.tag())
+                    .register(meterRegistry);
+            Gauge.builder("planify.availability.expected-fpp", this, s -> s.expectedFpp(field))
+                    .tag("field", field.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Zgradi filtre s pretočnim branjem tabel users in organizations.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${planify.availability.rebuild-schedule:0 30 3 * * *}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        // Filter dimenzioniramo z rezervo za rast do naslednje gradnje
+        long userCapacity = Math.max(expectedInsertions, 2 * userRepository.count());
+        long orgCapacity = Math.max(expectedInsertions, 2 * organizationRepository.count());
+        Map<Field, BloomFilter> built = new EnumMap<>(Field.class);
+        built.put(Field.USERNAME, fill(new BloomFilter(userCapacity, fpp), userRepository.streamUsernames().map(Field.USERNAME::normalize)));
+        built.put(Field.EMAIL, fill(new BloomFilter(userCapacity, fpp), userRepository.streamEmails()));
+        built.put(Field.SLUG, fill(new BloomFilter(orgCapacity, fpp), organizationRepository.streamSlugs()));
+
+        lock.lock();
+        try {
+            List<Consumer<Map<Field, BloomFilter>>> replay = pending;
+            pending = null;
+            replay.forEach(op -> op.accept(built));
+            filters.putAll(built);
+            ready = true;
+        } finally {
+            lock.unlock();
+        }
+
+        log.info("Availability filters built in {} ms ({} usernames, {} emails, {} slugs, {} KiB)",
+                System.currentTimeMillis() - start,
+                built.get(Field.USERNAME).insertions(), built.get(Field.EMAIL).insertions(),
+                built.get(Field.SLUG).insertions(),
+                built.values().stream().mapToLong(BloomFilter::memoryBytes).sum() >> 10);
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return isAvailable(Field.USERNAME, username, userRepository::existsByNormalizedUsername);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return isAvailable(Field.EMAIL, email, userRepository::existsByEmail);
+    }
+
+    public boolean isSlugAvailable(String slug) {
+        return isAvailable(Field.SLUG, slug, organizationRepository::existsBySlug);
+    }
+
+    /**
+     * Zasede eno preverjanje emaila za odjemalca (npr. IP naslov); false, če je odjemalec omejitev v tej minuti presegel.
+     */
+    public boolean tryAcquireEmailCheck(String client) {
+        if (emailChecks.get(client, c -> new AtomicInteger()).incrementAndGet() <= emailChecksPerMinute) {
+            return true;
+        }
+        emailChecksRejected.increment();
+        return false;
+    }
+
+    public void userCreated(UserEntity user) {
+        afterCommit(f -> {
+            put(f, Field.USERNAME, user.getUsername());
+            put(f, Field.EMAIL, user.getEmail());
+        });
+    }
+
+    public void organizationCreated(OrganizationEntity org) {
+        afterCommit(f -> put(f, Field.SLUG, org.getSlug()));
+    }
+
+    /**
+     * Obvestilo druge replike (CacheInvalidationListener): nove vrednosti dodamo v filter. Bere s primarne baze,
+     * saj replika nove vrstice morda še nima.
+     */
+    @EventListener
+    @Transactional
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        switch (event.type()) {
+            case USER -> userRepository.findById(event.id()).ifPresent(this::userCreated);
+            case ORGANIZATION -> organizationRepository.findById(event.id()).ifPresent(this::organizationCreated);
+            case ALL -> rebuild();
+            default -> {
+            }
+        }
+    }
+
+    private boolean isAvailable(Field field, String rawValue, Predicate<String> exists) {
+        String value = field.normalize(rawValue);
+        BloomFilter filter;
+        lock.lock();
+        try {
+            filter = ready ? filters.get(field) : null;
+        } finally {
+            lock.unlock();
+        }
+        if (filter != null && !filter.mightContain(value)) {
+            negatives.get(field).increment();
+            return true;
+        }
+        boolean taken = exists.test(value);
+        if (filter != null) {
+            (taken ? confirmed : falsePositives).get(field).increment();
+        }
+        return !taken;
+    }
+
+    private void afterCommit(Consumer<Map<Field, BloomFilter>> op) {
+        Runnable apply = () -> {
+            // BloomFilter je varen za sočasno uporabo, zaklenemo le zamenjavo filtrov
+            lock.lock();
+            try {
+                op.accept(filters);
+                if (pending != null) {
+                    pending.add(op);
+                }
+            } finally {
+                lock.unlock();
+            }
+        };
+
+        // Filter dopolnimo šele, ko je transakcija potrjena
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private static void put(Map<Field, BloomFilter> filters, Field field, String value) {
+        BloomFilter filter = filters.get(field);
+        if (filter != null && value != null) {
+            filter.put(field.normalize(value));
+        }
+    }
+
+    private static BloomFilter fill(BloomFilter filter, Stream<String> values) {
+        try (values) {
+            values.forEach(filter::put);
+        }
+        return filter;
+    }
+
+    private double observedFpp(Field field) {
+        double fp = falsePositives.get(field).count();
+        double absent = fp + negatives.get(field).count();
+        return absent == 0 ? 0 : fp / absent;
+    }
+
+    private double expectedFpp(Field field) {
+        lock.lock();
+        try {
+            BloomFilter filter = filters.get(field);
+            return filter == null ? 0 : filter.expectedFpp();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, Field field, String result) {
+        return Counter.builder("planify.availability.checks")
+                .tag("field", field.tag())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
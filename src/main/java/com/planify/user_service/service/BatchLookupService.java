@@ -0,0 +1,99 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.*;
+import com.planify.user_service.repository.OrganizationMembershipRepository;
+import com.planify.user_service.repository.OrganizationRepository;
+import com.planify.user_service.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Paketna iskanja za druge storitve (/internal). Vsak paket je ena poizvedba z IN; velikost paketa je omejena
+ * s planify.internal.batch-max-size, ponovljeni id-ji se štejejo enkrat.
+ */
+@Service
+@Slf4j
+public class BatchLookupService {
+
+    private final UserRepository userRepository;
+    private final OrganizationRepository organizationRepository;
+    private final OrganizationMembershipRepository membershipRepository;
+
+    private final int batchMaxSize;
+
+    public BatchLookupService(UserRepository userRepository,
+                              OrganizationRepository organizationRepository,
+                              OrganizationMembershipRepository membershipRepository,
+                              @Value("${planify.internal.batch-max-size:500}") int batchMaxSize) {
+        this.userRepository = userRepository;
+        this.organizationRepository = organizationRepository;
+        this.membershipRepository = membershipRepository;
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserProfile> findUsers(UserBatchRequest request) {
+        Set<UUID> ids = distinct(request.ids());
+        Set<UUID> keycloakIds = distinct(request.keycloakIds());
+        checkSize(ids.size() + keycloakIds.size());
+        if (ids.isEmpty() && keycloakIds.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findActiveProfilesByIdInOrKeycloakIdIn(ids, keycloakIds);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrganizationEntity> findOrganizations(OrganizationBatchRequest request) {
+        Set<UUID> ids = distinct(request.ids());
+        Set<String> slugs = distinct(request.slugs());
+        checkSize(ids.size() + slugs.size());
+        if (ids.isEmpty() && slugs.isEmpty()) {
+            return List.of();
+        }
+        return organizationRepository.findByIdInOrSlugIn(ids, slugs);
+    }
+
+    /**
+     * Vloge za podane pare (uporabnik, organizacija). Pare poveže baza, nato članstva naložimo po id-jih.
+     */
+    @Transactional(readOnly = true)
+    public List<MembershipEdge> findMemberships(List<MembershipKey> pairs) {
+        List<MembershipKey> keys = distinct(pairs).stream()
+                .filter(key -> key.userId() != null && key.organizationId() != null)
+                .toList();
+        checkSize(keys.size());
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        UUID[] userIds = keys.stream().map(MembershipKey::userId).toArray(UUID[]::new);
+        UUID[] orgIds = keys.stream().map(MembershipKey::organizationId).toArray(UUID[]::new);
+        List<UUID> membershipIds = membershipRepository.findIdsByUserAndOrganizationPairs(userIds, orgIds);
+        if (membershipIds.isEmpty()) {
+            return List.of();
+        }
+        return membershipRepository.findEdgesByIdIn(membershipIds);
+    }
+
+    private void checkSize(int size) {
+        if (size > batchMaxSize) {
+            throw new IllegalArgumentException("At most " + batchMaxSize + " keys can be looked up at once");
+        }
+    }
+
+    private static <T> Set<T> distinct(Collection<T> values) {
+        if (values == null) {
+            return Set.of();
+        }
+        Set<T> result = new LinkedHashSet<>();
+        for (T value : values) {
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.planify.user_service.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloomov filter nad nizi. mightContain nikoli ne vrne false za dodan niz, true pa lahko vrne tudi za
+ * niz, ki ni bil dodan (z verjetnostjo, ki jo določa fpp pri expectedInsertions vnosih).
+ * Dodajanje in branje sta varna za sočasno uporabo; odstranjevanje ni podprto.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong bitsSet = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (LN2 * LN2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * LN2));
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long prev = bits.getAndAccumulate(word, mask, (a, b) -> a | b);
+            if ((prev & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pričakovana verjetnost lažno pozitivnega odgovora glede na trenutno zapolnjenost.
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+    }
+
+    public long insertions() {
+        return insertions.get();
+    }
+
+    public long memoryBytes() {
+        return bitCount >>> 3;
+    }
+
+    // FNV-1a čez znake, nato mešanje bitov (murmur3 fmix64)
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
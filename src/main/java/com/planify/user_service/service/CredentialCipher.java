@@ -0,0 +1,68 @@
+package com.planify.user_service.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * AES-256-GCM šifriranje gesel odloženih registracij. Rezultat je nonce (12 B) || ciphertext z oznako (16 B).
+ * Id registracije je dodatni overjeni podatek (AAD), zato šifrata ni mogoče prenesti na drugo vrstico.
+ */
+public class CredentialCipher {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param base64Key 32 bajtov ključa v Base64
+     */
+    public CredentialCipher(String base64Key) {
+        byte[] raw = Base64.getDecoder().decode(base64Key);
+        if (raw.length != 32) {
+            throw new IllegalArgumentException("Encryption key must be 32 bytes (Base64 encoded)");
+        }
+        this.key = new SecretKeySpec(raw, "AES");
+    }
+
+    public byte[] encrypt(UUID id, String plaintext) {
+        try {
+            byte[] nonce = new byte[NONCE_LENGTH];
+            random.nextBytes(nonce);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(aad(id));
+            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.allocate(NONCE_LENGTH + ciphertext.length).put(nonce).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt credentials", e);
+        }
+    }
+
+    public String decrypt(UUID id, byte[] data) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, NONCE_LENGTH));
+            cipher.updateAAD(aad(id));
+            return new String(cipher.doFinal(data, NONCE_LENGTH, data.length - NONCE_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to decrypt credentials", e);
+        }
+    }
+
+    private static byte[] aad(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,168 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.config.ConnectionQuotaDataSource;
+import com.planify.user_service.model.*;
+import com.planify.user_service.repository.InvitationRepository;
+import com.planify.user_service.repository.JoinRequestRepository;
+import com.planify.user_service.repository.OrganizationMembershipRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Zbirni podatki za začetno stran prijavljenega uporabnika. Po razrešitvi uporabnika neodvisne poizvedbe
+ * (organizacije z vlogami, povabila, prošnje) tečejo vzporedno. Sočasnost omejuje skupni semafor
+ * planify.dashboard.max-concurrency: ko je poln, poizvedba teče na niti zahtevka, zato se zahtevki ne vrstijo.
+ * Na delovne niti prenesemo varnostni kontekst (branje lastnih zapisov z replike) in razred kvote povezav.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    private final UserService userService;
+    private final OrganizationMembershipRepository membershipRepository;
+    private final InvitationRepository invitationRepository;
+    private final JoinRequestRepository joinRequestRepository;
+    private final MembershipGraphService membershipGraphService;
+    private final OrganizationCache organizationCache;
+
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final Counter parallel;
+    private final Counter inline;
+
+    public DashboardService(UserService userService,
+                            OrganizationMembershipRepository membershipRepository,
+                            InvitationRepository invitationRepository,
+                            JoinRequestRepository joinRequestRepository,
+                            MembershipGraphService membershipGraphService,
+                            OrganizationCache organizationCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${planify.dashboard.max-concurrency:32}") int maxConcurrency,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.userService = userService;
+        this.membershipRepository = membershipRepository;
+        this.invitationRepository = invitationRepository;
+        this.joinRequestRepository = joinRequestRepository;
+        this.membershipGraphService = membershipGraphService;
+        this.organizationCache = organizationCache;
+        this.permits = new Semaphore(maxConcurrency);
+
+        if (virtualThreads) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dashboard-", 1).factory());
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            this.executor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "dashboard-" + threads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.parallel = subqueryCounter(meterRegistry, "parallel");
+        this.inline = subqueryCounter(meterRegistry, "inline");
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public UserDashboard getDashboard() {
+        UserEntity user = userService.getCurrentUser();
+        UUID userId = user.getId();
+
+        CompletableFuture<List<DashboardOrganization>> organizations = fork(() -> organizationsWithRoles(userId));
+        CompletableFuture<List<DashboardInvitation>> invitations = fork(() -> invitationRepository.findPendingDashboardInvitations(userId));
+        CompletableFuture<List<DashboardJoinRequest>> joinRequests = fork(() -> joinRequestRepository.findPendingDashboardJoinRequests(userId));
+
+        return new UserDashboard(UserProfile.of(user), join(organizations), join(invitations), join(joinRequests));
+    }
+
+    /**
+     * Organizacije in vloge iz grafa članstev, podatki organizacij iz predpomnilnika; brez grafa ena poizvedba.
+     */
+    private List<DashboardOrganization> organizationsWithRoles(UUID userId) {
+        Map<UUID, Set<KeycloakRole>> roles = membershipGraphService.organizationsOf(userId)
+                .map(orgIds -> orgIds.stream().collect(Collectors.toMap(
+                        orgId -> orgId,
+                        orgId -> membershipGraphService.roles(userId, orgId).orElse(Set.of()),
+                        (a, b) -> a,
+                        LinkedHashMap::new)))
+                .orElseGet(() -> membershipRepository.findEdgesByUserIdIn(List.of(userId)).stream()
+                        .collect(Collectors.groupingBy(MembershipEdge::organizationId, LinkedHashMap::new,
+                                Collectors.mapping(MembershipEdge::role, Collectors.toSet()))));
+
+        List<DashboardOrganization> result = new ArrayList<>(roles.size());
+        roles.forEach((orgId, orgRoles) -> {
+            OrganizationProfile org = organizationCache.findById(orgId);
+            if (org != null) {
+                result.add(new DashboardOrganization(org.id(), org.name(), org.slug(), org.type(),
+                        orgRoles.stream().sorted().toList()));
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> fork(Supplier<T> query) {
+        if (!permits.tryAcquire()) {
+            inline.increment();
+            try {
+                return CompletableFuture.completedFuture(query.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        parallel.increment();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        String isolationClass = ConnectionQuotaDataSource.current();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                SecurityContextHolder.setContext(securityContext);
+                ConnectionQuotaDataSource.enter(isolationClass);
+                try {
+                    return query.get();
+                } finally {
+                    ConnectionQuotaDataSource.exit();
+                    SecurityContextHolder.clearContext();
+                    permits.release();
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter subqueryCounter(MeterRegistry meterRegistry, String mode) {
+        return Counter.builder("planify.dashboard.subqueries")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,232 @@
+package com.planify.user_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Hedging idempotentnih klicev: če prvi klic ne vrne odgovora v času, ki ga preseže le (1 - percentile) klicev,
+ * sprožimo še enega in vrnemo prvi uspešen odgovor. Zamik je percentil zadnjih WINDOW latenc prvih klicev.
+ * Dodatne klice omejuje proračun (žetoni): vsak klic doda budget žetona, hedge porabi enega, zato je dodatne
+ * obremenitve največ budget (npr. 5 %). Rok zahtevka (RequestDeadline) prenesemo na delovne niti.
+ * Primerno le za klice brez stranskih učinkov.
+ */
+public class HedgedRequests implements AutoCloseable {
+
+    private static final int WINDOW = 1000;
+    // Dokler nimamo dovolj meritev, zamika ne poznamo in ne hedgamo
+    private static final int MIN_SAMPLES = 50;
+    private static final int RECOMPUTE_EVERY = 100;
+    private static final long TOKEN = 1000;
+    // Največ toliko hedge klicev v izbruhu
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final String name;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long tokensPerCall;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] latencies = new long[WINDOW];
+    private long samples;
+    private int next;
+    private volatile long delayNanos = -1;
+    private final AtomicLong tokens = new AtomicLong();
+
+    public HedgedRequests(String name, double percentile, Duration minDelay, double budget, int maxThreads,
+                          boolean virtualThreads, MeterRegistry meterRegistry) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+        if (budget < 0 || budget > 1) {
+            throw new IllegalArgumentException("budget must be in [0, 1]");
+        }
+        this.name = name;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.tokensPerCall = Math.round(budget * TOKEN);
+        this.meterRegistry = meterRegistry;
+
+        // Tudi z virtualnimi nitmi omejimo število sočasnih klicev z maxThreads
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name(name + "-hedge-", 1).factory();
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            threadFactory = r -> {
+                Thread t = new Thread(r, name + "-hedge-" + threads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+        this.executor = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+
+        Gauge.builder("planify.hedge.delay", this, h -> Math.max(h.delayNanos, 0) / 1e6)
+                .tag("client", name)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Izvede call, po potrebi še enkrat vzporedno. Napako vrne le, če nobeden od klicev ni uspel.
+     */
+    public <T> T execute(String operation, Supplier<T> call) {
+        tokens.accumulateAndGet(tokensPerCall, (current, add) -> Math.min(current + add, MAX_TOKENS));
+
+        long start = System.nanoTime();
+        Optional<Duration> deadline = RequestDeadline.remaining();
+        CompletableFuture<T> primary = submit(call, deadline);
+        if (primary == null) {
+            // Bazen je poln, klic izvedemo kar na trenutni niti
+            return call.get();
+        }
+        primary.whenComplete((v, e) -> record(System.nanoTime() - start));
+
+        long delay = delayNanos;
+        if (delay < 0) {
+            return await(primary);
+        }
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Prvi klic je počasnejši od percentila, nadaljujemo s hedgeom
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + operation, e);
+        }
+
+        if (!tryAcquireToken()) {
+            count(operation, "skipped_budget");
+            return await(primary);
+        }
+        CompletableFuture<T> hedge = submit(call, deadline);
+        if (hedge == null) {
+            tokens.addAndGet(TOKEN);
+            count(operation, "skipped_capacity");
+            return await(primary);
+        }
+        count(operation, "issued");
+
+        // Zmaga prvi uspešen odgovor; napako vrnemo le, če sta oba klica neuspešna
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        primary.whenComplete((value, error) -> complete(winner, failed, value, error));
+        hedge.whenComplete((value, error) -> {
+            if (complete(winner, failed, value, error)) {
+                count(operation, "won");
+            }
+        });
+        return await(winner);
+    }
+
+    /**
+     * Trenutni zamik pred hedgeom ali prazno, če še nimamo dovolj meritev.
+     */
+    public Optional<Duration> hedgeDelay() {
+        long delay = delayNanos;
+        return delay < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(delay));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call, Optional<Duration> deadline) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                deadline.ifPresent(RequestDeadline::set);
+                try {
+                    return call.get();
+                } finally {
+                    RequestDeadline.clear();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private static <T> boolean complete(CompletableFuture<T> winner, AtomicInteger failed, T value, Throwable error) {
+        if (error == null) {
+            return winner.complete(value);
+        }
+        if (failed.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+        return false;
+    }
+
+    private boolean tryAcquireToken() {
+        while (true) {
+            long current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private void record(long latency) {
+        long[] snapshot = null;
+        lock.lock();
+        try {
+            latencies[next] = latency;
+            next = (next + 1) % WINDOW;
+            samples++;
+            if (samples >= MIN_SAMPLES && (samples % RECOMPUTE_EVERY == 0 || delayNanos < 0)) {
+                snapshot = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            long p = snapshot[(int) Math.min(snapshot.length - 1, Math.floor(percentile * snapshot.length))];
+            delayNanos = Math.max(p, minDelayNanos);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for response", e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("planify.hedge.requests")
+                .tag("client", name)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,358 @@
+package com.planify.user_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.planify.user_service.model.IdempotencyKeyEntity;
+import com.planify.user_service.model.IdempotencyStatus;
+import com.planify.user_service.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Podpora za glavo Idempotency-Key pri dragih POST zahtevkih (registracija, ustvarjanje organizacije).
+ * Prvi zahtevek s ključem ga v tabeli idempotency_keys zasede in izvede, uspešen (2xx) odgovor pa shrani.
+ * Ponovitve z istim ključem in enakim zahtevkom dobijo shranjen odgovor brez ponovnih klicev v Keycloak;
+ * sočasni dvojniki počakajo na prvo izvedbo (v isti repliki na njen rezultat, med replikami s poizvedovanjem
+ * po tabeli). Neuspešen odgovor se ne shrani, zato ga lahko odjemalec ponovi z istim ključem. Če je izvedba pred
+ * neuspehom zabeležila stranski učinek (Checkpoint), ključ ostane v stanju FAILED in ponovitev ga nadaljuje.
+ * Ključ prijavljenega klicatelja je predpon z njegovo identiteto. Pred tabelo je omejen predpomnilnik dokončanih
+ * odgovorov.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    // Polja, ki jih v odtis zahtevka vključimo le kot zgoščeno vrednost (odtis se hrani v bazi)
+    private static final Set<String> SENSITIVE_FIELDS = Set.of("password");
+
+    public record StoredResponse(String requestHash, int status, String body) {}
+
+    /**
+     * Stranski učinki izvedbe, ki jih ponovitev z istim ključem nadaljuje (npr. id ustvarjenega Keycloak uporabnika).
+     */
+    public interface Checkpoint {
+
+        /**
+         * Stranski učinek, ki ga je zabeležila prejšnja, neuspela izvedba istega zahtevka.
+         */
+        Optional<String> resume();
+
+        /**
+         * Zabeleži stranski učinek. Če izvedba nato ne uspe, ključ ostane zaseden (FAILED) do ponovitve.
+         */
+        void record(String progress);
+    }
+
+    private static final Checkpoint NO_CHECKPOINT = new Checkpoint() {
+        @Override
+        public Optional<String> resume() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void record(String progress) {
+        }
+    };
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+
+    private final Cache<String, StoredResponse> completed;
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${planify.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${planify.idempotency.in-progress-timeout:2m}") Duration inProgressTimeout,
+                              @Value("${planify.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                              @Value("${planify.idempotency.poll-interval:100ms}") Duration pollInterval,
+                              @Value("${planify.idempotency.cache-size:10000}") long cacheSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Izvede action največ enkrat za (scope, key). Brez ključa (null) se action izvede vedno.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        return execute(scope, key, request, checkpoint -> action.get(), UnaryOperator.identity());
+    }
+
+    /**
+     * Kot execute, le da action lahko beleži stranske učinke za nadaljevanje, storedBody pa določi, kateri del
+     * odgovora se shrani za ponovitve (npr. brez osebnih podatkov).
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request,
+                                     Function<Checkpoint, ResponseEntity<?>> action, UnaryOperator<Object> storedBody) {
+        if (key == null) {
+            return action.apply(NO_CHECKPOINT);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body("Invalid " + HEADER + " header");
+        }
+
+        String requestHash = fingerprint(request);
+        String storedKey = principalKey(key);
+        String cacheKey = scope + ":" + storedKey;
+
+        StoredResponse cached = completed.getIfPresent(cacheKey);
+        if (cached != null) {
+            return replay(scope, cached, requestHash);
+        }
+
+        // Sočasni dvojnik v tej repliki počaka, da se prva izvedba konča, nato odgovor prebere iz predpomnilnika
+        // (ali pa, če prva izvedba ni uspela, zahtevek izvede sam)
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            count(scope, "waited");
+            try {
+                running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                return inProgress(scope);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return inProgress(scope);
+            }
+            return execute(scope, key, request, action, storedBody);
+        }
+
+        try {
+            return claimAndExecute(scope, storedKey, cacheKey, requestHash, action, storedBody);
+        } finally {
+            inFlight.remove(cacheKey, mine);
+            mine.complete(null);
+        }
+    }
+
+    private ResponseEntity<?> claimAndExecute(String scope, String key, String cacheKey, String requestHash,
+                                              Function<Checkpoint, ResponseEntity<?>> action,
+                                              UnaryOperator<Object> storedBody) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            UUID owner = UUID.randomUUID();
+            LocalDateTime now = LocalDateTime.now();
+            if (repository.claim(scope, key, requestHash, owner, now, now.minus(inProgressTimeout), now.plus(ttl)) == 1) {
+                return executeClaimed(scope, key, cacheKey, requestHash, owner, action, storedBody);
+            }
+
+            // Ključ drži druga replika ali pa je že dokončan
+            Optional<IdempotencyKeyEntity> existing = repository.findOnPrimary(scope, key);
+            if (existing.isPresent() && existing.get().getStatus() == IdempotencyStatus.COMPLETED) {
+                IdempotencyKeyEntity entity = existing.get();
+                StoredResponse stored = new StoredResponse(entity.getRequestHash(), entity.getResponseStatus(), entity.getResponseBody());
+                completed.put(cacheKey, stored);
+                return replay(scope, stored, requestHash);
+            }
+            if (existing.isPresent() && existing.get().getStatus() == IdempotencyStatus.FAILED
+                    && !existing.get().getRequestHash().equals(requestHash)) {
+                // Delno izvedenega zahtevka ne smemo nadaljevati z drugačnim zahtevkom
+                return mismatch(scope);
+            }
+            if (System.nanoTime() > deadline) {
+                return inProgress(scope);
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return inProgress(scope);
+            }
+        }
+    }
+
+    private ResponseEntity<?> executeClaimed(String scope, String key, String cacheKey, String requestHash, UUID owner,
+                                             Function<Checkpoint, ResponseEntity<?>> action,
+                                             UnaryOperator<Object> storedBody) {
+        ClaimedCheckpoint checkpoint = new ClaimedCheckpoint(scope, key, owner);
+        ResponseEntity<?> response;
+        try {
+            response = action.apply(checkpoint);
+        } catch (RuntimeException e) {
+            abandon(scope, key, owner, checkpoint);
+            throw e;
+        }
+
+        count(scope, "executed");
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            // Neuspeh ne shranimo, da ga lahko odjemalec ponovi z istim ključem
+            abandon(scope, key, owner, checkpoint);
+            return response;
+        }
+
+        StoredResponse stored = toStored(requestHash, response.getStatusCode().value(), storedBody.apply(response.getBody()));
+        if (repository.complete(scope, key, owner, stored.status(), stored.body(), LocalDateTime.now()) == 0) {
+            log.warn("Idempotency key {} in scope {} was taken over before completion", key, scope);
+        }
+        completed.put(cacheKey, stored);
+        return response;
+    }
+
+    /**
+     * Brez stranskega učinka ključ sprostimo; sicer ostane v stanju FAILED z zabeleženim napredkom.
+     */
+    private void abandon(String scope, String key, UUID owner, ClaimedCheckpoint checkpoint) {
+        if (checkpoint.progress == null) {
+            repository.release(scope, key, owner);
+            return;
+        }
+        count(scope, "failed");
+        repository.fail(scope, key, owner, LocalDateTime.now());
+    }
+
+    private ResponseEntity<?> replay(String scope, StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return mismatch(scope);
+        }
+        count(scope, "replayed");
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private ResponseEntity<?> mismatch(String scope) {
+        count(scope, "mismatch");
+        return ResponseEntity.unprocessableEntity()
+                .body(HEADER + " was already used with a different request");
+    }
+
+    private ResponseEntity<?> inProgress(String scope) {
+        count(scope, "timeout");
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("A request with this " + HEADER + " is still in progress");
+    }
+
+    private StoredResponse toStored(String requestHash, int status, Object body) {
+        try {
+            return new StoredResponse(requestHash, status, objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response: " + e.getMessage(), e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] json;
+            if (objectMapper.valueToTree(request) instanceof ObjectNode node) {
+                // Drugo geslo je drug zahtevek, v bazo pa ga ne zapišemo
+                for (String field : SENSITIVE_FIELDS) {
+                    if (node.hasNonNull(field)) {
+                        node.put(field, sha256(node.get(field).asText().getBytes(StandardCharsets.UTF_8)));
+                    }
+                }
+                json = objectMapper.writeValueAsBytes(node);
+            } else {
+                json = objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            }
+            return sha256(json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to fingerprint request: " + e.getMessage(), e);
+        }
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to fingerprint request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ključ prijavljenega klicatelja predpnemo z njegovo identiteto, da shranjenega odgovora ne dobi drug klicatelj.
+     */
+    private static String principalKey(String key) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return key;
+        }
+        return authentication.getName() + ":" + key;
+    }
+
+    private final class ClaimedCheckpoint implements Checkpoint {
+
+        private final String scope;
+        private final String key;
+        private final UUID owner;
+        private boolean loaded;
+        private String progress;
+
+        private ClaimedCheckpoint(String scope, String key, UUID owner) {
+            this.scope = scope;
+            this.key = key;
+            this.owner = owner;
+        }
+
+        @Override
+        public Optional<String> resume() {
+            if (!loaded) {
+                progress = repository.findOnPrimary(scope, key).map(IdempotencyKeyEntity::getProgress).orElse(null);
+                loaded = true;
+            }
+            return Optional.ofNullable(progress);
+        }
+
+        @Override
+        public void record(String value) {
+            progress = value;
+            loaded = true;
+            repository.recordProgress(scope, key, owner, value, LocalDateTime.now());
+        }
+    }
+
+    private void count(String scope, String outcome) {
+        Counter.builder("planify.idempotency.requests")
+                .tag("scope", scope)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -27,11 +27,14 @@ public class InvitationsService {
 
     private final KafkaProducer kafkaProducer;
     private final AuthService authService;
+    private final MembershipGraphService membershipGraphService;
 
+    @Transactional(readOnly = true)
     public List<InvitationEntity> getInvitations() {
         return invitationRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<InvitationEntity> getInvitationsByUserId(UUID userId) {
         return invitationRepository.findByUserId(userId);
     }
@@ -46,6 +49,7 @@ public class InvitationsService {
         return invitationRepository.findByUserIdAndStatus(userId, status);
     }
 
+    @Transactional(readOnly = true)
     public List<InvitationEntity> getInvitationsByOrganizationIdAndStatus(UUID orgId, InvitationStatus status) {
         return invitationRepository.findByOrganizationIdAndStatus(orgId, status);
     }
@@ -76,6 +80,7 @@ public class InvitationsService {
         membership.setCreatedAt(LocalDateTime.now());
 
         membershipRepository.save(membership);
+        membershipGraphService.membershipsChanged(user.getId());
 
         authService.assignRole(user.getKeycloakId(), invitation.getRole());
 
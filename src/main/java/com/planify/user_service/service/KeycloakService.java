@@ -4,21 +4,49 @@ import com.planify.user_service.model.KeycloakRole;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class KeycloakService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // JSON objekt iz odgovora Keycloak (žeton, predstavitev vloge)
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
+
+    private final HttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    // Hedging klicev brez stranskih učinkov (null, če je izklopljen)
+    private final HedgedRequests hedged;
+
+    // Največje trajanje enega poskusa; rok zahtevka (RequestDeadline) ga lahko še skrajša
+    @Value("${resilience4j.timelimiter.instances.keycloakService.timeoutDuration:5s}")
+    private Duration readTimeout;
 
     @Value("${keycloak.url:http://localhost:9080}")
     private String keycloakUrl;
@@ -26,9 +54,43 @@ public class KeycloakService {
     @Value("${keycloak.realm:planify}")
     private String realm;
 
+    // Predstavitve realm vlog se ne spreminjajo, zato jih po prvem GET-u hranimo
+    private final Map<KeycloakRole, Map<String, Object>> roleRepresentations = new ConcurrentHashMap<>();
+
+    public KeycloakService(MeterRegistry meterRegistry,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${planify.keycloak.connect-timeout:2s}") Duration connectTimeout,
+                           @Value("${planify.keycloak.hedging.enabled:false}") boolean hedgingEnabled,
+                           @Value("${planify.keycloak.hedging.percentile:0.95}") double hedgingPercentile,
+                           @Value("${planify.keycloak.hedging.min-delay:20ms}") Duration hedgingMinDelay,
+                           @Value("${planify.keycloak.hedging.budget:0.05}") double hedgingBudget,
+                           @Value("${planify.keycloak.hedging.max-threads:16}") int hedgingMaxThreads) {
+        this.meterRegistry = meterRegistry;
+        // JDK HttpClient pri čakanju na odgovor ne pripne virtualne niti (HttpURLConnection jo)
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .executor(virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool(daemon("keycloak-http-")))
+                .build();
+        this.restTemplate = new RestTemplate(new DeadlineRequestFactory());
+        this.hedged = hedgingEnabled
+                ? new HedgedRequests("keycloak", hedgingPercentile, hedgingMinDelay, hedgingBudget, hedgingMaxThreads,
+                        virtualThreads, meterRegistry)
+                : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (hedged != null) {
+            hedged.close();
+        }
+        httpClient.executor().ifPresent(executor -> ((ExecutorService) executor).shutdownNow());
+    }
+
     @Retry(name = "keycloakService")
+    @Bulkhead(name = "keycloakService")
     @CircuitBreaker(name = "keycloakService", fallbackMethod = "getAdminTokenFallback")
     public String getAdminToken() {
+        RequestDeadline.check();
         log.debug("Fetching admin token from Keycloak");
         try {
             String url = keycloakUrl + "/realms/master/protocol/openid-connect/token";
@@ -41,7 +103,9 @@ public class KeycloakService {
 
             HttpEntity<?> entity = new HttpEntity<>(body, new HttpHeaders());
 
-            Map<String, Object> response = restTemplate.postForObject(url, entity, Map.class);
+            // Izdaja žetona nima stranskih učinkov, zato jo lahko hedgamo
+            Map<String, Object> response = hedge("getAdminToken",
+                    () -> restTemplate.exchange(url, HttpMethod.POST, entity, JSON_OBJECT).getBody());
             return (String) response.get("access_token");
         } catch (Exception e) {
             log.error("Failed to get admin token: {}", e.getMessage());
@@ -51,13 +115,14 @@ public class KeycloakService {
 
     private String getAdminTokenFallback(Exception ex) {
         log.error("Keycloak admin token unavailable. Fallback triggered. Error: {}", ex.getMessage());
-        throw new RuntimeException("Keycloak authentication service is temporarily unavailable. Please try again later.");
+        throw unavailable("getAdminToken", "Keycloak authentication service is temporarily unavailable. Please try again later.");
     }
 
     @Retry(name = "keycloakService")
     @Bulkhead(name = "keycloakService")
     @CircuitBreaker(name = "keycloakService", fallbackMethod = "createUserFallback")
     public UUID createUser(String username, String email, String firstName, String lastName, String adminToken) {
+        RequestDeadline.check();
         log.info("Creating Keycloak user for username: {}", username);
         try {
             String url = keycloakUrl + "/admin/realms/" + realm + "/users";
@@ -95,13 +160,15 @@ public class KeycloakService {
 
     private UUID createUserFallback(String username, String email, String firstName, String lastName, String adminToken, Exception ex) {
         log.error("Keycloak service unavailable. Fallback triggered for user: {}. Error: {}", username, ex.getMessage());
-        throw new RuntimeException("Keycloak service temporarily unavailable. Please try again later.");
+        throw unavailable("createUser", "Keycloak service temporarily unavailable. Please try again later.");
     }
 
 
     @Retry(name = "keycloakService")
+    @Bulkhead(name = "keycloakService")
     @CircuitBreaker(name = "keycloakService", fallbackMethod = "setPasswordFallback")
     public void setPassword(UUID keycloakUserId, String password, String adminToken) {
+        RequestDeadline.check();
         log.debug("Setting password for user {}", keycloakUserId);
         try {
             String pwdUrl = keycloakUrl + "/admin/realms/" + realm + "/users/" + keycloakUserId + "/reset-password";
@@ -127,13 +194,15 @@ public class KeycloakService {
 
     private void setPasswordFallback(UUID keycloakUserId, String password, String adminToken, Exception ex) {
         log.error("Failed to set password for user {}. Error: {}", keycloakUserId, ex.getMessage());
-        throw new RuntimeException("Failed to set password. Keycloak service temporarily unavailable.");
+        throw unavailable("setPassword", "Failed to set password. Keycloak service temporarily unavailable.");
     }
 
 
     @Retry(name = "keycloakService")
+    @Bulkhead(name = "keycloakService")
     @CircuitBreaker(name = "keycloakService", fallbackMethod = "updateUserFallback")
     public void updateUser(UUID keycloakUserId, Map<String, Object> updates, String adminToken) {
+        RequestDeadline.check();
         log.debug("Updating user {} with attributes: {}", keycloakUserId, updates);
         try {
             String updateUrl = keycloakUrl + "/admin/realms/" + realm + "/users/" + keycloakUserId;
@@ -152,7 +221,7 @@ public class KeycloakService {
 
     private void updateUserFallback(UUID keycloakUserId, Map<String, Object> updates, String adminToken, Exception ex) {
         log.error("Failed to update user {}. Error: {}", keycloakUserId, ex.getMessage());
-        throw new RuntimeException("Failed to update user. Keycloak service temporarily unavailable.");
+        throw unavailable("updateUser", "Failed to update user. Keycloak service temporarily unavailable.");
     }
 
 
@@ -160,20 +229,15 @@ public class KeycloakService {
     @Bulkhead(name = "keycloakService")
     @CircuitBreaker(name = "keycloakService", fallbackMethod = "assignRoleFallback")
     public void assignRole(UUID userId, KeycloakRole roleName, String adminToken) {
+        RequestDeadline.check();
         log.info("Assigning role {} to user {}", roleName, userId);
         try {
-            String normalized = roleName.toString().toLowerCase();
-
             HttpHeaders headers = new HttpHeaders();
             headers.setBearerAuth(adminToken);
             headers.setContentType(MediaType.APPLICATION_JSON);
 
             // Pridobimo role iz Keycloaka
-            String roleUrl = keycloakUrl + "/admin/realms/" + realm + "/roles/" + normalized;
-
-            ResponseEntity<Map> roleResp = restTemplate.exchange(roleUrl, HttpMethod.GET, new HttpEntity<>(headers), Map.class);
-
-            Map<String, Object> roleRepresentation = roleResp.getBody();
+            Map<String, Object> roleRepresentation = getRoleRepresentation(roleName, headers);
 
             // Dodelimo nove role uporabniku
             String assignUrl = keycloakUrl + "/admin/realms/" + realm +
@@ -193,27 +257,23 @@ public class KeycloakService {
     private void assignRoleFallback(UUID userId, KeycloakRole roleName, String adminToken, Exception ex) {
         log.error("Failed to assign role to user in Keycloak. User: {}, Role: {}, Error: {}",
                 userId, roleName, ex.getMessage());
-        throw new RuntimeException("Failed to assign role. Keycloak service temporarily unavailable.");
+        throw unavailable("assignRole", "Failed to assign role. Keycloak service temporarily unavailable.");
     }
 
 
     @Retry(name = "keycloakService")
+    @Bulkhead(name = "keycloakService")
     @CircuitBreaker(name = "keycloakService", fallbackMethod = "removeRoleFallback")
     public void removeRole(UUID userId, KeycloakRole roleName, String adminToken) {
+        RequestDeadline.check();
         log.info("Removing role {} from user {}", roleName, userId);
         try {
-            String normalized = roleName.toString().toLowerCase();
-
             HttpHeaders headers = new HttpHeaders();
             headers.setBearerAuth(adminToken);
             headers.setContentType(MediaType.APPLICATION_JSON);
 
             // Pridobimo role iz Keycloaka
-            String roleUrl = keycloakUrl + "/admin/realms/" + realm + "/roles/" + normalized;
-
-            ResponseEntity<Map> roleResp = restTemplate.exchange(roleUrl, HttpMethod.GET, new HttpEntity<>(headers), Map.class);
-
-            Map<String, Object> roleRepresentation = roleResp.getBody();
+            Map<String, Object> roleRepresentation = getRoleRepresentation(roleName, headers);
 
             // Odstranimo role uporabniku
             String removeUrl = keycloakUrl + "/admin/realms/" + realm +
@@ -233,6 +293,137 @@ public class KeycloakService {
     private void removeRoleFallback(UUID userId, KeycloakRole roleName, String adminToken, Exception ex) {
         log.error("Failed to remove role from user in Keycloak. User: {}, Role: {}, Error: {}",
                 userId, roleName, ex.getMessage());
-        throw new RuntimeException("Failed to remove role. Keycloak service temporarily unavailable.");
+        throw unavailable("removeRole", "Failed to remove role. Keycloak service temporarily unavailable.");
+    }
+
+
+    @Retry(name = "keycloakService")
+    @Bulkhead(name = "keycloakService")
+    @CircuitBreaker(name = "keycloakService", fallbackMethod = "assignRolesFallback")
+    public void assignRoles(UUID userId, Collection<KeycloakRole> roleNames, String adminToken) {
+        RequestDeadline.check();
+        log.info("Assigning roles {} to user {}", roleNames, userId);
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(adminToken);
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            List<Map<String, Object>> roles = new ArrayList<>();
+            for (KeycloakRole roleName : roleNames) {
+                roles.add(getRoleRepresentation(roleName, headers));
+            }
+
+            // Vse vloge dodelimo z enim klicem
+            String assignUrl = keycloakUrl + "/admin/realms/" + realm +
+                    "/users/" + userId + "/role-mappings/realm";
+
+            restTemplate.postForEntity(assignUrl, new HttpEntity<>(roles, headers), String.class);
+            log.info("Successfully assigned roles {} to user {}", roleNames, userId);
+        } catch (Exception e) {
+            log.error("Failed to assign roles {} to user {}: {}", roleNames, userId, e.getMessage());
+            throw new RuntimeException("Failed to assign roles. " + e.getMessage());
+        }
+    }
+
+    private void assignRolesFallback(UUID userId, Collection<KeycloakRole> roleNames, String adminToken, Exception ex) {
+        log.error("Failed to assign roles to user in Keycloak. User: {}, Roles: {}, Error: {}",
+                userId, roleNames, ex.getMessage());
+        throw unavailable("assignRoles", "Failed to assign roles. Keycloak service temporarily unavailable.");
+    }
+
+
+    @Retry(name = "keycloakService")
+    @Bulkhead(name = "keycloakService")
+    @CircuitBreaker(name = "keycloakService", fallbackMethod = "removeRolesFallback")
+    public void removeRoles(UUID userId, Collection<KeycloakRole> roleNames, String adminToken) {
+        RequestDeadline.check();
+        log.info("Removing roles {} from user {}", roleNames, userId);
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(adminToken);
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            List<Map<String, Object>> roles = new ArrayList<>();
+            for (KeycloakRole roleName : roleNames) {
+                roles.add(getRoleRepresentation(roleName, headers));
+            }
+
+            // Vse vloge odstranimo z enim klicem
+            String removeUrl = keycloakUrl + "/admin/realms/" + realm +
+                    "/users/" + userId + "/role-mappings/realm";
+
+            restTemplate.exchange(removeUrl, HttpMethod.DELETE, new HttpEntity<>(roles, headers), String.class);
+            log.info("Successfully removed roles {} from user {}", roleNames, userId);
+        } catch (Exception e) {
+            log.error("Failed to remove roles {} from user {}: {}", roleNames, userId, e.getMessage());
+            throw new RuntimeException("Failed to remove roles. " + e.getMessage());
+        }
+    }
+
+    private void removeRolesFallback(UUID userId, Collection<KeycloakRole> roleNames, String adminToken, Exception ex) {
+        log.error("Failed to remove roles from user in Keycloak. User: {}, Roles: {}, Error: {}",
+                userId, roleNames, ex.getMessage());
+        throw unavailable("removeRoles", "Failed to remove roles. Keycloak service temporarily unavailable.");
+    }
+
+    private Map<String, Object> getRoleRepresentation(KeycloakRole roleName, HttpHeaders headers) {
+        Map<String, Object> cached = roleRepresentations.get(roleName);
+        if (cached != null) {
+            return cached;
+        }
+
+        String roleUrl = keycloakUrl + "/admin/realms/" + realm + "/roles/" + roleName.toString().toLowerCase();
+
+        Map<String, Object> roleRepresentation = hedge("getRoleRepresentation",
+                () -> restTemplate.exchange(roleUrl, HttpMethod.GET, new HttpEntity<>(headers), JSON_OBJECT).getBody());
+        if (roleRepresentation != null) {
+            roleRepresentations.put(roleName, roleRepresentation);
+        }
+        return roleRepresentation;
+    }
+
+    private <T> T hedge(String operation, Supplier<T> call) {
+        return hedged == null ? call.get() : hedged.execute(operation, call);
+    }
+
+    /**
+     * Napaka za fallback: če je rok zahtevka potekel, jo sporočimo kot RequestDeadline.ExceededException
+     * (in štejemo po operaciji), sicer kot nedosegljiv Keycloak.
+     */
+    private RuntimeException unavailable(String operation, String message) {
+        if (RequestDeadline.expired()) {
+            Counter.builder("planify.deadline.exceeded")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .increment();
+            return new RequestDeadline.ExceededException(operation);
+        }
+        return new RuntimeException(message);
+    }
+
+    /**
+     * Timeout odgovora je manjši izmed nastavljenega in preostanka do roka zahtevka.
+     */
+    private class DeadlineRequestFactory implements ClientHttpRequestFactory {
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            Duration remaining = RequestDeadline.remaining().orElse(readTimeout);
+            if (remaining.isNegative() || remaining.isZero()) {
+                throw new RequestDeadline.ExceededException(httpMethod + " " + uri.getPath());
+            }
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+            factory.setReadTimeout(remaining.compareTo(readTimeout) < 0 ? remaining : readTimeout);
+            return factory.createRequest(uri, httpMethod);
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
     }
 }
@@ -0,0 +1,318 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.KeycloakRole;
+import com.planify.user_service.model.MembershipEdge;
+
+import java.util.*;
+
+/**
+ * Graf članstev: uporabniki in organizacije dobijo zaporedne int indekse, povezave so v primitivnih poljih,
+ * vloge na povezavi pa v bitni maski (bit = KeycloakRole.ordinal()).
+ * Razred ni varen za sočasno uporabo; zaklepanje je v MembershipGraphService.
+ */
+public class MembershipGraph {
+
+    private static final KeycloakRole[] ROLES = KeycloakRole.values();
+    private static final int INITIAL_DEGREE = 4;
+
+    static {
+        if (ROLES.length > Byte.SIZE) {
+            throw new IllegalStateException("Role mask does not fit into a byte");
+        }
+    }
+
+    public record Member(UUID userId, UUID keycloakId, Set<KeycloakRole> roles) {}
+
+    private final UuidIndex users = new UuidIndex();
+    private final UuidIndex organizations = new UuidIndex();
+
+    private long[] keycloakMsb = new long[0];
+    private long[] keycloakLsb = new long[0];
+
+    // Uporabnik -> organizacije (z maskami vlog)
+    private int[][] userOrgs = new int[0][];
+    private byte[][] userRoleMasks = new byte[0][];
+    private int[] userDegree = new int[0];
+
+    // Organizacija -> uporabniki
+    private int[][] orgUsers = new int[0][];
+    private int[] orgDegree = new int[0];
+
+    private long edges;
+
+    /**
+     * Doda vlogo na povezavo (uporabnik, organizacija); za gradnjo iz baze.
+     */
+    public void add(MembershipEdge edge) {
+        int user = userIndex(edge.userId(), edge.keycloakId());
+        int org = orgIndex(edge.organizationId());
+        int pos = find(user, org);
+        if (pos < 0) {
+            pos = link(user, org);
+        }
+        userRoleMasks[user][pos] |= mask(edge.role());
+    }
+
+    /**
+     * Zamenja vsa članstva uporabnika s podanimi (vse povezave morajo pripadati userId).
+     */
+    public void replaceUser(UUID userId, List<MembershipEdge> memberships) {
+        int user = users.find(userId);
+        if (user >= 0) {
+            for (int i = 0; i < userDegree[user]; i++) {
+                unlinkFromOrg(userOrgs[user][i], user);
+            }
+            edges -= userDegree[user];
+            userDegree[user] = 0;
+        }
+        for (MembershipEdge edge : memberships) {
+            add(edge);
+        }
+    }
+
+    public List<UUID> organizationsOf(UUID userId) {
+        int user = users.find(userId);
+        if (user < 0) {
+            return List.of();
+        }
+        List<UUID> result = new ArrayList<>(userDegree[user]);
+        for (int i = 0; i < userDegree[user]; i++) {
+            result.add(organizations.uuid(userOrgs[user][i]));
+        }
+        return result;
+    }
+
+    public List<Member> membersOf(UUID orgId) {
+        int org = organizations.find(orgId);
+        if (org < 0) {
+            return List.of();
+        }
+        List<Member> result = new ArrayList<>(orgDegree[org]);
+        for (int i = 0; i < orgDegree[org]; i++) {
+            int user = orgUsers[org][i];
+            result.add(new Member(
+                    users.uuid(user),
+                    new UUID(keycloakMsb[user], keycloakLsb[user]),
+                    roles(userRoleMasks[user][find(user, org)])));
+        }
+        return result;
+    }
+
+    public Set<KeycloakRole> roles(UUID userId, UUID orgId) {
+        int user = users.find(userId);
+        int org = organizations.find(orgId);
+        if (user < 0 || org < 0) {
+            return EnumSet.noneOf(KeycloakRole.class);
+        }
+        int pos = find(user, org);
+        return pos < 0 ? EnumSet.noneOf(KeycloakRole.class) : roles(userRoleMasks[user][pos]);
+    }
+
+    public int memberCount(UUID orgId) {
+        int org = organizations.find(orgId);
+        return org < 0 ? 0 : orgDegree[org];
+    }
+
+    public int userCount() {
+        return users.size();
+    }
+
+    public int organizationCount() {
+        return organizations.size();
+    }
+
+    public long edgeCount() {
+        return edges;
+    }
+
+    /**
+     * Ocena zasedenega pomnilnika na kopici (polja in glave polj, brez samega objekta grafa).
+     */
+    public long memoryBytes() {
+        long bytes = users.memoryBytes() + organizations.memoryBytes();
+        bytes += array(keycloakMsb.length * 8L) * 2;
+        bytes += array(userDegree.length * 4L) + array(orgDegree.length * 4L);
+        bytes += array(userOrgs.length * 4L) + array(userRoleMasks.length * 4L) + array(orgUsers.length * 4L);
+        for (int i = 0; i < users.size(); i++) {
+            if (userOrgs[i] != null) {
+                bytes += array(userOrgs[i].length * 4L) + array(userRoleMasks[i].length);
+            }
+        }
+        for (int i = 0; i < organizations.size(); i++) {
+            if (orgUsers[i] != null) {
+                bytes += array(orgUsers[i].length * 4L);
+            }
+        }
+        return bytes;
+    }
+
+    private int userIndex(UUID userId, UUID keycloakId) {
+        int user = users.find(userId);
+        if (user < 0) {
+            user = users.add(userId);
+            if (user == userDegree.length) {
+                int capacity = Math.max(16, user * 2);
+                keycloakMsb = Arrays.copyOf(keycloakMsb, capacity);
+                keycloakLsb = Arrays.copyOf(keycloakLsb, capacity);
+                userOrgs = Arrays.copyOf(userOrgs, capacity);
+                userRoleMasks = Arrays.copyOf(userRoleMasks, capacity);
+                userDegree = Arrays.copyOf(userDegree, capacity);
+            }
+        }
+        if (keycloakId != null) {
+            keycloakMsb[user] = keycloakId.getMostSignificantBits();
+            keycloakLsb[user] = keycloakId.getLeastSignificantBits();
+        }
+        return user;
+    }
+
+    private int orgIndex(UUID orgId) {
+        int org = organizations.find(orgId);
+        if (org < 0) {
+            org = organizations.add(orgId);
+            if (org == orgDegree.length) {
+                int capacity = Math.max(16, org * 2);
+                orgUsers = Arrays.copyOf(orgUsers, capacity);
+                orgDegree = Arrays.copyOf(orgDegree, capacity);
+            }
+        }
+        return org;
+    }
+
+    private int find(int user, int org) {
+        int[] orgs = userOrgs[user];
+        for (int i = 0; i < userDegree[user]; i++) {
+            if (orgs[i] == org) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int link(int user, int org) {
+        int pos = userDegree[user];
+        if (userOrgs[user] == null || pos == userOrgs[user].length) {
+            int capacity = userOrgs[user] == null ? INITIAL_DEGREE : pos * 2;
+            userOrgs[user] = userOrgs[user] == null ? new int[capacity] : Arrays.copyOf(userOrgs[user], capacity);
+            userRoleMasks[user] = userRoleMasks[user] == null ? new byte[capacity] : Arrays.copyOf(userRoleMasks[user], capacity);
+        }
+        userOrgs[user][pos] = org;
+        userRoleMasks[user][pos] = 0;
+        userDegree[user]++;
+
+        int orgPos = orgDegree[org];
+        if (orgUsers[org] == null || orgPos == orgUsers[org].length) {
+            orgUsers[org] = orgUsers[org] == null ? new int[INITIAL_DEGREE] : Arrays.copyOf(orgUsers[org], orgPos * 2);
+        }
+        orgUsers[org][orgPos] = user;
+        orgDegree[org]++;
+
+        edges++;
+        return pos;
+    }
+
+    private void unlinkFromOrg(int org, int user) {
+        int[] members = orgUsers[org];
+        int last = orgDegree[org] - 1;
+        for (int i = 0; i <= last; i++) {
+            if (members[i] == user) {
+                // Vrstni red članov ni pomemben, zato zadnjega prestavimo na izpraznjeno mesto
+                members[i] = members[last];
+                orgDegree[org]--;
+                return;
+            }
+        }
+    }
+
+    private static byte mask(KeycloakRole role) {
+        return role == null ? 0 : (byte) (1 << role.ordinal());
+    }
+
+    private static Set<KeycloakRole> roles(byte mask) {
+        Set<KeycloakRole> roles = EnumSet.noneOf(KeycloakRole.class);
+        for (KeycloakRole role : ROLES) {
+            if ((mask & (1 << role.ordinal())) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    private static long array(long payload) {
+        return 16 + ((payload + 7) & ~7L);
+    }
+
+    /**
+     * UUID -> zaporedni indeks (odprto naslavljanje z linearnim preizkušanjem nad primitivnimi polji).
+     */
+    private static final class UuidIndex {
+
+        private long[] msb = new long[16];
+        private long[] lsb = new long[16];
+        private int[] table = new int[32];
+        private int size;
+
+        int find(UUID key) {
+            long hi = key.getMostSignificantBits();
+            long lo = key.getLeastSignificantBits();
+            int mask = table.length - 1;
+            for (int slot = hash(hi, lo) & mask; ; slot = (slot + 1) & mask) {
+                int ref = table[slot];
+                if (ref == 0) {
+                    return -1;
+                }
+                if (msb[ref - 1] == hi && lsb[ref - 1] == lo) {
+                    return ref - 1;
+                }
+            }
+        }
+
+        int add(UUID key) {
+            if (size == msb.length) {
+                msb = Arrays.copyOf(msb, size * 2);
+                lsb = Arrays.copyOf(lsb, size * 2);
+            }
+            int index = size++;
+            msb[index] = key.getMostSignificantBits();
+            lsb[index] = key.getLeastSignificantBits();
+            if (size * 2 > table.length) {
+                table = new int[table.length * 2];
+                for (int i = 0; i < size; i++) {
+                    insert(i);
+                }
+            } else {
+                insert(index);
+            }
+            return index;
+        }
+
+        UUID uuid(int index) {
+            return new UUID(msb[index], lsb[index]);
+        }
+
+        int size() {
+            return size;
+        }
+
+        long memoryBytes() {
+            return array(msb.length * 8L) + array(lsb.length * 8L) + array(table.length * 4L);
+        }
+
+        private void insert(int index) {
+            int mask = table.length - 1;
+            int slot = hash(msb[index], lsb[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+
+        private static int hash(long hi, long lo) {
+            long h = hi ^ lo;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return (int) h;
+        }
+    }
+}
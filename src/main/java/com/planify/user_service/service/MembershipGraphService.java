@@ -0,0 +1,222 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.event.CacheInvalidationBus;
+import com.planify.user_service.model.KeycloakRole;
+import com.planify.user_service.model.MembershipEdge;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.OrganizationMembershipRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Članstva v pomnilniku (MembershipGraph) za poizvedbe "člani organizacije", "organizacije uporabnika",
+ * "vloge uporabnika v organizaciji" in število članov.
+ * Graf se zgradi ob zagonu s pretočnim branjem tabele organization_memberships. Po vsakem zapisu članstev
+ * se po potrditvi transakcije iz baze znova naložijo članstva spremenjenega uporabnika, druge replike pa
+ * obvesti CacheInvalidationBus. Dokler graf ni pripravljen, poizvedbe vrnejo prazno in kličoči bere iz baze.
+ */
+@Service
+@Slf4j
+public class MembershipGraphService {
+
+    private final OrganizationMembershipRepository membershipRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionTemplate reloadTransaction;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private MembershipGraph graph = new MembershipGraph();
+    private boolean ready;
+    // Spremembe, ki prispejo med gradnjo grafa, ponovno uporabimo na novem grafu
+    private List<Consumer<MembershipGraph>> pending;
+
+    private final Timer lookupTimer;
+
+    public MembershipGraphService(OrganizationMembershipRepository membershipRepository,
+                                  CacheInvalidationBus cacheInvalidationBus,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${planify.membership-graph.enabled:true}") boolean enabled) {
+        this.membershipRepository = membershipRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.enabled = enabled;
+
+        // afterCommit se izvede po potrditvi, zato branje teče v novi transakciji. Ni readOnly, da se usmeri na
+        // primarno bazo: replika sprememb, po katerih osvežujemo, morda še nima
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.lookupTimer = Timer.builder("planify.membership-graph.lookup")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("planify.membership-graph.memory", this, s -> s.read(MembershipGraph::memoryBytes))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("planify.membership-graph.edges", this, s -> s.read(MembershipGraph::edgeCount))
+                .register(meterRegistry);
+        Gauge.builder("planify.membership-graph.nodes", this, s -> s.read(MembershipGraph::userCount))
+                .tag("type", "users")
+                .register(meterRegistry);
+        Gauge.builder("planify.membership-graph.nodes", this, s -> s.read(MembershipGraph::organizationCount))
+                .tag("type", "organizations")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        MembershipGraph newGraph = new MembershipGraph();
+        try (Stream<MembershipEdge> stream = membershipRepository.streamEdges()) {
+            stream.forEach(newGraph::add);
+        }
+
+        lock.writeLock().lock();
+        try {
+            graph = newGraph;
+            List<Consumer<MembershipGraph>> replay = pending;
+            pending = null;
+            replay.forEach(op -> op.accept(newGraph));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Membership graph built in {} ms ({} users, {} organizations, {} edges, {} KiB)",
+                System.currentTimeMillis() - start, newGraph.userCount(), newGraph.organizationCount(),
+                newGraph.edgeCount(), newGraph.memoryBytes() >> 10);
+    }
+
+    public Optional<List<MembershipGraph.Member>> membersOf(UUID orgId) {
+        return lookup(g -> g.membersOf(orgId));
+    }
+
+    public Optional<List<UUID>> organizationsOf(UUID userId) {
+        return lookup(g -> g.organizationsOf(userId));
+    }
+
+    public Optional<Set<KeycloakRole>> roles(UUID userId, UUID orgId) {
+        return lookup(g -> g.roles(userId, orgId));
+    }
+
+    public Optional<Integer> memberCount(UUID orgId) {
+        return lookup(g -> g.memberCount(orgId));
+    }
+
+    /**
+     * Članstva uporabnika so se spremenila: po potrditvi osvežimo graf in obvestimo druge replike.
+     */
+    public void membershipsChanged(UUID userId) {
+        membershipsChanged(List.of(userId));
+    }
+
+    public void membershipsChanged(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        cacheInvalidationBus.membershipsChanged(userIds);
+        reloadAfterCommit(List.copyOf(new LinkedHashSet<>(userIds)));
+    }
+
+    /**
+     * Obvestilo druge replike (CacheInvalidationListener). Bere s primarne baze, saj replika spremembe morda še nima.
+     */
+    @EventListener
+    @Transactional
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.type()) {
+            case MEMBERSHIP -> reloadAfterCommit(List.of(event.id()));
+            case ALL -> rebuild();
+            default -> {
+            }
+        }
+    }
+
+    private void reloadAfterCommit(List<UUID> userIds) {
+        if (!enabled) {
+            return;
+        }
+        Runnable apply = () -> {
+            // Članstva vseh spremenjenih uporabnikov naložimo z eno poizvedbo
+            List<MembershipEdge> loaded = reloadTransaction.execute(status -> membershipRepository.findEdgesByUserIdIn(userIds));
+            Map<UUID, List<MembershipEdge>> byUser = new HashMap<>();
+            for (MembershipEdge edge : loaded) {
+                byUser.computeIfAbsent(edge.userId(), id -> new ArrayList<>()).add(edge);
+            }
+            Consumer<MembershipGraph> op = g -> userIds.forEach(id -> g.replaceUser(id, byUser.getOrDefault(id, List.of())));
+            lock.writeLock().lock();
+            try {
+                op.accept(graph);
+                if (pending != null) {
+                    pending.add(op);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+
+        // Stanje preberemo šele, ko je transakcija potrjena
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private <T> Optional<T> lookup(Function<MembershipGraph, T> query) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            return Optional.of(lookupTimer.record(() -> query.apply(graph)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double read(Function<MembershipGraph, Number> metric) {
+        lock.readLock().lock();
+        try {
+            return metric.apply(graph).doubleValue();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.UserProfile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Profili uporabnikov v direktnih (off-heap) ByteBuffer-jih z zapisi fiksne dolžine.
+ * Tudi oba indeksa (po id-ju in po keycloak id-ju) sta odprto naslovljeni zgoščeni tabeli v direktnem pomnilniku,
+ * zato milijon profilov ne ustvari nobenega dolgoživega objekta na kopici.
+ * Pisanje je serializirano, branje pa poteka brez zaklepanja (optimistično) in se ob sočasnem pisanju ponovi.
+ * Vrednosti, daljše od kapacitete polja, se ne shranijo; put takrat vrne false in bralci gredo v bazo.
+ */
+public class OffHeapUserProfileStore {
+
+    // Postavitev zapisa
+    private static final int FLAGS = 0;
+    private static final int ID = 1;
+    private static final int KEYCLOAK_ID = 17;
+    private static final int CREATED_AT = 33;
+    private static final int STRINGS = 41;
+
+    private static final int EMAIL = 0;
+    private static final int USERNAME = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int LAST_NAME = 3;
+    private static final int PHONE = 4;
+    private static final int[] STRING_CAPACITY = {96, 64, 64, 64, 24};
+    private static final int[] STRING_OFFSET = new int[STRING_CAPACITY.length];
+    static final int RECORD_SIZE;
+
+    static {
+        int offset = STRINGS;
+        for (int i = 0; i < STRING_CAPACITY.length; i++) {
+            STRING_OFFSET[i] = offset;
+            // En bajt dolžine + UTF-8 bajti
+            offset += 1 + STRING_CAPACITY[i];
+        }
+        RECORD_SIZE = (offset + 7) & ~7;
+    }
+
+    private static final byte LIVE = 1;
+    private static final byte EMAIL_CONSENT = 2;
+    private static final byte SMS_CONSENT = 4;
+    private static final int NULL_LENGTH = 0xFF;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int MAX_CAPACITY = 1 << 25;
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private final int capacity;
+    private final ByteBuffer[] segments;
+    private final UuidIndex byId;
+    private final UuidIndex byKeycloakId;
+    private final StampedLock lock = new StampedLock();
+
+    private int records;
+    private int live;
+
+    public OffHeapUserProfileStore(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        this.capacity = capacity;
+        this.segments = new ByteBuffer[(capacity + SEGMENT_RECORDS - 1) >>> SEGMENT_SHIFT];
+        this.byId = new UuidIndex(capacity);
+        this.byKeycloakId = new UuidIndex(capacity);
+    }
+
+    /**
+     * Shrani ali prepiše profil. Vrne false, če je shramba polna ali vrednost ne gre v zapis.
+     */
+    public boolean put(UserProfile profile) {
+        byte[][] strings = {
+                utf8(profile.email()), utf8(profile.username()), utf8(profile.firstName()),
+                utf8(profile.lastName()), utf8(profile.phoneNumber())
+        };
+        long stamp = lock.writeLock();
+        try {
+            int record = byId.find(profile.id());
+            boolean fits = true;
+            for (int i = 0; i < strings.length; i++) {
+                fits &= strings[i] == null || strings[i].length <= STRING_CAPACITY[i];
+            }
+            if (!fits || (record < 0 && records == capacity)) {
+                // Morebitni star zapis ne sme ostati viden
+                if (record >= 0) {
+                    markRemoved(record);
+                }
+                return false;
+            }
+
+            if (record < 0) {
+                record = records++;
+                int segment = record >>> SEGMENT_SHIFT;
+                if (segments[segment] == null) {
+                    int segmentRecords = Math.min(SEGMENT_RECORDS, capacity - (segment << SEGMENT_SHIFT));
+                    segments[segment] = ByteBuffer.allocateDirect(segmentRecords * RECORD_SIZE);
+                }
+                byId.put(profile.id(), record);
+            }
+
+            ByteBuffer buf = segments[record >>> SEGMENT_SHIFT];
+            int base = (record & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+            boolean wasLive = (buf.get(base + FLAGS) & LIVE) != 0;
+
+            buf.putLong(base + ID, profile.id().getMostSignificantBits());
+            buf.putLong(base + ID + 8, profile.id().getLeastSignificantBits());
+            buf.putLong(base + KEYCLOAK_ID, profile.keycloakId().getMostSignificantBits());
+            buf.putLong(base + KEYCLOAK_ID + 8, profile.keycloakId().getLeastSignificantBits());
+            buf.putLong(base + CREATED_AT, toMicros(profile.createdAt()));
+            for (int i = 0; i < strings.length; i++) {
+                int offset = base + STRING_OFFSET[i];
+                if (strings[i] == null) {
+                    buf.put(offset, (byte) NULL_LENGTH);
+                } else {
+                    buf.put(offset, (byte) strings[i].length);
+                    buf.put(offset + 1, strings[i]);
+                }
+            }
+            byte flags = LIVE;
+            if (profile.emailConsent()) {
+                flags |= EMAIL_CONSENT;
+            }
+            if (profile.smsConsent()) {
+                flags |= SMS_CONSENT;
+            }
+            buf.put(base + FLAGS, flags);
+
+            if (!wasLive) {
+                live++;
+            }
+            if (!byKeycloakId.put(profile.keycloakId(), record)) {
+                markRemoved(record);
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Označi profil kot odstranjen. Zapis ostane rezerviran za morebitni ponovni put istega id-ja.
+     */
+    public boolean remove(UUID id) {
+        long stamp = lock.writeLock();
+        try {
+            int record = byId.find(id);
+            return record >= 0 && markRemoved(record);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Optional<UserProfile> get(UUID id) {
+        return read(id, false);
+    }
+
+    public Optional<UserProfile> getByKeycloakId(UUID keycloakId) {
+        return read(keycloakId, true);
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return live;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Zaseden direktni pomnilnik (segmenti zapisov in oba indeksa).
+     */
+    public long memoryBytes() {
+        long stamp = lock.readLock();
+        try {
+            long bytes = byId.bytes() + byKeycloakId.bytes();
+            for (ByteBuffer segment : segments) {
+                if (segment != null) {
+                    bytes += segment.capacity();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Optional<UserProfile> read(UUID key, boolean byKeycloak) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                UserProfile profile = readUnlocked(key, byKeycloak);
+                if (lock.validate(stamp)) {
+                    return Optional.ofNullable(profile);
+                }
+            } catch (RuntimeException e) {
+                // Sočasno pisanje; ponovimo pod bralnim ključem
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return Optional.ofNullable(readUnlocked(key, byKeycloak));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private UserProfile readUnlocked(UUID key, boolean byKeycloak) {
+        int record = byKeycloak ? byKeycloakId.find(key) : byId.find(key);
+        if (record < 0) {
+            return null;
+        }
+        ByteBuffer buf = segments[record >>> SEGMENT_SHIFT];
+        int base = (record & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+        byte flags = buf.get(base + FLAGS);
+        if ((flags & LIVE) == 0) {
+            return null;
+        }
+
+        UUID keycloakId = new UUID(buf.getLong(base + KEYCLOAK_ID), buf.getLong(base + KEYCLOAK_ID + 8));
+        // Indeks po keycloak id-ju lahko še kaže na zapis, ki je medtem dobil drug keycloak id
+        if (byKeycloak && !keycloakId.equals(key)) {
+            return null;
+        }
+        return new UserProfile(
+                new UUID(buf.getLong(base + ID), buf.getLong(base + ID + 8)),
+                keycloakId,
+                readString(buf, base, EMAIL),
+                readString(buf, base, USERNAME),
+                readString(buf, base, FIRST_NAME),
+                readString(buf, base, LAST_NAME),
+                readString(buf, base, PHONE),
+                (flags & EMAIL_CONSENT) != 0,
+                (flags & SMS_CONSENT) != 0,
+                fromMicros(buf.getLong(base + CREATED_AT))
+        );
+    }
+
+    private boolean markRemoved(int record) {
+        ByteBuffer buf = segments[record >>> SEGMENT_SHIFT];
+        int base = (record & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+        byte flags = buf.get(base + FLAGS);
+        if ((flags & LIVE) == 0) {
+            return false;
+        }
+        buf.put(base + FLAGS, (byte) (flags & ~LIVE));
+        live--;
+        return true;
+    }
+
+    private static String readString(ByteBuffer buf, int base, int field) {
+        int offset = base + STRING_OFFSET[field];
+        int length = buf.get(offset) & 0xFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] scratch = SCRATCH.get();
+        buf.get(offset + 1, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Zgoščena tabela UUID -> številka zapisa z linearnim preizkušanjem v direktnem pomnilniku.
+     * Reža: msb (8 B), lsb (8 B), številka zapisa + 1 (4 B; 0 pomeni prazno režo).
+     * Ključi se ne brišejo; zasedenost je omejena na 75 %, da iskanje vedno naleti na prazno režo.
+     */
+    private static final class UuidIndex {
+
+        private static final int SLOT_SIZE = 20;
+
+        private final ByteBuffer table;
+        private final int mask;
+        private final int maxKeys;
+        private int keys;
+
+        UuidIndex(int capacity) {
+            int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            this.table = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+            this.mask = slots - 1;
+            this.maxKeys = slots / 4 * 3;
+        }
+
+        int find(UUID key) {
+            long msb = key.getMostSignificantBits();
+            long lsb = key.getLeastSignificantBits();
+            for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+                int offset = slot * SLOT_SIZE;
+                int ref = table.getInt(offset + 16);
+                if (ref == 0) {
+                    return -1;
+                }
+                if (table.getLong(offset) == msb && table.getLong(offset + 8) == lsb) {
+                    return ref - 1;
+                }
+            }
+        }
+
+        boolean put(UUID key, int record) {
+            long msb = key.getMostSignificantBits();
+            long lsb = key.getLeastSignificantBits();
+            for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+                int offset = slot * SLOT_SIZE;
+                int ref = table.getInt(offset + 16);
+                if (ref == 0) {
+                    if (keys == maxKeys) {
+                        return false;
+                    }
+                    keys++;
+                    table.putLong(offset, msb);
+                    table.putLong(offset + 8, lsb);
+                    // Referenco zapišemo zadnjo, da optimistični bralec ne vidi polovične reže
+                    table.putInt(offset + 16, record + 1);
+                    return true;
+                }
+                if (table.getLong(offset) == msb && table.getLong(offset + 8) == lsb) {
+                    table.putInt(offset + 16, record + 1);
+                    return true;
+                }
+            }
+        }
+
+        long bytes() {
+            return table.capacity();
+        }
+
+        private static int hash(long msb, long lsb) {
+            long h = msb ^ lsb;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return (int) h;
+        }
+    }
+}
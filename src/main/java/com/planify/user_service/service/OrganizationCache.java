@@ -0,0 +1,113 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.config.CacheConfig;
+import com.planify.user_service.model.OrganizationProfile;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.OrganizationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Predpomnilnik organizacij po id-ju in po slug-u.
+ * Hrani nespremenljive OrganizationProfile (brez lenobnih kolekcij), zato jih lahko niti varno delijo;
+ * za povezave pri zapisu kličoči uporabijo OrganizationRepository.getReferenceById.
+ * Ob spremembi ali izbrisu organizacije je treba poklicati evict; druge replike o tem obvesti CacheInvalidationBus.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizationCache {
+
+    private final OrganizationRepository organizationRepository;
+    private final CacheManager cacheManager;
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ORGANIZATIONS, unless = "#result == null")
+    public OrganizationProfile findById(UUID orgId) {
+        return organizationRepository.findById(orgId).map(OrganizationProfile::of).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ORGANIZATIONS_BY_SLUG, unless = "#result == null")
+    public OrganizationProfile findBySlug(String slug) {
+        return organizationRepository.findBySlug(slug).map(OrganizationProfile::of).orElse(null);
+    }
+
+    /**
+     * Odstrani organizacijo iz obeh predpomnilnikov.
+     */
+    public void evict(UUID orgId) {
+        Cache byId = cacheManager.getCache(CacheConfig.ORGANIZATIONS);
+        Cache bySlug = cacheManager.getCache(CacheConfig.ORGANIZATIONS_BY_SLUG);
+
+        OrganizationProfile cached = byId != null ? byId.get(orgId, OrganizationProfile.class) : null;
+        if (byId != null) {
+            byId.evict(orgId);
+        }
+        if (bySlug == null) {
+            return;
+        }
+        if (cached != null) {
+            bySlug.evict(cached.slug());
+        }
+        // Slug se je lahko spremenil ali pa vnos po id-ju ni bil v predpomnilniku
+        if (bySlug instanceof CaffeineCache caffeine) {
+            caffeine.getNativeCache().asMap().values().removeIf(v ->
+                    v instanceof OrganizationProfile org && orgId.equals(org.id()));
+        } else {
+            bySlug.clear();
+        }
+        log.debug("Organization {} evicted from cache", orgId);
+    }
+
+    /**
+     * Odstrani organizacijo iz predpomnilnika po uspešni potrditvi transakcije,
+     * da ga sočasno branje ne napolni znova s starim stanjem.
+     */
+    public void evictAfterCommit(UUID orgId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(orgId);
+                }
+            });
+        } else {
+            evict(orgId);
+        }
+    }
+
+    /**
+     * Obvestilo druge replike (CacheInvalidationListener).
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        switch (event.type()) {
+            case ORGANIZATION -> evict(event.id());
+            case ALL -> {
+                clear(CacheConfig.ORGANIZATIONS);
+                clear(CacheConfig.ORGANIZATIONS_BY_SLUG);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.planify.user_service.service;
 
+import com.planify.user_service.event.CacheInvalidationBus;
 import com.planify.user_service.event.KafkaProducer;
 import com.planify.user_service.model.*;
 import com.planify.user_service.model.event.InvitationSentEvent;
@@ -7,6 +8,10 @@ import com.planify.user_service.model.event.JoinRequestRespondedEvent;
 import com.planify.user_service.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,22 +24,43 @@ import java.util.*;
 @Slf4j
 public class OrganizationService {
 
+    private static final int HISTORY_MAX_PAGE_SIZE = 100;
+
     private final OrganizationRepository organizationRepository;
     private final OrganizationMembershipRepository membershipRepository;
     private final UserRepository userRepository;
     private final InvitationRepository invitationRepository;
     private final OrganizationMembershipRepository organizationMembershipRepository;
     private final JoinRequestRepository joinRequestRepository;
+    private final JoinRequestArchiveRepository joinRequestArchiveRepository;
+    private final InvitationArchiveRepository invitationArchiveRepository;
 
     private final AuthService authService;
 
     private final KafkaProducer kafkaProducer;
+    private final AutocompleteService autocompleteService;
+    private final AvailabilityService availabilityService;
+    private final OrganizationCache organizationCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final MembershipGraphService membershipGraphService;
+    private final UserProfileCache userProfileCache;
+
+    @Value("${planify.invitations.bulk-max-size:500}")
+    private int bulkInviteMaxSize;
+
+    @Value("${planify.join-requests.bulk-max-size:500}")
+    private int bulkModerationMaxSize;
 
     /**
      * Ustvari novo organizacijo in dodeli glavnega uporabnika vlogo ORG_ADMIN.
      */
     @Transactional
     public OrganizationEntity createOrganization(Organization organization) {
+        // Zaseden slug zavrnemo pred ustvarjanjem administratorja v Keycloak-u
+        if (organization.getSlug() != null && !availabilityService.isSlugAvailable(organization.getSlug())) {
+            throw new RuntimeException("Organization slug already exists");
+        }
+
         RegisterRequest req = new RegisterRequest();
         req.setEmail(organization.getEmail());
         req.setUsername(organization.getSlug() + "_admin");
@@ -54,6 +80,8 @@ public class OrganizationService {
         org.setCreatedAt(LocalDateTime.now());
 
         OrganizationEntity savedOrg = organizationRepository.save(org);
+        autocompleteService.organizationCreated(savedOrg);
+        availabilityService.organizationCreated(savedOrg);
 
         // Dodaj ustvarjalca kot ORG_ADMIN
         OrganizationMembershipEntity membership = new OrganizationMembershipEntity();
@@ -63,11 +91,14 @@ public class OrganizationService {
         membership.setCreatedAt(LocalDateTime.now());
 
         membershipRepository.save(membership);
+        cacheInvalidationBus.organizationChanged(savedOrg.getId());
+        membershipGraphService.membershipsChanged(userCreated.getId());
 
         log.info("Organization {} created by user {}", savedOrg.getId(), userCreated.getId());
         return savedOrg;
     }
 
+    @Transactional(readOnly = true)
     public List<OrganizationMembershipEntity> getOrganizationUsers(UUID orgId) {
         return membershipRepository.findByOrganizationId(orgId);
     }
@@ -79,9 +110,24 @@ public class OrganizationService {
                 .toList();
     }
 
-    private OrganizationEntity getOrganization(UUID orgId) {
-        return organizationRepository.findById(orgId)
-                .orElseThrow(() -> new RuntimeException("Organization not found"));
+    public OrganizationEntity getOrganizationById(UUID orgId) {
+        return getOrganization(orgId).toEntity();
+    }
+
+    public OrganizationEntity getOrganizationBySlug(String slug) {
+        OrganizationProfile org = organizationCache.findBySlug(slug);
+        if (org == null) {
+            throw new RuntimeException("Organization not found");
+        }
+        return org.toEntity();
+    }
+
+    private OrganizationProfile getOrganization(UUID orgId) {
+        OrganizationProfile org = organizationCache.findById(orgId);
+        if (org == null) {
+            throw new RuntimeException("Organization not found");
+        }
+        return org;
     }
 
     private UserEntity getUser(UUID userId) {
@@ -93,15 +139,94 @@ public class OrganizationService {
         return membershipRepository.findByUserIdAndOrganizationId(userId, orgId);
     }
 
+    @Transactional(readOnly = true)
     public List<JoinRequestEntity> getJoinRequests(UUID orgId) {
         return joinRequestRepository.findByOrganizationIdAndStatus(orgId, JoinRequestStatus.PENDING);
     }
 
+    /**
+     * Zgodovina obdelanih prošenj organizacije, od najnovejše naprej.
+     * Združi še nearhivirane vrstice iz glavne tabele in vrstice iz arhiva.
+     */
+    @Transactional(readOnly = true)
+    public List<JoinRequestHistoryEntry> getJoinRequestHistory(UUID orgId, int page, int size) {
+        Pageable head = historyHead(page, size);
+        return mergeHistory(
+                joinRequestRepository.findHistoryByOrganizationId(orgId, head),
+                joinRequestArchiveRepository.findHistoryByOrganizationId(orgId, head),
+                Comparator.comparing(JoinRequestHistoryEntry::createdAt).reversed(),
+                page, size);
+    }
+
+    /**
+     * Zgodovina razrešenih povabil organizacije, od najnovejšega naprej.
+     * Združi še nearhivirane vrstice iz glavne tabele in vrstice iz arhiva.
+     */
+    @Transactional(readOnly = true)
+    public List<InvitationHistoryEntry> getInvitationHistory(UUID orgId, int page, int size) {
+        Pageable head = historyHead(page, size);
+        return mergeHistory(
+                invitationRepository.findHistoryByOrganizationId(orgId, head),
+                invitationArchiveRepository.findHistoryByOrganizationId(orgId, head),
+                Comparator.comparing(InvitationHistoryEntry::createdAt).reversed(),
+                page, size);
+    }
+
+    private Pageable historyHead(int page, int size) {
+        if (page < 0 || size < 1 || size > HISTORY_MAX_PAGE_SIZE) {
+            throw new RuntimeException("Page must be >= 0 and size between 1 and " + HISTORY_MAX_PAGE_SIZE);
+        }
+        // Iz vsakega vira potrebujemo največ (page + 1) * size najnovejših vrstic
+        return PageRequest.of(0, (page + 1) * size);
+    }
+
+    private <T> List<T> mergeHistory(List<T> hot, List<T> archived, Comparator<T> order, int page, int size) {
+        List<T> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        merged.addAll(archived);
+        merged.sort(order);
+        int from = Math.min(page * size, merged.size());
+        int to = Math.min(from + size, merged.size());
+        return merged.subList(from, to);
+    }
+
+    @Transactional(readOnly = true)
     public OrganizationSummary getOrganizationByAdmin(UUID adminId) {
         return organizationMembershipRepository.findOrganizationByAdmin(adminId).orElseThrow(() -> new RuntimeException("User is not admin of any organization"));
     }
 
+    @Transactional(readOnly = true)
     public List<UserRoles> getUsersAndRoles(UUID orgId) {
+        Optional<List<MembershipGraph.Member>> members = membershipGraphService.membersOf(orgId);
+        if (members.isEmpty()) {
+            return getUsersAndRolesFromDatabase(orgId);
+        }
+
+        // Članstva in vloge iz grafa, podatke uporabnikov iz shrambe profilov ali z enim branjem po primarnem ključu
+        List<UUID> userIds = members.get().stream().map(MembershipGraph.Member::userId).toList();
+        Map<UUID, UserProfile> profiles = new HashMap<>();
+        userProfileCache.getAll(userIds).ifPresentOrElse(
+                list -> list.forEach(p -> profiles.put(p.id(), p)),
+                () -> userRepository.findAllById(userIds).forEach(u -> profiles.put(u.getId(), UserProfile.of(u))));
+
+        List<UserRoles> result = new ArrayList<>(userIds.size());
+        for (MembershipGraph.Member member : members.get()) {
+            UserProfile profile = profiles.get(member.userId());
+            if (profile == null) {
+                continue;
+            }
+            UserRoles ur = new UserRoles();
+            ur.setUserId(member.userId());
+            ur.setUsername(profile.username());
+            ur.setFirstName(profile.firstName());
+            ur.setLastName(profile.lastName());
+            ur.setRoles(new ArrayList<>(member.roles()));
+            result.add(ur);
+        }
+        return result;
+    }
+
+    private List<UserRoles> getUsersAndRolesFromDatabase(UUID orgId) {
         List<OrganizationMembershipEntity> memberships =
                 organizationMembershipRepository.findByOrganizationId(orgId);
 
@@ -130,7 +255,13 @@ public class OrganizationService {
         return new ArrayList<>(byUserId.values());
     }
 
+    @Transactional(readOnly = true)
     public List<UUID> getKeycloakUsers(UUID orgId) {
+        Optional<List<MembershipGraph.Member>> members = membershipGraphService.membersOf(orgId);
+        if (members.isPresent()) {
+            return members.get().stream().map(MembershipGraph.Member::keycloakId).toList();
+        }
+
         List<OrganizationMembershipEntity> memberships =
                 organizationMembershipRepository.findByOrganizationId(orgId);
         List<UUID> userIds = memberships.stream().map(OrganizationMembershipEntity::getUser).map(UserEntity::getKeycloakId).toList();
@@ -139,6 +270,13 @@ public class OrganizationService {
         return userIds;
     }
 
+    public long getMemberCount(UUID orgId) {
+        return membershipGraphService.memberCount(orgId)
+                .map(Integer::longValue)
+                .orElseGet(() -> membershipRepository.countMembersByOrganizationId(orgId));
+    }
+
+    @Transactional(readOnly = true)
     public List<OrganizationEntity> searchOrgs(String serachValue) {
         return organizationRepository.findOrgsBySearchValue(serachValue);
     }
@@ -150,93 +288,99 @@ public class OrganizationService {
             throw new RuntimeException("Only administartor can remove members");
         }
 
-        List<OrganizationMembershipEntity> membership = getMembership(orgId, userId);
-
         if (userId == requestedByUserId) {
             throw new RuntimeException("You cannot remove yourself from organization.");
         }
 
-        membershipRepository.deleteAllById(membership.stream().map(OrganizationMembershipEntity::getId).toList());
-        // Preveri ali ima uporabnik, katero od vlog v katerikoli drugi organizaciji
-        List<OrganizationMembershipEntity> userMemberships = membershipRepository.findByUserId(userId);
-        for (OrganizationMembershipEntity m : membership) {
-            long cnt = userMemberships.stream()
-                    .filter(um -> um.getRole().equals(m.getRole()) && !um.getOrganization().getId().equals(orgId))
-                    .count();
-            if (cnt == 0) {
-                // Če nima v nobeni drugi, odstrani to vlogo iz Keycloaka
-                UserEntity user = getUser(userId);
-                authService.removeRole(user.getKeycloakId(), m.getRole());
-            }
-        }
+        deleteMemberships(orgId, userId);
         log.info("User {} removed from organization {}", userId, orgId);
     }
 
     @Transactional
     public void removeMyselfFromOrganization(UUID orgId, UUID userId) {
+        deleteMemberships(orgId, userId);
+        log.info("User {} removed from organization {}", userId, orgId);
+    }
+
+    private void deleteMemberships(UUID orgId, UUID userId) {
         List<OrganizationMembershipEntity> membership = getMembership(orgId, userId);
 
-        membershipRepository.deleteAllById(membership.stream().map(OrganizationMembershipEntity::getId).toList());
+        // Vse vloge v organizaciji izbrišemo z enim DELETE stavkom
+        membershipRepository.bulkDeleteByUserIdAndOrganizationId(userId, orgId);
+        membershipGraphService.membershipsChanged(userId);
         // Preveri ali ima uporabnik, katero od vlog v katerikoli drugi organizaciji
         List<OrganizationMembershipEntity> userMemberships = membershipRepository.findByUserId(userId);
+        Set<KeycloakRole> rolesToRemove = EnumSet.noneOf(KeycloakRole.class);
         for (OrganizationMembershipEntity m : membership) {
             long cnt = userMemberships.stream()
                     .filter(um -> um.getRole().equals(m.getRole()) && !um.getOrganization().getId().equals(orgId))
                     .count();
             if (cnt == 0) {
                 // Če nima v nobeni drugi, odstrani to vlogo iz Keycloaka
-                UserEntity user = getUser(userId);
-                authService.removeRole(user.getKeycloakId(), m.getRole());
+                rolesToRemove.add(m.getRole());
             }
         }
-        log.info("User {} removed from organization {}", userId, orgId);
+        if (!rolesToRemove.isEmpty()) {
+            authService.removeRoles(getUser(userId).getKeycloakId(), rolesToRemove);
+        }
     }
 
     @Transactional
     public InvitationEntity inviteUserToOrganization(UUID orgId, UUID userId, UUID requestedByUserId, KeycloakRole role) {
-        // Preveri, da ima requestedByUserId vloga ORG_ADMIN
-        if (!isUserOrgAdmin(orgId, requestedByUserId)) {
+        KeycloakRole invitedRole = role != null ? role : KeycloakRole.GUEST;
+
+        // Vsa preverjanja opravimo z eno poizvedbo
+        Optional<MembershipPrecondition> result =
+                membershipRepository.checkPreconditions(orgId, userId, requestedByUserId, invitedRole);
+
+        // Preveri, da ima requestedByUserId vloga ORG_ADMIN; brez vrstice (neznana organizacija ali uporabnik)
+        // pravice preverimo posebej, da ne-administrator ne izve, kateri id-ji obstajajo
+        boolean requesterAdmin = result.isPresent()
+                ? result.get().has(MembershipPrecondition.REQUESTER_ADMIN)
+                : isUserOrgAdmin(orgId, requestedByUserId);
+        if (!requesterAdmin) {
             throw new RuntimeException("Only administrator can add new members");
         }
 
-        OrganizationEntity org = getOrganization(orgId);
-        UserEntity invitedUser = getUser(userId);
+        MembershipPrecondition precondition = result.orElseThrow(() -> {
+            getOrganization(orgId);
+            return new RuntimeException("User not found");
+        });
+        OrganizationEntity org = precondition.getOrganization();
+        UserEntity invitedUser = precondition.getUser();
 
         // Ne moremo povabiti uporabnika, če povabilo že obstaja
-        List<InvitationEntity> pendingInvites =
-                invitationRepository.findByOrganizationIdAndStatusAndUserId(orgId, InvitationStatus.PENDING, userId);
-
-        if (!pendingInvites.isEmpty()) {
+        if (precondition.has(MembershipPrecondition.PENDING_INVITATION)) {
             throw new RuntimeException("User already has a pending invitation");
         }
 
         // Nemoremo povabiti uporabnika, ki je že poslal join request
-        List<JoinRequestEntity> requests = joinRequestRepository.findByUserIdAndOrganizationId(userId, orgId)
-                .stream()
-                .filter(jr -> jr.getStatus() == JoinRequestStatus.PENDING).toList();
-        if (!requests.isEmpty()) {
+        if (precondition.has(MembershipPrecondition.PENDING_JOIN_REQUEST)) {
             throw new RuntimeException("User already has a pending join request");
         }
 
         // Ne moremo povabiti uporabnika, ki je že del organizacije
-        Optional<OrganizationMembershipEntity> inOrganization =
-                organizationMembershipRepository.findByUserIdAndOrganizationIdAndRole(userId, orgId, role);
-
-        if (inOrganization.isPresent()) {
-            throw new RuntimeException("User already has role " + role.getValue() + " in the organization");
+        if (precondition.has(MembershipPrecondition.HAS_ROLE)) {
+            throw new RuntimeException("User already has role " + invitedRole.getValue() + " in the organization");
         }
 
         InvitationEntity invitation = new InvitationEntity();
         invitation.setOrganization(org);
         invitation.setUser(invitedUser);
-        invitation.setRole(role != null ? role : KeycloakRole.GUEST);
+        invitation.setRole(invitedRole);
         invitation.setToken(UUID.randomUUID().toString().replace("-", ""));
         invitation.setStatus(InvitationStatus.PENDING);
         invitation.setCreatedAt(LocalDateTime.now());
         invitation.setExpiresAt(LocalDateTime.now().plusDays(7));
         invitation.setCreatedByUserId(requestedByUserId);
 
-        InvitationEntity saved = invitationRepository.save(invitation);
+        InvitationEntity saved;
+        try {
+            // Delni unikatni indeks dovoli le eno čakajoče povabilo na (uporabnik, organizacija)
+            saved = invitationRepository.saveAndFlush(invitation);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("User already has a pending invitation");
+        }
 
         // Sproižimo Kafka dogodek, da je poslano novo vabilo v organizacijo
         var event = new InvitationSentEvent(
@@ -255,6 +399,136 @@ public class OrganizationService {
         return saved;
     }
 
+    /**
+     * Povabi več uporabnikov naenkrat. Preverjanja se izvedejo z nekaj poizvedbami nad celotno množico,
+     * povabila se zapišejo v JDBC batch-ih, rezultat pa vsebuje izid za vsakega uporabnika.
+     */
+    @Transactional
+    public List<BulkInvitationResult> inviteUsersToOrganization(UUID orgId,
+                                                                List<BulkInvitationItem> items,
+                                                                UUID requestedByUserId) {
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("At least one user must be invited");
+        }
+        if (items.size() > bulkInviteMaxSize) {
+            throw new RuntimeException("At most " + bulkInviteMaxSize + " users can be invited at once");
+        }
+
+        // Preveri, da ima requestedByUserId vloga ORG_ADMIN
+        if (!isUserOrgAdmin(orgId, requestedByUserId)) {
+            throw new RuntimeException("Only administrator can add new members");
+        }
+
+        OrganizationProfile org = getOrganization(orgId);
+        // Povezava brez branja; predpomnjenega profila ne vežemo na nove entitete
+        OrganizationEntity orgRef = organizationRepository.getReferenceById(orgId);
+
+        Set<UUID> userIds = new HashSet<>();
+        for (BulkInvitationItem item : items) {
+            if (item.userId() != null) {
+                userIds.add(item.userId());
+            }
+        }
+
+        // Stanje za vse uporabnike pridobimo z množičnimi poizvedbami
+        Map<UUID, UserEntity> users = new HashMap<>();
+        for (UserEntity u : userRepository.findByIdInAndDeletedAtIsNull(userIds)) {
+            users.put(u.getId(), u);
+        }
+        Map<UUID, Set<KeycloakRole>> memberRoles = new HashMap<>();
+        for (MemberRole m : membershipRepository.findRolesByOrganizationIdAndUserIdIn(orgId, userIds)) {
+            memberRoles.computeIfAbsent(m.userId(), k -> EnumSet.noneOf(KeycloakRole.class)).add(m.role());
+        }
+        Set<UUID> pendingInvites = new HashSet<>(invitationRepository.findPendingUserIds(orgId, userIds));
+        Set<UUID> pendingRequests = new HashSet<>(joinRequestRepository.findPendingUserIds(orgId, userIds));
+
+        List<BulkInvitationResult> results = new ArrayList<>(items.size());
+        List<InvitationEntity> invitations = new ArrayList<>();
+        List<Integer> invitationPositions = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (BulkInvitationItem item : items) {
+            UUID userId = item.userId();
+            KeycloakRole invitedRole = item.role() != null ? item.role() : KeycloakRole.GUEST;
+
+            if (userId == null) {
+                results.add(BulkInvitationResult.failed(null, "User id must not be null"));
+                continue;
+            }
+            if (!seen.add(userId)) {
+                results.add(BulkInvitationResult.failed(userId, "User is listed more than once"));
+                continue;
+            }
+            UserEntity invitedUser = users.get(userId);
+            if (invitedUser == null) {
+                results.add(BulkInvitationResult.failed(userId, "User not found"));
+                continue;
+            }
+            if (pendingInvites.contains(userId)) {
+                results.add(BulkInvitationResult.failed(userId, "User already has a pending invitation"));
+                continue;
+            }
+            if (pendingRequests.contains(userId)) {
+                results.add(BulkInvitationResult.failed(userId, "User already has a pending join request"));
+                continue;
+            }
+            if (memberRoles.getOrDefault(userId, Set.of()).contains(invitedRole)) {
+                results.add(BulkInvitationResult.failed(userId,
+                        "User already has role " + invitedRole.getValue() + " in the organization"));
+                continue;
+            }
+
+            InvitationEntity invitation = new InvitationEntity();
+            invitation.setOrganization(orgRef);
+            invitation.setUser(invitedUser);
+            invitation.setRole(invitedRole);
+            invitation.setToken(UUID.randomUUID().toString().replace("-", ""));
+            invitation.setStatus(InvitationStatus.PENDING);
+            invitation.setCreatedAt(now);
+            invitation.setExpiresAt(now.plusDays(7));
+            invitation.setCreatedByUserId(requestedByUserId);
+            invitations.add(invitation);
+            // Mesto rezultata rezerviramo, da izidi ohranijo vrstni red zahtevka
+            invitationPositions.add(results.size());
+            results.add(null);
+        }
+
+        if (invitations.isEmpty()) {
+            return results;
+        }
+
+        try {
+            // INSERT-i gredo v bazo v batch-ih velikosti hibernate.jdbc.batch_size
+            invitationRepository.saveAll(invitations);
+            invitationRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Some users received an invitation concurrently, please retry");
+        }
+
+        List<InvitationSentEvent> events = new ArrayList<>(invitations.size());
+        for (int i = 0; i < invitations.size(); i++) {
+            InvitationEntity invitation = invitations.get(i);
+            UserEntity invitedUser = invitation.getUser();
+            results.set(invitationPositions.get(i), BulkInvitationResult.invited(invitedUser.getId(), invitation.getId()));
+            events.add(new InvitationSentEvent(
+                    invitation.getId(),
+                    orgId,
+                    org.name(),
+                    invitedUser.getKeycloakId(),
+                    invitedUser.getFirstName(),
+                    invitedUser.getLastName(),
+                    invitedUser.getEmailConsent() ? invitedUser.getEmail() : null,
+                    Instant.now()
+            ));
+        }
+        kafkaProducer.publishInvitationSentEvents(events);
+
+        log.info("{} of {} users invited to organization {} by {}",
+                invitations.size(), items.size(), orgId, requestedByUserId);
+        return results;
+    }
+
     @Transactional
     public void approveJoinRequest(UUID orgId, UUID userId, UUID joinRequestId) {
         // Preveri, da ima requestedByUserId vloga ORG_ADMIN
@@ -262,8 +536,9 @@ public class OrganizationService {
             throw new RuntimeException("Only administrator can add new members");
         }
 
-        JoinRequestEntity joinRequest = joinRequestRepository.findById(joinRequestId)
-            .orElseThrow(() -> new RuntimeException("Join request not found"));
+        // Vrstico zaklenemo, da isto prošnjo ne moreta hkrati obdelati dva administratorja
+        JoinRequestEntity joinRequest = joinRequestRepository.findByIdForUpdate(joinRequestId)
+                .orElseThrow(() -> new RuntimeException("Join request not found"));
 
         if (!joinRequest.getOrganization().getId().equals(orgId)) {
             throw new RuntimeException("Join request does not belong to this organization");
@@ -289,6 +564,7 @@ public class OrganizationService {
         membership.setCreatedAt(LocalDateTime.now());
 
         membershipRepository.save(membership);
+        membershipGraphService.membershipsChanged(requestByUser.getId());
 
         UserEntity user = getUser(requestByUser.getId());
         authService.assignRole(user.getKeycloakId(), KeycloakRole.GUEST);
@@ -300,18 +576,7 @@ public class OrganizationService {
         joinRequestRepository.save(joinRequest);
 
         // Kafka event ob privolitvi zahteve
-        var event = new JoinRequestRespondedEvent(
-                "APPROVED",
-                joinRequest.getId(),
-                orgId,
-                org.getName(),
-                requestByUser.getKeycloakId(),
-                requestByUser.getFirstName(),
-                requestByUser.getLastName(),
-                requestByUser.getEmailConsent() ? requestByUser.getEmail() : null,
-                Instant.now()
-        );
-        kafkaProducer.publishJoinRequestRespondedEvent(event);
+        kafkaProducer.publishJoinRequestRespondedEvent(respondedEvent("APPROVED", joinRequest));
 
         log.info("Join request {} approved by {} for user {} in org {}",
                 joinRequestId, userId, requestByUser.getId(), orgId);
@@ -324,7 +589,8 @@ public class OrganizationService {
             throw new RuntimeException("Only administrator can add new members");
         }
 
-        JoinRequestEntity joinRequest = joinRequestRepository.findById(joinRequestId)
+        // Vrstico zaklenemo, da isto prošnjo ne moreta hkrati obdelati dva administratorja
+        JoinRequestEntity joinRequest = joinRequestRepository.findByIdForUpdate(joinRequestId)
                 .orElseThrow(() -> new RuntimeException("Join request not found"));
 
         if (!joinRequest.getOrganization().getId().equals(orgId)) {
@@ -341,33 +607,232 @@ public class OrganizationService {
         joinRequestRepository.save(joinRequest);
 
         // Kafka event ob zavrnitvi zahteve
-        var event = new JoinRequestRespondedEvent(
-                "REJECTED",
+        kafkaProducer.publishJoinRequestRespondedEvent(respondedEvent("REJECTED", joinRequest));
+
+        log.info("Join request {} rejected by {} for user {} in org {}",
+                joinRequestId, userId, joinRequest.getUser().getId(), orgId);
+    }
+
+    /**
+     * Odobri več čakajočih prošenj naenkrat. Prošnje, ki jih hkrati obdeluje drug administrator, se preskočijo.
+     */
+    @Transactional
+    public List<BulkModerationResult> approveJoinRequests(UUID orgId, UUID userId, List<UUID> joinRequestIds) {
+        List<JoinRequestEntity> locked = lockPendingJoinRequests(orgId, userId, joinRequestIds);
+
+        // Uporabnike, ki so medtem že postali člani, izpustimo
+        Set<UUID> requesterIds = new HashSet<>();
+        for (JoinRequestEntity jr : locked) {
+            requesterIds.add(jr.getUser().getId());
+        }
+        Set<UUID> existingMembers = new HashSet<>();
+        if (!requesterIds.isEmpty()) {
+            for (MemberRole m : membershipRepository.findRolesByOrganizationIdAndUserIdIn(orgId, requesterIds)) {
+                existingMembers.add(m.userId());
+            }
+        }
+
+        Map<UUID, BulkModerationResult> outcomes = new HashMap<>();
+        List<OrganizationMembershipEntity> memberships = new ArrayList<>();
+        Map<UUID, List<KeycloakRole>> keycloakRoles = new LinkedHashMap<>();
+        List<JoinRequestRespondedEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (JoinRequestEntity jr : locked) {
+            UserEntity requestByUser = jr.getUser();
+            if (existingMembers.contains(requestByUser.getId())) {
+                outcomes.put(jr.getId(), BulkModerationResult.failed(jr.getId(), "User is already a member of the organization"));
+                continue;
+            }
+
+            // Ustvarimo membership in uporabniku dodelimo vlogo GOST
+            OrganizationMembershipEntity membership = new OrganizationMembershipEntity();
+            membership.setUser(requestByUser);
+            membership.setOrganization(jr.getOrganization());
+            membership.setRole(KeycloakRole.GUEST);
+            membership.setCreatedAt(now);
+            memberships.add(membership);
+            keycloakRoles.computeIfAbsent(requestByUser.getKeycloakId(), k -> new ArrayList<>()).add(KeycloakRole.GUEST);
+
+            jr.setStatus(JoinRequestStatus.APPROVED);
+            jr.setHandledAt(now);
+            jr.setHandledByUserId(userId);
+
+            events.add(respondedEvent("APPROVED", jr));
+            outcomes.put(jr.getId(), BulkModerationResult.processed(jr.getId()));
+        }
+
+        // INSERT-i članstev in UPDATE-i prošenj gredo v bazo v batch-ih
+        membershipRepository.saveAll(memberships);
+        membershipRepository.flush();
+        membershipGraphService.membershipsChanged(memberships.stream().map(m -> m.getUser().getId()).toList());
+
+        authService.assignRoles(keycloakRoles);
+        kafkaProducer.publishJoinRequestRespondedEvents(events);
+
+        log.info("{} join requests approved by {} in org {}", events.size(), userId, orgId);
+        return moderationResults(joinRequestIds, outcomes);
+    }
+
+    /**
+     * Zavrne več čakajočih prošenj naenkrat. Prošnje, ki jih hkrati obdeluje drug administrator, se preskočijo.
+     */
+    @Transactional
+    public List<BulkModerationResult> rejectJoinRequests(UUID orgId, UUID userId, List<UUID> joinRequestIds) {
+        List<JoinRequestEntity> locked = lockPendingJoinRequests(orgId, userId, joinRequestIds);
+
+        Map<UUID, BulkModerationResult> outcomes = new HashMap<>();
+        List<JoinRequestRespondedEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (JoinRequestEntity jr : locked) {
+            jr.setStatus(JoinRequestStatus.REJECTED);
+            jr.setHandledAt(now);
+            jr.setHandledByUserId(userId);
+
+            events.add(respondedEvent("REJECTED", jr));
+            outcomes.put(jr.getId(), BulkModerationResult.processed(jr.getId()));
+        }
+        joinRequestRepository.flush();
+
+        kafkaProducer.publishJoinRequestRespondedEvents(events);
+
+        log.info("{} join requests rejected by {} in org {}", events.size(), userId, orgId);
+        return moderationResults(joinRequestIds, outcomes);
+    }
+
+    private List<JoinRequestEntity> lockPendingJoinRequests(UUID orgId, UUID userId, List<UUID> joinRequestIds) {
+        if (joinRequestIds == null || joinRequestIds.isEmpty()) {
+            throw new RuntimeException("At least one join request must be selected");
+        }
+        if (joinRequestIds.size() > bulkModerationMaxSize) {
+            throw new RuntimeException("At most " + bulkModerationMaxSize + " join requests can be handled at once");
+        }
+
+        // Preveri, da ima requestedByUserId vloga ORG_ADMIN
+        if (!isUserOrgAdmin(orgId, userId)) {
+            throw new RuntimeException("Only administrator can add new members");
+        }
+
+        List<UUID> lockedIds = joinRequestRepository.lockPendingForUpdate(orgId, new HashSet<>(joinRequestIds));
+        if (lockedIds.isEmpty()) {
+            return List.of();
+        }
+        return joinRequestRepository.findWithUserByIdIn(lockedIds);
+    }
+
+    private List<BulkModerationResult> moderationResults(List<UUID> joinRequestIds, Map<UUID, BulkModerationResult> outcomes) {
+        List<BulkModerationResult> results = new ArrayList<>(joinRequestIds.size());
+        for (UUID id : joinRequestIds) {
+            BulkModerationResult outcome = outcomes.get(id);
+            results.add(outcome != null
+                    ? outcome
+                    : BulkModerationResult.failed(id, "Join request not found, not pending or being handled by another administrator"));
+        }
+        return results;
+    }
+
+    private JoinRequestRespondedEvent respondedEvent(String eventType, JoinRequestEntity joinRequest) {
+        UserEntity requestByUser = joinRequest.getUser();
+        return new JoinRequestRespondedEvent(
+                eventType,
                 joinRequest.getId(),
-                orgId,
+                joinRequest.getOrganization().getId(),
                 joinRequest.getOrganization().getName(),
-                joinRequest.getUser().getKeycloakId(),
-                joinRequest.getUser().getFirstName(),
-                joinRequest.getUser().getLastName(),
-                joinRequest.getUser().getEmailConsent() ? joinRequest.getUser().getEmail() : null,
+                requestByUser.getKeycloakId(),
+                requestByUser.getFirstName(),
+                requestByUser.getLastName(),
+                requestByUser.getEmailConsent() ? requestByUser.getEmail() : null,
                 Instant.now()
         );
-
-        kafkaProducer.publishJoinRequestRespondedEvent(event);
-
-        log.info("Join request {} rejected by {} for user {} in org {}",
-                joinRequestId, userId, joinRequest.getUser().getId(), orgId);
     }
 
+    @Transactional
     public void changeUserRoles(UUID orgId,
                                UUID targetUserId,
                                List<KeycloakRole> newRoles,
                                UUID requestedByUserId) {
-        removeUserFromOrganization(orgId, targetUserId, requestedByUserId);
+        if (newRoles == null || newRoles.contains(null)) {
+            log.error("Given roles contain null.");
+            throw new RuntimeException("New roles must not be null");
+        }
+
+        if (!isUserOrgAdmin(orgId, requestedByUserId)) {
+            log.error("User {} is not administrator of the organization {} and thus it can't change users roles.", requestedByUserId, orgId);
+            throw new RuntimeException("Only administrator can add new members");
+        }
+
+        // Vsa članstva uporabnika naložimo enkrat in iz njih izračunamo razliko
+        List<OrganizationMembershipEntity> userMemberships = membershipRepository.findByUserId(targetUserId);
+        Set<KeycloakRole> currentRoles = EnumSet.noneOf(KeycloakRole.class);
+        Set<KeycloakRole> rolesElsewhere = EnumSet.noneOf(KeycloakRole.class);
+        for (OrganizationMembershipEntity m : userMemberships) {
+            if (m.getOrganization().getId().equals(orgId)) {
+                currentRoles.add(m.getRole());
+            } else {
+                rolesElsewhere.add(m.getRole());
+            }
+        }
+
+        Set<KeycloakRole> requestedRoles = newRoles.isEmpty()
+                ? EnumSet.noneOf(KeycloakRole.class)
+                : EnumSet.copyOf(newRoles);
+        Set<KeycloakRole> toAdd = EnumSet.copyOf(requestedRoles);
+        toAdd.removeAll(currentRoles);
+        Set<KeycloakRole> toRemove = EnumSet.copyOf(currentRoles);
+        toRemove.removeAll(requestedRoles);
+
+        if (toAdd.isEmpty() && toRemove.isEmpty()) {
+            log.info("Roles of user {} in organization {} are unchanged", targetUserId, orgId);
+            return;
+        }
+
+        // Administrator si ne more sam odvzeti vloge ORG_ADMIN
+        if (targetUserId.equals(requestedByUserId) && toRemove.contains(KeycloakRole.ORG_ADMIN)) {
+            throw new RuntimeException("You cannot remove yourself from organization.");
+        }
 
-        for (KeycloakRole newRole: newRoles) {
-            changeUserRole(orgId, targetUserId, newRole, requestedByUserId);
+        // Uporabnik je lahko admin le ene organizacije na enkrat
+        if (toAdd.contains(KeycloakRole.ORG_ADMIN) && rolesElsewhere.contains(KeycloakRole.ORG_ADMIN)) {
+            log.error("User {} is already admin of another organization.", targetUserId);
+            throw new RuntimeException("User is already admin of another organization.");
         }
+
+        UserEntity targetUser = getUser(targetUserId);
+
+        if (!toRemove.isEmpty()) {
+            membershipRepository.bulkDeleteByUserIdAndOrganizationIdAndRoleIn(targetUserId, orgId, toRemove);
+        }
+
+        if (!toAdd.isEmpty()) {
+            OrganizationEntity org = organizationRepository.getReferenceById(orgId);
+            List<OrganizationMembershipEntity> added = new ArrayList<>();
+            for (KeycloakRole role : toAdd) {
+                OrganizationMembershipEntity newMembership = new OrganizationMembershipEntity();
+                newMembership.setUser(targetUser);
+                newMembership.setOrganization(org);
+                newMembership.setRole(role);
+                newMembership.setCreatedAt(LocalDateTime.now());
+                added.add(newMembership);
+            }
+            membershipRepository.saveAll(added);
+        }
+
+        // Morebitne kršitve omejitev odkrijemo pred klici v Keycloak
+        membershipRepository.flush();
+        membershipGraphService.membershipsChanged(targetUserId);
+
+        // V Keycloaku spreminjamo le vloge, ki jih uporabnik nima v drugih organizacijah
+        Set<KeycloakRole> keycloakAdd = EnumSet.copyOf(toAdd);
+        keycloakAdd.removeAll(rolesElsewhere);
+        Set<KeycloakRole> keycloakRemove = EnumSet.copyOf(toRemove);
+        keycloakRemove.removeAll(rolesElsewhere);
+
+        authService.assignRoles(targetUser.getKeycloakId(), keycloakAdd);
+        authService.removeRoles(targetUser.getKeycloakId(), keycloakRemove);
+
+        log.info("Roles of user {} in organization {} changed (added {}, removed {}) by {}",
+                targetUserId, orgId, toAdd, toRemove, requestedByUserId);
     }
 
     @Transactional
@@ -396,15 +861,15 @@ public class OrganizationService {
         }
 
         UserEntity targetUser = getUser(targetUserId);
-        OrganizationEntity org = getOrganization(orgId);
+        getOrganization(orgId);
         OrganizationMembershipEntity newMembership = new OrganizationMembershipEntity();
         newMembership.setUser(targetUser);
-        newMembership.setOrganization(org);
+        newMembership.setOrganization(organizationRepository.getReferenceById(orgId));
         newMembership.setRole(newRole);
         newMembership.setCreatedAt(LocalDateTime.now());
 
         membershipRepository.save(newMembership);
-
+        membershipGraphService.membershipsChanged(targetUserId);
 
         authService.assignRole(targetUser.getKeycloakId(), newRole);
 
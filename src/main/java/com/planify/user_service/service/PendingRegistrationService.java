@@ -0,0 +1,276 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.PendingRegistrationEntity;
+import com.planify.user_service.model.PendingRegistrationStatus;
+import com.planify.user_service.model.RegisterRequest;
+import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.repository.PendingRegistrationRepository;
+import com.planify.user_service.repository.UserRepository;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Odložena registracija: ko je circuit breaker za Keycloak odprt (ali je bulkhead poln), se registracija
+ * preveri in shrani v pending_registrations (geslo šifrirano z AES-GCM), odjemalec pa dobi 202 z ročajem za
+ * poizvedbo o stanju. Periodični worker registracije zaključi, ko breaker ni več odprt; v stanju HALF_OPEN
+ * obdela le eno registracijo kot preizkus.
+ * Vsaka registracija se obdela v treh kratkih transakcijah (prevzem z najemom, shranjevanje keycloak_id,
+ * zaključek), zato med klici v Keycloak ne držimo zaklepa vrstice, ponovni poskus pa ne ustvari dvojnika.
+ */
+@Service
+@Slf4j
+public class PendingRegistrationService {
+
+    private static final String KEYCLOAK = "keycloakService";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final PendingRegistrationRepository repository;
+    private final UserRepository userRepository;
+    private final AuthService authService;
+    private final UserService userService;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TransactionTemplate transaction;
+
+    private final CredentialCipher cipher;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+    private final int maxAttempts;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    public PendingRegistrationService(PendingRegistrationRepository repository,
+                                      UserRepository userRepository,
+                                      AuthService authService,
+                                      UserService userService,
+                                      CircuitBreakerRegistry circuitBreakerRegistry,
+                                      BulkheadRegistry bulkheadRegistry,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${planify.registration.deferred.enabled:true}") boolean enabled,
+                                      @Value("${planify.registration.deferred.encryption-key:}") String encryptionKey,
+                                      @Value("${planify.registration.deferred.batch-size:50}") int batchSize,
+                                      @Value("${planify.registration.deferred.lease:2m}") Duration lease,
+                                      @Value("${planify.registration.deferred.retry-delay:10s}") Duration retryDelay,
+                                      @Value("${planify.registration.deferred.max-retry-delay:10m}") Duration maxRetryDelay,
+                                      @Value("${planify.registration.deferred.max-attempts:20}") int maxAttempts) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.authService = authService;
+        this.userService = userService;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(KEYCLOAK);
+        this.bulkhead = bulkheadRegistry.bulkhead(KEYCLOAK);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.maxAttempts = maxAttempts;
+
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (enabled && encryptionKey.isBlank()) {
+            log.warn("Deferred registration disabled: planify.registration.deferred.encryption-key is not set");
+        }
+        this.cipher = enabled && !encryptionKey.isBlank() ? new CredentialCipher(encryptionKey) : null;
+
+        Gauge.builder("planify.registration.pending", pending, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registracijo odložimo, kadar Keycloak klicev ne bi sprejel (odprt breaker ali poln bulkhead).
+     */
+    public boolean shouldDefer() {
+        if (cipher == null) {
+            return false;
+        }
+        CircuitBreaker.State state = circuitBreaker.getState();
+        return state == CircuitBreaker.State.OPEN
+                || state == CircuitBreaker.State.FORCED_OPEN
+                || bulkhead.getMetrics().getAvailableConcurrentCalls() == 0;
+    }
+
+    public Map<String, Object> enqueue(RegisterRequest request) {
+        if (request.getUsername() == null || request.getEmail() == null || request.getPassword() == null) {
+            throw new RuntimeException("Username, email and password are required");
+        }
+        authService.validateRegistration(request);
+
+        LocalDateTime now = LocalDateTime.now();
+        PendingRegistrationEntity registration = new PendingRegistrationEntity();
+        registration.setId(UUID.randomUUID());
+        registration.setUsername(request.getUsername());
+        registration.setEmail(request.getEmail());
+        registration.setMobile(request.getMobile());
+        registration.setFirstName(request.getFirstName());
+        registration.setLastName(request.getLastName());
+        registration.setRole(request.getRole());
+        registration.setConsentEmail(request.getConsentEmail());
+        registration.setConsentSms(request.getConsentSms());
+        registration.setEncryptedPassword(cipher.encrypt(registration.getId(), request.getPassword()));
+        registration.setStatus(PendingRegistrationStatus.PENDING);
+        registration.setNextAttemptAt(now);
+        registration.setCreatedAt(now);
+        registration.setUpdatedAt(now);
+
+        try {
+            repository.saveAndFlush(registration);
+        } catch (DataIntegrityViolationException e) {
+            // Vzporedna registracija z istim uporabniškim imenom ali emailom je že v vrsti
+            throw new RuntimeException("Registration for this username or email is already pending");
+        }
+
+        count("queued");
+        log.info("Registration for {} deferred as {}, Keycloak is unavailable", registration.getUsername(), registration.getId());
+        return status(registration);
+    }
+
+    public Optional<Map<String, Object>> getStatus(UUID registrationId) {
+        return repository.findById(registrationId).map(this::status);
+    }
+
+    @Scheduled(fixedDelayString = "${planify.registration.deferred.poll-interval:5s}")
+    public void processDue() {
+        if (cipher == null) {
+            return;
+        }
+        pending.set(repository.countByStatus(PendingRegistrationStatus.PENDING));
+        for (int i = 0; i < batchSize; i++) {
+            CircuitBreaker.State state = circuitBreaker.getState();
+            if (state != CircuitBreaker.State.CLOSED && state != CircuitBreaker.State.HALF_OPEN) {
+                return;
+            }
+            if (!processNext() || state == CircuitBreaker.State.HALF_OPEN) {
+                return;
+            }
+        }
+    }
+
+    private boolean processNext() {
+        // Prevzem: najem (next_attempt_at v prihodnosti) prepreči, da bi registracijo hkrati obdelala druga replika
+        PendingRegistrationEntity registration = transaction.execute(status ->
+                repository.lockNextDue(LocalDateTime.now()).map(p -> {
+                    p.setAttempts(p.getAttempts() + 1);
+                    p.setNextAttemptAt(LocalDateTime.now().plus(lease));
+                    p.setUpdatedAt(LocalDateTime.now());
+                    return repository.save(p);
+                }).orElse(null));
+        if (registration == null) {
+            return false;
+        }
+
+        UUID id = registration.getId();
+        try {
+            RegisterRequest request = toRequest(registration);
+            UUID keycloakId = authService.createKeycloakUser(request, registration.getKeycloakId(),
+                    created -> transaction.executeWithoutResult(status -> repository.findById(id).ifPresent(p -> {
+                        p.setKeycloakId(created);
+                        repository.save(p);
+                    })));
+
+            transaction.executeWithoutResult(status -> {
+                UserEntity user = userRepository.findByKeycloakId(keycloakId).orElseGet(() ->
+                        userService.createLocalUserProfile(keycloakId, request.getEmail(), request.getMobile(),
+                                request.getUsername(), request.getFirstName(), request.getLastName(),
+                                request.getConsentEmail(), request.getConsentSms()));
+                repository.findById(id).ifPresent(p -> {
+                    p.setKeycloakId(keycloakId);
+                    p.setUserId(user.getId());
+                    p.setStatus(PendingRegistrationStatus.COMPLETED);
+                    p.setEncryptedPassword(null);
+                    p.setLastError(null);
+                    p.setUpdatedAt(LocalDateTime.now());
+                    repository.save(p);
+                });
+            });
+            count("completed");
+            log.info("Deferred registration {} completed for {}", id, registration.getUsername());
+        } catch (RuntimeException e) {
+            transaction.executeWithoutResult(status -> repository.findById(id).ifPresent(p -> failed(p, e)));
+        }
+        return true;
+    }
+
+    private void failed(PendingRegistrationEntity registration, RuntimeException e) {
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        registration.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        registration.setUpdatedAt(LocalDateTime.now());
+
+        if (registration.getAttempts() >= maxAttempts) {
+            registration.setStatus(PendingRegistrationStatus.FAILED);
+            registration.setEncryptedPassword(null);
+            count("failed");
+            log.error("Deferred registration {} failed after {} attempts (Keycloak user {}): {}",
+                    registration.getId(), registration.getAttempts(), registration.getKeycloakId(), error);
+        } else {
+            // Eksponentni zamik med poskusi, navzgor omejen z max-retry-delay
+            long factor = 1L << Math.min(registration.getAttempts() - 1, 20);
+            Duration delay = retryDelay.multipliedBy(factor);
+            registration.setNextAttemptAt(LocalDateTime.now().plus(delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay));
+            count("retried");
+            log.warn("Deferred registration {} attempt {} failed: {}", registration.getId(), registration.getAttempts(), error);
+        }
+        repository.save(registration);
+    }
+
+    private RegisterRequest toRequest(PendingRegistrationEntity registration) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(registration.getUsername());
+        request.setEmail(registration.getEmail());
+        request.setMobile(registration.getMobile());
+        request.setFirstName(registration.getFirstName());
+        request.setLastName(registration.getLastName());
+        request.setRole(registration.getRole());
+        request.setConsentEmail(registration.getConsentEmail());
+        request.setConsentSms(registration.getConsentSms());
+        request.setPassword(cipher.decrypt(registration.getId(), registration.getEncryptedPassword()));
+        return request;
+    }
+
+    private Map<String, Object> status(PendingRegistrationEntity registration) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("registrationId", registration.getId());
+        status.put("status", registration.getStatus());
+        status.put("statusUrl", "/api/auth/register/" + registration.getId());
+        if (registration.getUserId() != null) {
+            status.put("userId", registration.getUserId());
+        }
+        if (registration.getStatus() == PendingRegistrationStatus.FAILED) {
+            status.put("error", registration.getLastError());
+        }
+        return status;
+    }
+
+    private void count(String outcome) {
+        Counter.builder("planify.registration.deferred")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,251 @@
+package com.planify.user_service.service;
+
+import java.util.*;
+
+/**
+ * Kompaktno radix drevo (stisnjene povezave) za iskanje po predponi.
+ * Vsako vozlišče hrani najboljših {@code topK} vrednosti svojega poddrevesa,
+ * zato iskanje stane le sprehod po predponi, brez obhoda poddrevesa.
+ * Razred ni thread-safe; sinhronizacijo zagotavlja klicatelj.
+ */
+class RadixTrie<V> {
+
+    private final int topK;
+    private final Comparator<V> order;
+    private final Node<V> root = new Node<>("");
+    private int size;
+
+    RadixTrie(int topK, Comparator<V> order) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.topK = topK;
+        this.order = order;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Doda vrednost pod ključ. Vrne false, če je par (ključ, vrednost) že obstajal.
+     */
+    boolean put(String key, V value) {
+        Deque<Node<V>> path = new ArrayDeque<>();
+        Node<V> node = root;
+        String rest = key;
+        path.push(node);
+
+        while (!rest.isEmpty()) {
+            int idx = node.childIndex(rest.charAt(0));
+            if (idx < 0) {
+                Node<V> leaf = new Node<>(rest);
+                node.addChild(leaf);
+                node = leaf;
+                path.push(node);
+                rest = "";
+                break;
+            }
+            Node<V> child = node.children[idx];
+            int common = commonPrefix(child.edge, rest);
+            if (common < child.edge.length()) {
+                // Razcepimo povezavo na skupni del in preostanek
+                Node<V> split = new Node<>(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                split.addChild(child);
+                split.top = new ArrayList<>(child.top);
+                node.children[idx] = split;
+                child = split;
+            }
+            node = child;
+            path.push(node);
+            rest = rest.substring(common);
+        }
+
+        if (node.values.contains(value)) {
+            return false;
+        }
+        node.values.add(value);
+        size++;
+
+        for (Node<V> n : path) {
+            offer(n, value);
+        }
+        return true;
+    }
+
+    /**
+     * Odstrani vrednost izpod ključa. Vrne false, če para ni bilo v drevesu.
+     */
+    boolean remove(String key, V value) {
+        Deque<Node<V>> path = new ArrayDeque<>();
+        Node<V> node = root;
+        String rest = key;
+        path.push(node);
+
+        while (!rest.isEmpty()) {
+            int idx = node.childIndex(rest.charAt(0));
+            if (idx < 0) {
+                return false;
+            }
+            Node<V> child = node.children[idx];
+            if (!rest.startsWith(child.edge)) {
+                return false;
+            }
+            node = child;
+            path.push(node);
+            rest = rest.substring(child.edge.length());
+        }
+
+        if (!node.values.remove(value)) {
+            return false;
+        }
+        size--;
+
+        // Od lista proti korenu: počistimo prazna vozlišča in osvežimo top-K
+        Node<V> child = null;
+        for (Node<V> n : path) {
+            if (child != null) {
+                if (child.values.isEmpty() && child.children.length == 0) {
+                    n.removeChild(child);
+                } else if (child.values.isEmpty() && child.children.length == 1) {
+                    // Vozlišče brez vrednosti z enim otrokom združimo z otrokom
+                    Node<V> only = child.children[0];
+                    only.edge = child.edge + only.edge;
+                    n.children[n.childIndex(only.edge.charAt(0))] = only;
+                }
+            }
+            if (n.top.contains(value)) {
+                recompute(n);
+            }
+            child = n;
+        }
+        return true;
+    }
+
+    /**
+     * Vrne do {@code limit} najboljših vrednosti, katerih ključ se začne s predpono.
+     */
+    List<V> search(String prefix, int limit) {
+        Node<V> node = root;
+        String rest = prefix;
+
+        while (!rest.isEmpty()) {
+            int idx = node.childIndex(rest.charAt(0));
+            if (idx < 0) {
+                return List.of();
+            }
+            Node<V> child = node.children[idx];
+            int common = commonPrefix(child.edge, rest);
+            if (common == rest.length()) {
+                // Predpona se konča na povezavi ali točno v vozlišču
+                node = child;
+                break;
+            }
+            if (common < child.edge.length()) {
+                return List.of();
+            }
+            node = child;
+            rest = rest.substring(common);
+        }
+
+        List<V> top = node.top;
+        return List.copyOf(top.subList(0, Math.min(limit, top.size())));
+    }
+
+    void clear() {
+        root.children = emptyChildren();
+        root.values.clear();
+        root.top = new ArrayList<>();
+        size = 0;
+    }
+
+    private void offer(Node<V> node, V value) {
+        List<V> top = node.top;
+        if (top.contains(value)) {
+            return;
+        }
+        if (top.size() >= topK && order.compare(value, top.get(top.size() - 1)) >= 0) {
+            return;
+        }
+        int pos = Collections.binarySearch(top, value, order);
+        top.add(pos < 0 ? -pos - 1 : pos, value);
+        if (top.size() > topK) {
+            top.remove(top.size() - 1);
+        }
+    }
+
+    private void recompute(Node<V> node) {
+        node.top = new ArrayList<>();
+        for (V v : node.values) {
+            offer(node, v);
+        }
+        for (Node<V> c : node.children) {
+            for (V v : c.top) {
+                offer(node, v);
+            }
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] emptyChildren() {
+        return (Node<V>[]) new Node[0];
+    }
+
+    private static final class Node<V> {
+        String edge;
+        // Otroci so urejeni po prvem znaku povezave (binarno iskanje, brez HashMap overhead-a)
+        Node<V>[] children = emptyChildren();
+        List<V> values = new ArrayList<>(1);
+        List<V> top = new ArrayList<>();
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+
+        int childIndex(char c) {
+            int lo = 0;
+            int hi = children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char m = children[mid].edge.charAt(0);
+                if (m < c) {
+                    lo = mid + 1;
+                } else if (m > c) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        void addChild(Node<V> child) {
+            int idx = childIndex(child.edge.charAt(0));
+            int pos = -idx - 1;
+            Node<V>[] next = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, pos, next, pos + 1, children.length - pos);
+            next[pos] = child;
+            children = next;
+        }
+
+        void removeChild(Node<V> child) {
+            int idx = childIndex(child.edge.charAt(0));
+            if (idx < 0) {
+                return;
+            }
+            Node<V>[] next = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, idx + 1, next, idx, children.length - idx - 1);
+            children = next;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.planify.user_service.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Rok (deadline) trenutnega zahtevka, vezan na nit. Nastavi ga RequestDeadlineFilter ob vstopu zahtevka.
+ * KeycloakService ga preveri pred vsakim klicem (tudi pred ponovnim poskusom), preostanek pa omeji HTTP timeout.
+ * Niti brez roka (npr. periodični worker-ji) niso omejene.
+ */
+public final class RequestDeadline {
+
+    // Rok kot vrednost System.nanoTime()
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void set(Duration budget) {
+        DEADLINE.set(System.nanoTime() + budget.toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * Preostanek do roka (lahko negativen) ali prazno, če nit nima roka.
+     */
+    public static Optional<Duration> remaining() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Optional.empty() : Optional.of(Duration.ofNanos(deadline - System.nanoTime()));
+    }
+
+    public static boolean expired() {
+        return remaining().map(r -> r.isNegative() || r.isZero()).orElse(false);
+    }
+
+    public static boolean hasAtLeast(Duration budget) {
+        return remaining().map(r -> r.compareTo(budget) >= 0).orElse(true);
+    }
+
+    public static void check() {
+        if (expired()) {
+            throw new ExceededException("request");
+        }
+    }
+
+    public static class ExceededException extends RuntimeException {
+
+        private final String operation;
+
+        public ExceededException(String operation) {
+            super("Request deadline exceeded during " + operation);
+            this.operation = operation;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+    }
+}
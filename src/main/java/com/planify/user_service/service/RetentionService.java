@@ -0,0 +1,193 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.repository.IdempotencyKeyRepository;
+import com.planify.user_service.repository.InvitationRepository;
+import com.planify.user_service.repository.JoinRequestRepository;
+import com.planify.user_service.repository.PendingRegistrationRepository;
+import com.planify.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Periodično čiščenje podatkov:
+ * - čakajoča povabila s pretečenim expires_at označi kot EXPIRED,
+ * - obdelane prošnje za vstop in razrešena povabila po preteku roka premakne v arhiv (ArchiveService),
+ * - pretečena povabila, obdelane prošnje za vstop in mehko izbrisane uporabnike po preteku roka izbriše,
+ * - izbriše potekle zapise Idempotency-Key in zaključene odložene registracije.
+ * Vsako pravilo se izvaja v omejenih kosih (vsak kos v svoji transakciji) s premori med njimi.
+ * Med replikami se izvaja le ena instanca, kar zagotavlja Postgres advisory lock.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "planify.retention.enabled", havingValue = "true")
+public class RetentionService {
+
+    // Poljuben, a stalen ključ advisory lock-a za retention job
+    private static final long ADVISORY_LOCK_KEY = 0x706c616e_72657431L;
+
+    private final InvitationRepository invitationRepository;
+    private final JoinRequestRepository joinRequestRepository;
+    private final UserRepository userRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final PendingRegistrationRepository pendingRegistrationRepository;
+    private final ArchiveService archiveService;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean archiveEnabled;
+    private final Duration archiveAfter;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Duration expiredInvitationTtl;
+    private final Duration handledJoinRequestTtl;
+    private final Duration deletedUserTtl;
+    private final Duration finishedRegistrationTtl;
+
+    private final Counter skippedRuns;
+
+    public RetentionService(InvitationRepository invitationRepository,
+                            JoinRequestRepository joinRequestRepository,
+                            UserRepository userRepository,
+                            IdempotencyKeyRepository idempotencyKeyRepository,
+                            PendingRegistrationRepository pendingRegistrationRepository,
+                            ArchiveService archiveService,
+                            DataSource dataSource,
+                            MeterRegistry meterRegistry,
+                            @Value("${planify.retention.archive.enabled:true}") boolean archiveEnabled,
+                            @Value("${planify.retention.archive.after:30d}") Duration archiveAfter,
+                            @Value("${planify.retention.chunk-size:5000}") int chunkSize,
+                            @Value("${planify.retention.pause:500ms}") Duration pause,
+                            @Value("${planify.retention.expired-invitations-ttl:30d}") Duration expiredInvitationTtl,
+                            @Value("${planify.retention.handled-join-requests-ttl:90d}") Duration handledJoinRequestTtl,
+                            @Value("${planify.retention.deleted-users-ttl:30d}") Duration deletedUserTtl,
+                            @Value("${planify.retention.finished-registrations-ttl:7d}") Duration finishedRegistrationTtl) {
+        this.invitationRepository = invitationRepository;
+        this.joinRequestRepository = joinRequestRepository;
+        this.userRepository = userRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.pendingRegistrationRepository = pendingRegistrationRepository;
+        this.archiveService = archiveService;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveAfter = archiveAfter;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.expiredInvitationTtl = expiredInvitationTtl;
+        this.handledJoinRequestTtl = handledJoinRequestTtl;
+        this.deletedUserTtl = deletedUserTtl;
+        this.finishedRegistrationTtl = finishedRegistrationTtl;
+
+        this.skippedRuns = Counter.builder("planify.retention.skipped")
+                .description("Retention runs skipped because another instance holds the lock")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${planify.retention.schedule}")
+    public void run() {
+        // Advisory lock je vezan na sejo, zato ga držimo na ločeni povezavi do konca izvajanja
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!tryLock(lockConnection)) {
+                log.info("Retention skipped, another instance is running it");
+                skippedRuns.increment();
+                return;
+            }
+            try {
+                runPolicies();
+            } finally {
+                unlock(lockConnection);
+            }
+        } catch (SQLException e) {
+            log.error("Retention failed: {}", e.getMessage());
+        }
+    }
+
+    private void runPolicies() {
+        LocalDateTime now = LocalDateTime.now();
+
+        runPolicy("expire-invitations",
+                limit -> invitationRepository.expirePendingChunk(now, limit));
+        // Arhiviramo pred brisanjem, da se zgodovina ohrani
+        if (archiveEnabled) {
+            runPolicy("archive-join-requests",
+                    limit -> archiveService.archiveJoinRequestsChunk(now.minus(archiveAfter), limit));
+            runPolicy("archive-invitations",
+                    limit -> archiveService.archiveInvitationsChunk(now.minus(archiveAfter), limit));
+        }
+        runPolicy("purge-expired-invitations",
+                limit -> invitationRepository.purgeExpiredChunk(now.minus(expiredInvitationTtl), limit));
+        runPolicy("purge-handled-join-requests",
+                limit -> joinRequestRepository.purgeHandledChunk(now.minus(handledJoinRequestTtl), limit));
+        runPolicy("purge-idempotency-keys",
+                limit -> idempotencyKeyRepository.purgeExpiredChunk(now, limit));
+        runPolicy("purge-finished-registrations",
+                limit -> pendingRegistrationRepository.purgeFinishedChunk(now.minus(finishedRegistrationTtl), limit));
+        // Uporabnike čistimo zadnje, ko so reference iz prejšnjih pravil že odstranjene
+        runPolicy("purge-deleted-users",
+                limit -> userRepository.purgeSoftDeletedChunk(now.minus(deletedUserTtl), limit));
+    }
+
+    /**
+     * Izvaja kose, dokler zadnji ne obdela manj kot chunkSize vrstic.
+     */
+    private void runPolicy(String policy, IntUnaryOperator chunk) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter rows = Counter.builder("planify.retention.rows")
+                .tag("policy", policy)
+                .register(meterRegistry);
+        long total = 0;
+        try {
+            int processed;
+            do {
+                processed = chunk.applyAsInt(chunkSize);
+                total += processed;
+                rows.increment(processed);
+                if (processed >= chunkSize) {
+                    // Premor omeji obremenitev in zamik replikacije
+                    Thread.sleep(pause.toMillis());
+                }
+            } while (processed >= chunkSize);
+            log.info("Retention policy {} processed {} rows", policy, total);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Retention policy {} interrupted after {} rows", policy, total);
+        } catch (Exception e) {
+            log.error("Retention policy {} failed after {} rows: {}", policy, total, e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("planify.retention.duration")
+                    .tag("policy", policy)
+                    .register(meterRegistry));
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, ADVISORY_LOCK_KEY);
+            ps.execute();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.model.UserProfile;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Profili aktivnih uporabnikov v OffHeapUserProfileStore za branja po id-ju in keycloak id-ju.
+ * Vklopi se s planify.profile-store.enabled=true. Shramba se zgradi ob zagonu s pretočnim branjem tabele users
+ * in se sproti posodablja ob zapisih (lokalno in prek CacheInvalidationBus). Dokler ni pripravljena
+ * ali če profila v njej ni, se bere iz baze.
+ */
+@Service
+@Slf4j
+public class UserProfileCache {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final int capacity;
+
+    private volatile OffHeapUserProfileStore store;
+    // Varuje zamenjavo shrambe in seznam pending
+    private final ReentrantLock lock = new ReentrantLock();
+    // Spremembe, ki prispejo med gradnjo shrambe, ponovno uporabimo na novi shrambi
+    private List<Consumer<OffHeapUserProfileStore>> pending;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserProfileCache(UserRepository userRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${planify.profile-store.enabled:false}") boolean enabled,
+                            @Value("${planify.profile-store.capacity:1000000}") int capacity) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.capacity = capacity;
+
+        this.hits = Counter.builder("planify.profile-store.lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("planify.profile-store.lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("planify.profile-store.entries", this, s -> s.store == null ? 0 : s.store.size())
+                .register(meterRegistry);
+        Gauge.builder("planify.profile-store.memory", this, s -> s.store == null ? 0 : s.store.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Zgradi novo shrambo in jo zamenja s trenutno. Stari direktni pomnilnik se sprosti, ko GC pobere njene bufferje.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        OffHeapUserProfileStore newStore = new OffHeapUserProfileStore(capacity);
+        long skipped;
+        try (Stream<UserProfile> stream = userRepository.streamActiveProfiles()) {
+            skipped = stream.filter(p -> !newStore.put(p)).count();
+        }
+
+        lock.lock();
+        try {
+            pending.forEach(op -> op.accept(newStore));
+            pending = null;
+            store = newStore;
+        } finally {
+            lock.unlock();
+        }
+
+        if (skipped > 0) {
+            log.warn("{} user profiles did not fit into the profile store and will be read from the database", skipped);
+        }
+        log.info("User profile store built in {} ms ({} profiles, {} MiB off-heap)",
+                System.currentTimeMillis() - start, newStore.size(), newStore.memoryBytes() >> 20);
+    }
+
+    /**
+     * Ali je shramba zgrajena; če ni, kličoči takoj bere iz baze in ne poizveduje najprej le po id-jih.
+     */
+    public boolean isReady() {
+        return store != null;
+    }
+
+    public Optional<UserProfile> get(UUID userId) {
+        OffHeapUserProfileStore current = store;
+        return count(current == null ? Optional.empty() : current.get(userId));
+    }
+
+    public Optional<UserProfile> getByKeycloakId(UUID keycloakId) {
+        OffHeapUserProfileStore current = store;
+        return count(current == null ? Optional.empty() : current.getByKeycloakId(keycloakId));
+    }
+
+    /**
+     * Vrne profile v podanem vrstnem redu ali prazno, če kateri manjka (takrat kličoči prebere vse iz baze).
+     */
+    public Optional<List<UserProfile>> getAll(List<UUID> userIds) {
+        OffHeapUserProfileStore current = store;
+        if (current == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        List<UserProfile> profiles = new ArrayList<>(userIds.size());
+        for (UUID userId : userIds) {
+            Optional<UserProfile> profile = current.get(userId);
+            if (profile.isEmpty()) {
+                misses.increment();
+                return Optional.empty();
+            }
+            profiles.add(profile.get());
+        }
+        hits.increment(profiles.size());
+        return Optional.of(profiles);
+    }
+
+    /**
+     * Po potrditvi transakcije shrani nov profil ali odstrani izbrisanega uporabnika.
+     */
+    public void userChanged(UserEntity user) {
+        if (!enabled) {
+            return;
+        }
+        UserProfile profile = user.getDeletedAt() == null ? UserProfile.of(user) : null;
+        UUID userId = user.getId();
+        afterCommit(s -> {
+            if (profile != null) {
+                s.put(profile);
+            } else {
+                s.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Obvestilo druge replike (CacheInvalidationListener). Bere s primarne baze, saj replika spremembe morda še nima.
+     */
+    @EventListener
+    @Transactional
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.type()) {
+            case USER -> userRepository.findById(event.id()).ifPresentOrElse(
+                    this::userChanged,
+                    () -> afterCommit(s -> s.remove(event.id())));
+            case ALL -> rebuild();
+            default -> {
+            }
+        }
+    }
+
+    private Optional<UserProfile> count(Optional<UserProfile> profile) {
+        (profile.isPresent() ? hits : misses).increment();
+        return profile;
+    }
+
+    private void afterCommit(Consumer<OffHeapUserProfileStore> op) {
+        Runnable apply = () -> {
+            lock.lock();
+            try {
+                if (store != null) {
+                    op.accept(store);
+                }
+                if (pending != null) {
+                    pending.add(op);
+                }
+            } finally {
+                lock.unlock();
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+}
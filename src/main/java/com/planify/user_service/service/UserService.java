@@ -1,5 +1,6 @@
 package com.planify.user_service.service;
 
+import com.planify.user_service.event.CacheInvalidationBus;
 import com.planify.user_service.event.KafkaProducer;
 import com.planify.user_service.model.*;
 import com.planify.user_service.model.event.JoinRequestRespondedEvent;
@@ -7,10 +8,15 @@ import com.planify.user_service.model.event.JoinRequestsSentEvent;
 import com.planify.user_service.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -28,13 +34,21 @@ public class UserService {
     private final JoinRequestRepository joinRequestRepository;
 
     private final KafkaProducer kafkaProducer;
+    private final AutocompleteService autocompleteService;
+    private final AvailabilityService availabilityService;
+    private final OrganizationCache organizationCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final MembershipGraphService membershipGraphService;
+    private final UserProfileCache userProfileCache;
+    private final PlatformTransactionManager transactionManager;
 
 
     /**
      * Sinhronizira uporabnika iz Keycloak tokena.
-     * Ob prvem klicu: ustvari UserEntity z vlogo GUEST.
+     * Ob prvem klicu: ustvari UserEntity z vlogo GUEST (v pisalni transakciji na primarni bazi).
+     * Metoda sama ne odpre transakcije: preverjanje obstoja je kratka bralna poizvedba repozitorija,
+     * zato hkrati nikoli ne drži dveh povezav iz bazena.
      */
-    @Transactional
     public UserEntity syncUserFromToken() {
         Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         UUID keycloakId = UUID.fromString(jwt.getSubject());
@@ -56,10 +70,9 @@ public class UserService {
         newUser.setFirstName(lastName);
         newUser.setCreatedAt(LocalDateTime.now());
 
-        return userRepository.save(newUser);
+        return insertUser(newUser);
     }
 
-    @Transactional
     public UserEntity getCurrentUser() {
         return syncUserFromToken(); // Avtomatsko sinhronizira ob branju
     }
@@ -72,35 +85,56 @@ public class UserService {
         // Soft delete
         user.setDeletedAt(LocalDateTime.now());
 
-        // Izbriši ali anonimiziraj membership-e
-        membershipRepository.deleteAll(user.getMemberships());
+        // Izbriši membership-e z enim DELETE stavkom (brez nalaganja entitet)
+        membershipRepository.bulkDeleteByUserId(userId);
 
         userRepository.save(user);
+        autocompleteService.userRemoved(user);
+        userProfileCache.userChanged(user);
+        cacheInvalidationBus.userChanged(userId);
+        membershipGraphService.membershipsChanged(userId);
         log.info("User {} marked as deleted", userId);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> exportUserData(UUID userId) {
         UserEntity user = userRepository.findByIdAndDeletedAtIsNull(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Map<String, Object> data = new HashMap<>();
         data.put("user", user);
-        data.put("memberships", user.getMemberships());
+        // Kopija naloži lenobno kolekcijo še v transakciji (open-in-view je izklopljen)
+        data.put("memberships", Set.copyOf(user.getMemberships()));
 
         return data;
     }
 
+    @Transactional(readOnly = true)
     public List<UserEntity> getUsers() {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<UserEntity> searchUsers(String serachValue) {
-        return userRepository.findUsersBySearchValue(serachValue);
+        if (!userProfileCache.isReady()) {
+            return userRepository.findUsersBySearchValue(serachValue);
+        }
+        // Iz baze preberemo le id-je, profile pa iz shrambe profilov
+        return userProfileCache.getAll(userRepository.findUserIdsBySearchValue(serachValue))
+                .map(profiles -> profiles.stream().map(UserProfile::toEntity).toList())
+                .orElseGet(() -> userRepository.findUsersBySearchValue(serachValue));
     }
 
     public List<OrganizationEntity> getUsersOrganizations() {
         UserEntity user = getCurrentUser();
-        return userRepository.findOrganizationByUsers(user.getId());
+        // Id-ji organizacij iz grafa članstev, organizacije iz predpomnilnika
+        return membershipGraphService.organizationsOf(user.getId())
+                .map(orgIds -> orgIds.stream()
+                        .map(organizationCache::findById)
+                        .filter(Objects::nonNull)
+                        .map(OrganizationProfile::toEntity)
+                        .toList())
+                .orElseGet(() -> userRepository.findOrganizationByUsers(user.getId()));
     }
 
     public List<JoinRequestEntity> getPendingUsersJoinRequests() {
@@ -108,48 +142,66 @@ public class UserService {
         return joinRequestRepository.findByUserIdAndStatus(user.getId(), JoinRequestStatus.PENDING);
     }
 
+    @Transactional(readOnly = true)
     public List<UserEntity> getUsersOfOrganization(UUID orgId) {
-        return userRepository.findUsersByOrganization(orgId);
+        if (!userProfileCache.isReady()) {
+            return userRepository.findUsersByOrganization(orgId);
+        }
+        List<UUID> userIds = membershipGraphService.membersOf(orgId)
+                .map(members -> members.stream().map(MembershipGraph.Member::userId).toList())
+                .orElseGet(() -> userRepository.findUserIdsByOrganization(orgId));
+        return userProfileCache.getAll(userIds)
+                .map(profiles -> profiles.stream().map(UserProfile::toEntity).toList())
+                .orElseGet(() -> userRepository.findUsersByOrganization(orgId));
     }
 
-    private OrganizationEntity getOrganization(UUID orgId) {
-        return organizationRepository.findById(orgId)
-                .orElseThrow(() -> new RuntimeException("Organization not found"));
+    private OrganizationProfile getOrganization(UUID orgId) {
+        OrganizationProfile org = organizationCache.findById(orgId);
+        if (org == null) {
+            throw new RuntimeException("Organization not found");
+        }
+        return org;
     }
 
+    @Transactional(readOnly = true)
     public UserEntity getUserByKeycoakId(UUID userId) {
-        return userRepository.findActiveByKeycloakId(userId)
+        return userProfileCache.getByKeycloakId(userId)
+                .map(UserProfile::toEntity)
+                .or(() -> userRepository.findActiveByKeycloakId(userId))
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    @Transactional(readOnly = true)
     public UserEntity getUser(UUID userId) {
-        return userRepository.findByIdAndDeletedAtIsNull(userId)
+        return userProfileCache.get(userId)
+                .map(UserProfile::toEntity)
+                .or(() -> userRepository.findByIdAndDeletedAtIsNull(userId))
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
     @Transactional
     public JoinRequestEntity sendJoinRequest(UUID orgId, UUID userId) {
-        OrganizationEntity org = getOrganization(orgId);
-        UserEntity user = getUser(userId);
+        // Vsa preverjanja opravimo z eno poizvedbo
+        MembershipPrecondition precondition = membershipRepository.checkJoinRequestPreconditions(orgId, userId)
+                .orElseThrow(() -> {
+                    getOrganization(orgId);
+                    return new RuntimeException("User not found");
+                });
+        OrganizationEntity org = precondition.getOrganization();
+        UserEntity user = precondition.getUser();
 
         // Preverimo ali je že član organizacije
-        if(!membershipRepository.findByUserIdAndOrganizationId(userId, orgId).isEmpty()) {
+        if (precondition.has(MembershipPrecondition.MEMBER)) {
             throw new RuntimeException("User is already a member of organization");
         }
 
         // Preverimo ali je uporabnik že poslal prošnjo
-        List<JoinRequestEntity> requests = joinRequestRepository.findByUserIdAndOrganizationId(userId, orgId)
-                .stream()
-                .filter(jr -> jr.getStatus() == JoinRequestStatus.PENDING).toList();
-        if (!requests.isEmpty()) {
+        if (precondition.has(MembershipPrecondition.PENDING_JOIN_REQUEST)) {
             throw new RuntimeException("User already has a pending join request");
         }
 
         // Preverimo ali je uporabnik dobil povabilo
-        List<InvitationEntity> pendingInvites =
-                invitationRepository.findByOrganizationIdAndStatusAndUserId(orgId, InvitationStatus.PENDING, userId);
-
-        if (!pendingInvites.isEmpty()) {
+        if (precondition.has(MembershipPrecondition.PENDING_INVITATION)) {
             throw new RuntimeException("User already has a pending invitation to this organization");
         }
 
@@ -161,9 +213,15 @@ public class UserService {
         request.setHandledAt(null);
         request.setHandledByUserId(null);
 
-        JoinRequestEntity saved = joinRequestRepository.save(request);
+        JoinRequestEntity saved;
+        try {
+            // Delni unikatni indeks dovoli le eno čakajočo prošnjo na (uporabnik, organizacija)
+            saved = joinRequestRepository.saveAndFlush(request);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("User already has a pending join request");
+        }
 
-        List<String> adminIds = membershipRepository.findByOrganizationIdAndRole(orgId, KeycloakRole.ORG_ADMIN).stream().map(OrganizationMembershipEntity::getUser).map(UserEntity::getKeycloakId).map(String::valueOf).toList();
+        List<String> adminIds = membershipRepository.findKeycloakIdsByOrganizationIdAndRole(orgId, KeycloakRole.ORG_ADMIN).stream().map(String::valueOf).toList();
 
         // Kafka event ob pošiljanju zahteve za vstop v organizacijo
         var event = new JoinRequestsSentEvent(
@@ -192,10 +250,19 @@ public class UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setEmailConsent(emailConsent);
         user.setSmsConsent(smsConsent);
-        return userRepository.save(user);
+
+        UserEntity saved = userRepository.save(user);
+        autocompleteService.userCreated(saved);
+        availabilityService.userCreated(saved);
+        userProfileCache.userChanged(saved);
+        cacheInvalidationBus.userChanged(saved.getId());
+        return saved;
     }
 
-    @Transactional
+    /**
+     * Kliče ga UserProvisioningFilter ob vsakem zahtevku; obstoječ uporabnik se le prebere (lahko z replike).
+     * Brez transakcije okoli preverjanja: nov uporabnik se vstavi v eni pisalni transakciji z eno povezavo.
+     */
     public void provisionUser(UUID keycloakId, String email, String username, String fisrtName, String lastName) {
 
         Optional<UserEntity> existing = userRepository.findByKeycloakId(keycloakId);
@@ -212,8 +279,36 @@ public class UserService {
         user.setLastName(lastName);
         user.setCreatedAt(LocalDateTime.now());
 
-        userRepository.save(user);
+        insertUser(user);
 
         log.info("Provisioned new user: {} ({})", username, keycloakId);
     }
+
+    /**
+     * Vstavi novega uporabnika v pisalni transakciji na primarni bazi. Replika morda še ne vidi uporabnika,
+     * ki ga je ustvaril vzporeden zahtevek, zato ga na primarni bazi poiščemo znova; ob sočasnem vstavljanju
+     * (UNIQUE keycloak_id) vrnemo tistega, ki je bil vstavljen prvi.
+     * Pisalni zunanji transakciji se pridružimo; ločeno transakcijo (drugo povezavo) odpremo le, če kličoči
+     * drži bralno transakcijo, ker ta teče na repliki.
+     */
+    private UserEntity insertUser(UserEntity user) {
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                : TransactionDefinition.PROPAGATION_REQUIRED);
+        try {
+            return writeTransaction.execute(status -> userRepository.findByKeycloakId(user.getKeycloakId())
+                    .orElseGet(() -> {
+                        UserEntity saved = userRepository.save(user);
+                        autocompleteService.userCreated(saved);
+                        availabilityService.userCreated(saved);
+                        userProfileCache.userChanged(saved);
+                        cacheInvalidationBus.userChanged(saved.getId());
+                        return saved;
+                    }));
+        } catch (DataIntegrityViolationException e) {
+            return writeTransaction.execute(status -> userRepository.findByKeycloakId(user.getKeycloakId())
+                    .orElseThrow(() -> e));
+        }
+    }
 }
@@ -0,0 +1,19 @@
+-- Idempotency-Key za POST /api/auth/register in POST /api/organizations (IdempotencyService)
+-- Vrstico ob prvem zahtevku zaseže izvajalec (IN_PROGRESS, owner_token), po uspehu shrani odgovor (COMPLETED).
+-- Potekle vrstice briše RetentionService.
+
+CREATE TABLE idempotency_keys (
+    scope VARCHAR(64) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    owner_token UUID NOT NULL,
+    response_status INTEGER,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
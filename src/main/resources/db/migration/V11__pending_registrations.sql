@@ -0,0 +1,32 @@
+-- Odložene registracije, ko je circuit breaker za Keycloak odprt (PendingRegistrationService)
+-- Geslo je šifrirano z AES-GCM (nonce || ciphertext); po zaključku ali neuspehu se izbriše.
+
+CREATE TABLE pending_registrations (
+    id UUID PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    mobile VARCHAR(255),
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    role VARCHAR(50),
+    consent_email BOOLEAN,
+    consent_sms BOOLEAN,
+    encrypted_password BYTEA,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000),
+    keycloak_id UUID,
+    user_id UUID,
+    next_attempt_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Isto uporabniško ime ali email je lahko v čakalni vrsti le enkrat
+CREATE UNIQUE INDEX uq_pending_registrations_username ON pending_registrations(username) WHERE status = 'PENDING';
+CREATE UNIQUE INDEX uq_pending_registrations_email ON pending_registrations(email) WHERE status = 'PENDING';
+
+-- Izbira naslednjih registracij za obdelavo
+CREATE INDEX idx_pending_registrations_next_attempt ON pending_registrations(next_attempt_at) WHERE status = 'PENDING';
+-- Čiščenje zaključenih (RetentionService)
+CREATE INDEX idx_pending_registrations_finished ON pending_registrations(updated_at) WHERE status <> 'PENDING';
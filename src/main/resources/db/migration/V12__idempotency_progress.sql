@@ -0,0 +1,6 @@
+-- Idempotency-Key: ključ je lahko predpon z identiteto klicatelja, zato je daljši od ključa iz glave.
+-- progress hrani stranski učinek delno uspele izvedbe (npr. id Keycloak uporabnika); taka vrstica ostane
+-- v stanju FAILED, da jo ponovitev z istim zahtevkom nadaljuje namesto izvede znova.
+
+ALTER TABLE idempotency_keys ALTER COLUMN idempotency_key TYPE VARCHAR(512);
+ALTER TABLE idempotency_keys ADD COLUMN progress VARCHAR(255);
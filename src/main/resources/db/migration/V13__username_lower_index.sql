@@ -0,0 +1,3 @@
+-- Preverjanje razpoložljivosti uporabniškega imena brez razlikovanja velikih in malih črk (AvailabilityService)
+
+CREATE INDEX idx_users_username_lower ON users(lower(username));
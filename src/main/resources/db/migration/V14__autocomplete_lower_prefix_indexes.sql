@@ -0,0 +1,5 @@
+-- Autocomplete v bazi (dokler indeks v pomnilniku ni pripravljen): predpona brez razlikovanja velikih in malih črk
+
+CREATE INDEX idx_users_username_lower_prefix ON users(lower(username) varchar_pattern_ops);
+CREATE INDEX idx_organizations_slug_lower_prefix ON organizations(lower(slug) varchar_pattern_ops);
+CREATE INDEX idx_organizations_name_lower_prefix ON organizations(lower(name) varchar_pattern_ops);
@@ -0,0 +1,28 @@
+-- Indeksi, ki ustrezajo dejanskim poizvedbam v repozitorijih
+
+-- Članstva
+-- UNIQUE (user_id, organization_id, role) že pokriva iskanje po uporabniku ter po (uporabnik, organizacija)
+CREATE INDEX idx_memberships_org_role ON organization_memberships(organization_id, role);
+CREATE INDEX idx_memberships_org_admin ON organization_memberships(user_id) WHERE role = 'ORG_ADMIN';
+DROP INDEX IF EXISTS idx_memberships_user_id;
+DROP INDEX IF EXISTS idx_memberships_organization_id;
+
+-- Prošnje za vstop
+CREATE INDEX idx_join_requests_user_org ON join_requests(user_id, organization_id);
+CREATE INDEX idx_join_requests_user_status ON join_requests(user_id, status);
+CREATE INDEX idx_join_requests_org_pending ON join_requests(organization_id) WHERE status = 'PENDING';
+
+-- Povabila
+CREATE INDEX idx_invitations_user_status ON invitations(user_id, status);
+CREATE INDEX idx_invitations_org_status ON invitations(organization_id, status);
+CREATE INDEX idx_invitations_org_user_pending ON invitations(organization_id, user_id) WHERE status = 'PENDING';
+DROP INDEX IF EXISTS idx_invitations_user;
+
+-- Podvojeni indeksi (stolpca imata že UNIQUE omejitev)
+DROP INDEX IF EXISTS idx_invitations_token;
+DROP INDEX IF EXISTS idx_users_keycloak_id;
+
+-- Iskanje po predponi (LIKE 'vrednost%') ne glede na collation baze
+CREATE INDEX idx_users_username_prefix ON users(username varchar_pattern_ops);
+CREATE INDEX idx_organizations_slug_prefix ON organizations(slug varchar_pattern_ops);
+CREATE INDEX idx_organizations_name_prefix ON organizations(name varchar_pattern_ops);
@@ -0,0 +1,29 @@
+-- Največ eno čakajoče povabilo in ena čakajoča prošnja za vstop na (uporabnik, organizacija)
+
+-- Obstoječe podvojene čakajoče vnose razrešimo, obdržimo najnovejšega
+UPDATE invitations i
+   SET status = 'EXPIRED'
+ WHERE i.status = 'PENDING'
+   AND EXISTS (SELECT 1
+                 FROM invitations n
+                WHERE n.status = 'PENDING'
+                  AND n.organization_id = i.organization_id
+                  AND n.user_id = i.user_id
+                  AND (n.created_at, n.id) > (i.created_at, i.id));
+
+UPDATE join_requests j
+   SET status = 'REJECTED',
+       handled_at = now()
+ WHERE j.status = 'PENDING'
+   AND EXISTS (SELECT 1
+                 FROM join_requests n
+                WHERE n.status = 'PENDING'
+                  AND n.organization_id = j.organization_id
+                  AND n.user_id = j.user_id
+                  AND (n.created_at, n.id) > (j.created_at, j.id));
+
+-- Unikatni delni indeks nadomesti navadnega iz V6
+CREATE UNIQUE INDEX uq_invitations_org_user_pending ON invitations(organization_id, user_id) WHERE status = 'PENDING';
+DROP INDEX IF EXISTS idx_invitations_org_user_pending;
+
+CREATE UNIQUE INDEX uq_join_requests_user_org_pending ON join_requests(user_id, organization_id) WHERE status = 'PENDING';
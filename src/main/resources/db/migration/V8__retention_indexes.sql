@@ -0,0 +1,11 @@
+-- Indeksi za periodično čiščenje (RetentionService)
+
+-- Iskanje kandidatov po posameznem pravilu
+CREATE INDEX idx_invitations_pending_expires ON invitations(expires_at) WHERE status = 'PENDING';
+CREATE INDEX idx_invitations_expired_at ON invitations(expires_at) WHERE status = 'EXPIRED';
+CREATE INDEX idx_join_requests_handled_at ON join_requests(handled_at) WHERE status <> 'PENDING';
+CREATE INDEX idx_users_deleted_at ON users(deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- Tuji ključi na users brez indeksa; potrebni za preverjanje referenc ob brisanju uporabnikov
+CREATE INDEX idx_join_requests_handled_by ON join_requests(handled_by_user_id);
+CREATE INDEX idx_invitations_created_by ON invitations(created_by_user_id);
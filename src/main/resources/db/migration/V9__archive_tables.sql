@@ -0,0 +1,63 @@
+-- Arhiv obdelanih prošenj za vstop in razrešenih povabil
+-- Tabeli sta particionirani po mesecih (created_at); mesečne particije ustvarja ArchiveService sproti.
+-- Brez tujih ključev, da lahko RetentionService kasneje trajno izbriše uporabnike in organizacije.
+
+CREATE TABLE join_requests_archive (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    organization_id UUID NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    handled_at TIMESTAMP,
+    handled_by_user_id UUID,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE invitations_archive (
+    id UUID NOT NULL,
+    organization_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    role VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    accepted_at TIMESTAMP,
+    created_by_user_id UUID NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Varovalo za vrstice izven obstoječih particij
+CREATE TABLE join_requests_archive_default PARTITION OF join_requests_archive DEFAULT;
+CREATE TABLE invitations_archive_default PARTITION OF invitations_archive DEFAULT;
+
+-- Branje zgodovine po organizaciji in po uporabniku
+CREATE INDEX idx_join_requests_archive_org ON join_requests_archive(organization_id, created_at DESC);
+CREATE INDEX idx_join_requests_archive_user ON join_requests_archive(user_id, created_at DESC);
+CREATE INDEX idx_invitations_archive_org ON invitations_archive(organization_id, created_at DESC);
+CREATE INDEX idx_invitations_archive_user ON invitations_archive(user_id, created_at DESC);
+
+-- Iskanje kandidatov za arhiviranje
+CREATE INDEX idx_invitations_resolved_created ON invitations(created_at) WHERE status <> 'PENDING';
+
+-- Zgodovina, ki je še v glavnih tabelah
+CREATE INDEX idx_join_requests_org_handled ON join_requests(organization_id, created_at DESC) WHERE status <> 'PENDING';
+CREATE INDEX idx_invitations_org_resolved ON invitations(organization_id, created_at DESC) WHERE status <> 'PENDING';
+
+-- Ustvari mesečno particijo arhivske tabele, če še ne obstaja.
+-- search_path se zajame ob migraciji, zato se particija vedno ustvari v shemi storitve.
+CREATE FUNCTION ensure_archive_partition(parent TEXT, month DATE) RETURNS VOID
+    LANGUAGE plpgsql
+    SET search_path FROM CURRENT
+AS $$
+DECLARE
+    month_start DATE := date_trunc('month', month)::date;
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   parent || '_' || to_char(month_start, 'YYYY_MM'),
+                   parent,
+                   month_start,
+                   (month_start + INTERVAL '1 month')::date);
+END;
+$$;
@@ -0,0 +1,88 @@
+package com.planify.user_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionQuotaDataSourceTest {
+
+    private DataSource target;
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionQuotaDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ConnectionQuotaDataSource(target, Map.of("keycloakWrites", 2), Duration.ofMillis(10));
+        dataSource.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConnectionQuotaDataSource.exit();
+    }
+
+    @Test
+    void testGetConnection_QuotaExhausted_Throws() throws SQLException {
+        // Arrange
+        ConnectionQuotaDataSource.enter("keycloakWrites");
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        // Act & Assert
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1.0, meterRegistry.get("planify.db.quota.rejected").tag("class", "keycloakWrites").counter().count());
+        assertEquals(0.0, meterRegistry.get("planify.db.quota.available").tag("class", "keycloakWrites").gauge().value());
+    }
+
+    @Test
+    void testClose_ReleasesQuotaOnce() throws SQLException {
+        // Arrange
+        ConnectionQuotaDataSource.enter("keycloakWrites");
+        Connection connection = dataSource.getConnection();
+
+        // Act
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get("planify.db.quota.available").tag("class", "keycloakWrites").gauge().value());
+    }
+
+    @Test
+    void testGetConnection_WithoutClass_NotLimited() throws SQLException {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            dataSource.getConnection();
+        }
+
+        // Assert
+        verify(target, times(5)).getConnection();
+    }
+
+    @Test
+    void testGetConnection_TargetFails_ReleasesQuota() throws SQLException {
+        // Arrange
+        ConnectionQuotaDataSource.enter("keycloakWrites");
+        when(target.getConnection()).thenThrow(new SQLException("pool timeout"));
+
+        // Act
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get("planify.db.quota.available").tag("class", "keycloakWrites").gauge().value());
+    }
+}
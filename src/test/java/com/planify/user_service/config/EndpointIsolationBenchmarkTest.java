@@ -0,0 +1,258 @@
+package com.planify.user_service.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latenca branj, ko je Keycloak upočasnjen. Tomcat ima 200 platformskih niti in bazen 10 povezav; pisanja
+ * (POST /write) držijo povezavo med klicem v lažni Keycloak, kot createOrganization, branja (GET /read) le
+ * kratek čas uporabijo povezavo. Primerjamo skupne vire z izolacijo (bulkhead keycloakWrites in kvote
+ * ConnectionQuotaDataSource). Izvede se le z PLANIFY_LOAD_TESTS=true; upočasnitev nastavimo s PLANIFY_KEYCLOAK_DELAY_MS.
+ */
+@EnabledIfEnvironmentVariable(named = "PLANIFY_LOAD_TESTS", matches = "true")
+class EndpointIsolationBenchmarkTest {
+
+    private static final int TOMCAT_THREADS = 200;
+    private static final int POOL_SIZE = 10;
+    private static final int WRITE_CLIENTS = 300;
+    private static final int READ_CLIENTS = 20;
+    private static final long READ_DB_MS = 2;
+
+    private volatile long keycloakDelayMs;
+
+    @Test
+    void testReadLatencyStaysFlatWhileKeycloakIsSlow() throws Exception {
+        long slowDelay = Long.parseLong(env("PLANIFY_KEYCLOAK_DELAY_MS", "500"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(env("PLANIFY_LOAD_SECONDS", "10")));
+
+        HttpServer keycloak = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        keycloak.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        keycloak.createContext("/", exchange -> {
+            sleep(keycloakDelayMs);
+            exchange.getResponseHeaders().add("Connection", "close");
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        keycloak.start();
+        URI keycloakUri = URI.create("http://127.0.0.1:" + keycloak.getAddress().getPort() + "/admin/realms/planify/users");
+
+        try {
+            keycloakDelayMs = 5;
+            long sharedFast = run(false, keycloakUri, duration);
+            long isolatedFast = run(true, keycloakUri, duration);
+            keycloakDelayMs = slowDelay;
+            long sharedSlow = run(false, keycloakUri, duration);
+            long isolatedSlow = run(true, keycloakUri, duration);
+
+            System.out.printf("Read p99 with %d write clients and %d read clients (ms)%n", WRITE_CLIENTS, READ_CLIENTS);
+            System.out.printf("                   Keycloak 5 ms   Keycloak %d ms%n", slowDelay);
+            System.out.printf("  shared pools:    %13d   %13d%n", sharedFast, sharedSlow);
+            System.out.printf("  isolated:        %13d   %13d%n", isolatedFast, isolatedSlow);
+
+            assertTrue(isolatedSlow < sharedSlow, "isolation should protect reads from slow Keycloak calls");
+            assertTrue(isolatedSlow <= Math.max(5 * isolatedFast, 200),
+                    "read p99 should stay flat while Keycloak is slow");
+        } finally {
+            keycloak.stop(0);
+        }
+    }
+
+    /**
+     * Vrne p99 latence branj v ms.
+     */
+    private long run(boolean isolated, URI keycloakUri, Duration duration) throws Exception {
+        HttpClient keycloakClient = HttpClient.newHttpClient();
+        DataSource pool = new ConnectionQuotaDataSource(fakePool(POOL_SIZE),
+                isolated ? Map.of("keycloakWrites", 4, "reads", 8) : Map.of(), Duration.ofSeconds(2));
+        Bulkhead writes = Bulkhead.of("keycloakWrites", BulkheadConfig.custom()
+                .maxConcurrentCalls(isolated ? 20 : Integer.MAX_VALUE)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("planify-isolation").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxThreads", String.valueOf(TOMCAT_THREADS));
+        connector.setProperty("maxConnections", "10000");
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "write", new HttpServlet() {
+            @Override
+            protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                if (!writes.tryAcquirePermission()) {
+                    resp.sendError(503);
+                    return;
+                }
+                ConnectionQuotaDataSource.enter("keycloakWrites");
+                try (Connection ignored = pool.getConnection()) {
+                    keycloakClient.send(HttpRequest.newBuilder(keycloakUri).GET().build(), HttpResponse.BodyHandlers.discarding());
+                    resp.setStatus(200);
+                } catch (SQLException e) {
+                    resp.sendError(503);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    resp.sendError(503);
+                } finally {
+                    ConnectionQuotaDataSource.exit();
+                    writes.onComplete();
+                }
+            }
+        });
+        Tomcat.addServlet(context, "read", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                ConnectionQuotaDataSource.enter("reads");
+                try (Connection ignored = pool.getConnection()) {
+                    sleep(READ_DB_MS);
+                    resp.setStatus(200);
+                } catch (SQLException e) {
+                    resp.sendError(503);
+                } finally {
+                    ConnectionQuotaDataSource.exit();
+                }
+            }
+        });
+        context.addServletMappingDecoded("/write", "write");
+        context.addServletMappingDecoded("/read", "read");
+        tomcat.start();
+
+        try {
+            return load(connector.getLocalPort(), duration);
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private long load(int port, Duration duration) {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest write = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/write"))
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpRequest read = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/read"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        // Prvo petino časa ogrevamo, meritev šteje le preostanek
+        long warmupEnd = System.nanoTime() + duration.toNanos() / 5;
+        long end = System.nanoTime() + duration.toNanos();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService load = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < WRITE_CLIENTS; i++) {
+                load.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        try {
+                            if (client.send(write, HttpResponse.BodyHandlers.discarding()).statusCode() == 503) {
+                                // Odjemalec upošteva Retry-After (skrajšano za test)
+                                sleep(50);
+                            }
+                        } catch (IOException e) {
+                            sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < READ_CLIENTS; i++) {
+                load.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        try {
+                            client.send(read, HttpResponse.BodyHandlers.discarding());
+                        } catch (IOException e) {
+                            // Napaka šteje z izmerjeno latenco
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (start >= warmupEnd) {
+                            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        }
+                    }
+                });
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.isEmpty() ? duration.toMillis() : sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+
+    /**
+     * Lažen bazen povezav: največ size hkratnih povezav, čakanje do 30 s kot Hikari connection-timeout.
+     */
+    private static DataSource fakePool(int size) {
+        Semaphore permits = new Semaphore(size, true);
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("getConnection")) {
+                        return null;
+                    }
+                    if (!permits.tryAcquire(30, TimeUnit.SECONDS)) {
+                        throw new SQLException("Connection is not available, request timed out");
+                    }
+                    AtomicBoolean closed = new AtomicBoolean();
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                            (connection, connectionMethod, connectionArgs) -> {
+                                if (connectionMethod.getName().equals("close") && closed.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                                return connectionMethod.getReturnType() == boolean.class ? false : null;
+                            });
+                });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
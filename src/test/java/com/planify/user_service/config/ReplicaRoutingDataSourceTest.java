@@ -0,0 +1,139 @@
+package com.planify.user_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        routing = new ReplicaRoutingDataSource(Duration.ofSeconds(5), meterRegistry, clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnlyTransaction_RoutedToReplica() {
+        // Arrange
+        authenticate("alice");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testWriteTransaction_RoutedToPrimary() {
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testReadAfterOwnWrite_StaysOnPrimaryWithinWindow() {
+        // Arrange
+        authenticate("alice");
+        commitWriteTransaction(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        clock.set(Duration.ofSeconds(4).toNanos());
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        clock.set(Duration.ofSeconds(6).toNanos());
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testReadAfterOtherUsersWrite_RoutedToReplica() {
+        // Arrange
+        authenticate("alice");
+        commitWriteTransaction(true);
+        authenticate("bob");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testStickyWindow_StartsAtCommit() {
+        // Arrange
+        authenticate("alice");
+        TransactionSynchronizationManager.initSynchronization();
+        routing.determineCurrentLookupKey();
+        ReplicaRoutingDataSource.markWrite();
+
+        // transakcija traja 10 s in se nato potrdi
+        clock.set(Duration.ofSeconds(10).toNanos());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Act
+        clock.set(Duration.ofSeconds(12).toNanos());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Assert
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(1.0, meterRegistry.get("planify.datasource.routing")
+                .tag("reason", "read-your-writes").counter().count());
+    }
+
+    @Test
+    void testWriteTransactionWithoutDml_DoesNotPinToPrimary() {
+        // Arrange
+        authenticate("alice");
+        commitWriteTransaction(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testMarkWrite_WithoutTransaction_Ignored() {
+        // Act & Assert
+        assertDoesNotThrow(ReplicaRoutingDataSource::markWrite);
+    }
+
+    /**
+     * Transakcija brez readOnly, ki (ne) izvede DML stavka, in njena potrditev.
+     */
+    private void commitWriteTransaction(boolean wrote) {
+        TransactionSynchronizationManager.initSynchronization();
+        routing.determineCurrentLookupKey();
+        if (wrote) {
+            ReplicaRoutingDataSource.markWrite();
+        }
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private void authenticate(String name) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(name, null);
+        authentication.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
@@ -0,0 +1,168 @@
+package com.planify.user_service.config;
+
+import com.sun.net.httpserver.HttpServer;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Primerjava prepustnosti spletnega sloja s platformskimi nitmi (Tomcat privzeto 200 niti) in z virtualnimi nitmi
+ * pri 1000 sočasnih odjemalcih. Vsak zahtevek posnema pot pisanja: blokirajoč klic v bazo (DB_MS) in sinhron
+ * klic v lažni Keycloak (KEYCLOAK_MS). Izvede se le z PLANIFY_LOAD_TESTS=true; število odjemalcev in trajanje
+ * nastavimo s PLANIFY_LOAD_CLIENTS in PLANIFY_LOAD_SECONDS.
+ */
+@EnabledIfEnvironmentVariable(named = "PLANIFY_LOAD_TESTS", matches = "true")
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final long DB_MS = 5;
+    private static final long KEYCLOAK_MS = 50;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Test
+    void testThroughputAt1kConcurrentClients() throws Exception {
+        int clients = Integer.parseInt(env("PLANIFY_LOAD_CLIENTS", "1000"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(env("PLANIFY_LOAD_SECONDS", "20")));
+
+        HttpServer keycloak = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        keycloak.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        keycloak.createContext("/", exchange -> {
+            sleep(KEYCLOAK_MS);
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        keycloak.start();
+        URI keycloakUri = URI.create("http://127.0.0.1:" + keycloak.getAddress().getPort() + "/admin/realms/planify/users");
+
+        try {
+            Result platform = run(false, keycloakUri, clients, duration);
+            Result virtual = run(true, keycloakUri, clients, duration);
+
+            System.out.printf("Web tier load benchmark (%d clients, %d s, DB %d ms + Keycloak %d ms per request)%n",
+                    clients, duration.toSeconds(), DB_MS, KEYCLOAK_MS);
+            System.out.printf("  platform threads (%d): %8.0f req/s, %d errors%n", PLATFORM_THREADS, platform.throughput(), platform.errors());
+            System.out.printf("  virtual threads:        %8.0f req/s, %d errors%n", virtual.throughput(), virtual.errors());
+
+            assertTrue(virtual.throughput() > platform.throughput(),
+                    "virtual threads should sustain more concurrent blocking requests");
+        } finally {
+            keycloak.stop(0);
+        }
+    }
+
+    private Result run(boolean virtualThreads, URI keycloakUri, int clients, Duration duration) throws Exception {
+        HttpClient keycloakClient = HttpClient.newBuilder()
+                .executor(virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool())
+                .build();
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("planify-load").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxConnections", "10000");
+        if (virtualThreads) {
+            // Enako kot spring.threads.virtual.enabled=true
+            connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+        } else {
+            connector.setProperty("maxThreads", String.valueOf(PLATFORM_THREADS));
+        }
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "register", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                sleep(DB_MS);
+                try {
+                    keycloakClient.send(HttpRequest.newBuilder(keycloakUri).GET().build(), HttpResponse.BodyHandlers.discarding());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    resp.sendError(503);
+                    return;
+                }
+                resp.setStatus(200);
+                resp.getWriter().write("ok");
+            }
+        });
+        context.addServletMappingDecoded("/*", "register");
+        tomcat.start();
+
+        try {
+            return load(URI.create("http://127.0.0.1:" + connector.getLocalPort() + "/api/auth/register"), clients, duration);
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+            keycloakClient.executor().ifPresent(e -> ((ExecutorService) e).shutdownNow());
+        }
+    }
+
+    private Result load(URI uri, int clients, Duration duration) {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        // Prvo petino časa ogrevamo, meritev šteje le preostanek
+        long warmupEnd = System.nanoTime() + duration.toNanos() / 5;
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        try (ExecutorService load = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                load.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (System.nanoTime() >= warmupEnd) {
+                                (status == 200 ? completed : errors).incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+
+        double seconds = (end - warmupEnd) / 1e9;
+        return new Result(completed.get() / seconds, errors.get());
+    }
+
+    private record Result(double throughput, long errors) {}
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,26 @@
+package com.planify.user_service.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteTrackingStatementInspectorTest {
+
+    @Test
+    void testIsWrite_Dml() {
+        // Act & Assert
+        assertTrue(WriteTrackingStatementInspector.isWrite("insert into auth.users (id) values (?)"));
+        assertTrue(WriteTrackingStatementInspector.isWrite("  UPDATE auth.users set username=? where id=?"));
+        assertTrue(WriteTrackingStatementInspector.isWrite("/* delete */ delete from auth.invitations where id=?"));
+        assertTrue(WriteTrackingStatementInspector.isWrite(
+                "WITH moved AS (DELETE FROM auth.join_requests WHERE id IN (?) RETURNING id) INSERT INTO auth.join_requests_archive SELECT * FROM moved"));
+    }
+
+    @Test
+    void testIsWrite_Reads() {
+        // Act & Assert
+        assertFalse(WriteTrackingStatementInspector.isWrite("select u.id from auth.users u where u.keycloak_id=?"));
+        assertFalse(WriteTrackingStatementInspector.isWrite("select jr.id from auth.join_requests jr where jr.id=? for update"));
+        assertFalse(WriteTrackingStatementInspector.isWrite("with recent as (select id from auth.users) select * from recent"));
+    }
+}
@@ -0,0 +1,197 @@
+package com.planify.user_service.event;
+
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dva neodvisna aplikacijska konteksta (repliki) nad isto lokalno Postgres bazo.
+ * Izvede se le z PLANIFY_DB_TESTS=true.
+ */
+@EnabledIfEnvironmentVariable(named = "PLANIFY_DB_TESTS", matches = "true")
+class CacheInvalidationBusTest {
+
+    private ConfigurableApplicationContext replicaA;
+    private ConfigurableApplicationContext replicaB;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        replicaA = start();
+        replicaB = start();
+        awaitListeners(replicaA.getBean(JdbcTemplate.class), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (replicaA != null) {
+            replicaA.close();
+        }
+        if (replicaB != null) {
+            replicaB.close();
+        }
+    }
+
+    @Test
+    void testCommittedChange_EvictsOnOtherReplica() throws InterruptedException {
+        // Arrange
+        UUID orgId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        CacheInvalidationBus bus = replicaA.getBean(CacheInvalidationBus.class);
+
+        // Act
+        replicaA.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            bus.organizationChanged(orgId);
+            bus.membershipsChanged(userId);
+            bus.membershipsChanged(userId);
+        });
+        CacheInvalidationEvent first = received(replicaB).poll(2, TimeUnit.SECONDS);
+        CacheInvalidationEvent second = received(replicaB).poll(500, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertEquals(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ORGANIZATION, orgId), first);
+        assertEquals(new CacheInvalidationEvent(CacheInvalidationEvent.Type.MEMBERSHIP, userId), second);
+        assertNull(received(replicaB).poll(200, TimeUnit.MILLISECONDS), "Duplicate entries should be sent once");
+        assertTrue(received(replicaA).isEmpty(), "Replica must ignore its own notifications");
+    }
+
+    @Test
+    void testRolledBackChange_IsNotDelivered() throws InterruptedException {
+        // Arrange
+        CacheInvalidationBus bus = replicaA.getBean(CacheInvalidationBus.class);
+
+        // Act
+        replicaA.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            bus.userChanged(UUID.randomUUID());
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertNull(received(replicaB).poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testEncode_SplitsLargePayloads() {
+        // Arrange
+        List<String> entries = IntStream.range(0, 500)
+                .mapToObj(i -> "M" + UUID.randomUUID())
+                .toList();
+
+        // Act
+        List<String> payloads = CacheInvalidationBus.encode("abcd1234", entries);
+
+        // Assert
+        assertTrue(payloads.size() > 1);
+        assertTrue(payloads.stream().allMatch(p -> p.length() < 8000));
+        assertEquals(500, payloads.stream().mapToInt(p -> CacheInvalidationBus.decode(p).size()).sum());
+        assertTrue(payloads.stream().allMatch(p -> "abcd1234".equals(CacheInvalidationBus.origin(p))));
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ReplicaConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "planify.cache.invalidation.poll-timeout=50ms")
+                .run();
+    }
+
+    private static BlockingQueue<CacheInvalidationEvent> received(ConfigurableApplicationContext context) {
+        return context.getBean(Recorder.class).events;
+    }
+
+    private static void awaitListeners(JdbcTemplate jdbcTemplate, int expected) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Integer listening = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_stat_activity WHERE query = 'LISTEN " + CacheInvalidationBus.CHANNEL + "'",
+                    Integer.class);
+            if (listening != null && listening >= expected) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Listeners did not subscribe in time");
+    }
+
+    static class Recorder {
+        final BlockingQueue<CacheInvalidationEvent> events = new LinkedBlockingQueue<>();
+
+        @EventListener
+        public void on(CacheInvalidationEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Configuration
+    @Import({CacheInvalidationBus.class, CacheInvalidationListener.class})
+    static class ReplicaConfig {
+
+        @Bean
+        DataSourceProperties dataSourceProperties() {
+            DataSourceProperties properties = new DataSourceProperties();
+            properties.setUrl(env("PLANIFY_TEST_DB_URL", "jdbc:postgresql://localhost:5432/planify_test"));
+            properties.setUsername(env("PLANIFY_TEST_DB_USERNAME", "planify"));
+            properties.setPassword(env("PLANIFY_TEST_DB_PASSWORD", "planify"));
+            return properties;
+        }
+
+        @Bean
+        DataSource dataSource(DataSourceProperties properties) {
+            return properties.initializeDataSourceBuilder().build();
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        Recorder recorder() {
+            return new Recorder();
+        }
+
+        private static String env(String name, String defaultValue) {
+            String value = System.getenv(name);
+            return value != null ? value : defaultValue;
+        }
+    }
+}
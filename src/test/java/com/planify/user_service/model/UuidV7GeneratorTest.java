@@ -0,0 +1,54 @@
+package com.planify.user_service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void testNext_VersionAndVariant() {
+        // Act
+        UUID id = UuidV7Generator.next();
+
+        // Assert
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    void testNext_EmbedsCurrentTimestamp() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID id = UuidV7Generator.next();
+
+        // Assert
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before, "Timestamp must not be in the past");
+        assertTrue(millis <= System.currentTimeMillis() + 1000, "Timestamp drifted too far ahead");
+    }
+
+    @Test
+    void testNext_MonotonicAndUnique() {
+        // Arrange
+        Set<UUID> seen = new HashSet<>();
+        UUID previous = UuidV7Generator.next();
+        seen.add(previous);
+
+        // Act & Assert
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7Generator.next();
+            // Postgres primerja uuid po bajtih, kar ustreza nepredznačeni primerjavi MSB
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+                    "UUIDs must be strictly increasing");
+            assertTrue(seen.add(next));
+            previous = next;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.planify.user_service.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.*;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Primerjava hitrosti vstavljanja in velikosti primarnega indeksa za naključne (v4) in časovno urejene (v7) UUID ključe.
+ * Število vrstic nastavimo s PLANIFY_BENCH_ROWS (privzeto 2 milijona). Izvede se le z PLANIFY_DB_TESTS=true.
+ */
+@EnabledIfEnvironmentVariable(named = "PLANIFY_DB_TESTS", matches = "true")
+class UuidV7InsertBenchmarkTest {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Test
+    void testInsertThroughputAndIndexSize() throws Exception {
+        String url = env("PLANIFY_TEST_DB_URL", "jdbc:postgresql://localhost:5432/planify_test");
+        int rows = Integer.parseInt(env("PLANIFY_BENCH_ROWS", "2000000"));
+
+        try (Connection connection = DriverManager.getConnection(url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true",
+                env("PLANIFY_TEST_DB_USERNAME", "planify"), env("PLANIFY_TEST_DB_PASSWORD", "planify"))) {
+            try (Statement st = connection.createStatement()) {
+                st.execute("CREATE SCHEMA IF NOT EXISTS uuid_bench");
+            }
+
+            Result v4 = run(connection, "memberships_v4", rows, UUID::randomUUID);
+            Result v7 = run(connection, "memberships_v7", rows, UuidV7Generator::next);
+
+            System.out.printf("UUID insert benchmark (%d rows)%n", rows);
+            System.out.printf("  v4: %8d rows/s, pkey %6d MiB%n", v4.rowsPerSecond(), v4.indexBytes() >> 20);
+            System.out.printf("  v7: %8d rows/s, pkey %6d MiB%n", v7.rowsPerSecond(), v7.indexBytes() >> 20);
+
+            assertTrue(v7.indexBytes() <= v4.indexBytes(), "v7 primary key index should not be larger than v4");
+        }
+    }
+
+    private Result run(Connection connection, String table, int rows, Supplier<UUID> ids) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS uuid_bench." + table);
+            st.execute("CREATE TABLE uuid_bench." + table + " (" +
+                    "id UUID PRIMARY KEY, user_id UUID NOT NULL, organization_id UUID NOT NULL, " +
+                    "role VARCHAR(50) NOT NULL, created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO uuid_bench." + table + " (id, user_id, organization_id, role) VALUES (?, ?, ?, 'GUEST')")) {
+            UUID orgId = UUID.randomUUID();
+            for (int i = 1; i <= rows; i++) {
+                ps.setObject(1, ids.get());
+                ps.setObject(2, UUID.randomUUID());
+                ps.setObject(3, orgId);
+                ps.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                    connection.commit();
+                }
+            }
+            ps.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long indexBytes;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT pg_relation_size('uuid_bench." + table + "_pkey')")) {
+            rs.next();
+            indexBytes = rs.getLong(1);
+        }
+        return new Result(rows * 1_000_000_000L / Math.max(elapsedNanos, 1), indexBytes);
+    }
+
+    private record Result(long rowsPerSecond, long indexBytes) {}
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,118 @@
+package com.planify.user_service.repository;
+
+import com.planify.user_service.model.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Preveri, da se večvrstični zapisi članstev izvedejo v JDBC batch-ih in z bulk DELETE stavki.
+ * Zahteva lokalno Postgres bazo, zato se izvede le z PLANIFY_DB_TESTS=true.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "PLANIFY_DB_TESTS", matches = "true")
+class MembershipBatchWriteTest {
+
+    private static final int MEMBERS = 40;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrganizationMembershipRepository membershipRepository;
+
+    private Statistics statistics;
+    private OrganizationEntity organization;
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        users = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            UserEntity user = new UserEntity();
+            user.setKeycloakId(UUID.randomUUID());
+            user.setEmail("batch" + i + "-" + UUID.randomUUID() + "@example.com");
+            user.setUsername("batch" + i + "-" + UUID.randomUUID());
+            user.setFirstName("Batch");
+            user.setLastName("User");
+            entityManager.persist(user);
+            users.add(user);
+        }
+
+        organization = new OrganizationEntity();
+        organization.setName("Batch Organization");
+        organization.setSlug("batch-" + UUID.randomUUID());
+        organization.setCreatedByUserId(users.get(0).getId());
+        entityManager.persist(organization);
+        entityManager.flush();
+    }
+
+    @Test
+    void testSaveAll_InsertsInBatches() {
+        // Arrange
+        List<OrganizationMembershipEntity> memberships = users.stream().map(this::membership).toList();
+        statistics.clear();
+
+        // Act
+        membershipRepository.saveAll(memberships);
+        entityManager.flush();
+
+        // Assert
+        // 40 vrstic pri batch_size 50 -> en pripravljen INSERT stavek namesto 40
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "Expected a single batched INSERT, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void testBulkDelete_SingleStatement() {
+        // Arrange
+        UserEntity user = users.get(1);
+        List<OrganizationMembershipEntity> memberships = new ArrayList<>();
+        for (KeycloakRole role : List.of(KeycloakRole.GUEST, KeycloakRole.ORGANISER, KeycloakRole.ORG_ADMIN)) {
+            OrganizationMembershipEntity m = membership(user);
+            m.setRole(role);
+            memberships.add(m);
+        }
+        membershipRepository.saveAll(memberships);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // Act
+        int deleted = membershipRepository.bulkDeleteByUserIdAndOrganizationId(user.getId(), organization.getId());
+
+        // Assert
+        assertEquals(3, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(membershipRepository.findByUserIdAndOrganizationId(user.getId(), organization.getId()).isEmpty());
+    }
+
+    private OrganizationMembershipEntity membership(UserEntity user) {
+        OrganizationMembershipEntity m = new OrganizationMembershipEntity();
+        m.setUser(user);
+        m.setOrganization(organization);
+        m.setRole(KeycloakRole.GUEST);
+        m.setCreatedAt(LocalDateTime.now());
+        return m;
+    }
+}
@@ -0,0 +1,545 @@
+package com.planify.user_service.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planify.user_service.model.InvitationStatus;
+import com.planify.user_service.model.JoinRequestStatus;
+import com.planify.user_service.model.KeycloakRole;
+import com.planify.user_service.model.PendingRegistrationStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Preveri plane izvajanja (EXPLAIN) za stavke, ki jih metode repozitorijev dejansko izvedejo na napolnjeni Postgres bazi.
+ * Vsak primer pokliče metodo repozitorija, zajame vse pripravljene stavke z vezanimi vrednostmi (kot jih izpiše pgjdbc)
+ * in jih razloži z EXPLAIN; vrednosti so literali, zato Postgres izbere plan po meri kot pri prvih izvedbah v aplikaciji.
+ * Test pade, če kateri od stavkov izvede sekvenčni pregled velike tabele (razen pri pretočnem branju celotne tabele).
+ * Zahteva ločeno lokalno bazo (shema auth se ob zagonu pobriše), zato se izvede le z PLANIFY_DB_TESTS=true.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${PLANIFY_TEST_DB_URL:jdbc:postgresql://localhost:5432/planify_test}",
+        "spring.datasource.username=${PLANIFY_TEST_DB_USERNAME:planify}",
+        "spring.datasource.password=${PLANIFY_TEST_DB_PASSWORD:planify}",
+        "spring.flyway.clean-disabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "PLANIFY_DB_TESTS", matches = "true")
+class QueryPlanRegressionTest {
+
+    // Migracije V3-V5 se sklicujejo na shemo auth
+    private static final String SCHEMA = "auth";
+    private static final Set<String> LARGE_TABLES = Set.of(
+            "users", "organizations", "organization_memberships", "join_requests", "invitations",
+            "join_requests_archive", "invitations_archive", "idempotency_keys", "pending_registrations");
+    private static final int CHUNK = 5000;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        static BeanPostProcessor statementCapturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof StatementCapturingDataSource)
+                            ? new StatementCapturingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Autowired private DataSource dataSource;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private UserRepository userRepository;
+    @Autowired private OrganizationRepository organizationRepository;
+    @Autowired private OrganizationMembershipRepository membershipRepository;
+    @Autowired private JoinRequestRepository joinRequestRepository;
+    @Autowired private InvitationRepository invitationRepository;
+    @Autowired private JoinRequestArchiveRepository joinRequestArchiveRepository;
+    @Autowired private InvitationArchiveRepository invitationArchiveRepository;
+    @Autowired private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired private PendingRegistrationRepository pendingRegistrationRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LocalDateTime now = LocalDateTime.now();
+    // Podatki so razporejeni čez dve leti; rezi zajamejo le majhen del vrstic kot pri dnevnem čiščenju
+    private final LocalDateTime retentionCutoff = now.minusDays(720);
+
+    private UUID userId;
+    private UUID keycloakId;
+    private String email;
+    private String username;
+    private UUID orgId;
+    private String slug;
+    private String token;
+    private List<UUID> memberIds;
+    private List<UUID> membershipIds;
+    private UUID[] pairUserIds;
+    private UUID[] pairOrgIds;
+    private List<UUID> pendingJoinRequestIds;
+    private List<UUID> handledJoinRequestIds;
+    private List<UUID> resolvedInvitationIds;
+    private String idempotencyScope;
+    private String idempotencyKey;
+    private String pendingUsername;
+    private String pendingEmail;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement st = connection.createStatement()) {
+                st.execute("SET search_path TO " + SCHEMA);
+                st.execute("""
+                    INSERT INTO users (id, keycloak_id, email, username, first_name, last_name, created_at, deleted_at)
+                    SELECT gen_random_uuid(), gen_random_uuid(), 'user' || g || '@example.com', 'user' || g, 'First', 'Last',
+                           now() - (g % 730) * interval '1 day',
+                           CASE WHEN g % 100 = 0 THEN now() - (g % 60) * interval '1 day' END
+                      FROM generate_series(1, 200000) g
+                """);
+                st.execute("""
+                    INSERT INTO organizations (id, name, slug, type, created_at, created_by_user_id)
+                    SELECT gen_random_uuid(), 'Organization ' || u.rn, 'org-' || u.rn, 'BUSINESS', now(), u.id
+                      FROM (SELECT id, row_number() OVER () AS rn FROM users) u
+                     WHERE u.rn <= 5000
+                """);
+                st.execute("""
+                    WITH u AS (SELECT id, row_number() OVER () AS rn FROM users),
+                         o AS (SELECT id, row_number() OVER () AS rn FROM organizations)
+                    INSERT INTO organization_memberships (id, user_id, organization_id, role, created_at)
+                    SELECT gen_random_uuid(), u.id, o.id,
+                           CASE WHEN u.rn <= 5000 THEN 'ORG_ADMIN' WHEN u.rn % 7 = 0 THEN 'ORGANISER' ELSE 'GUEST' END,
+                           now()
+                      FROM u JOIN o ON o.rn = ((u.rn - 1) % 5000) + 1
+                """);
+                st.execute("""
+                    WITH u AS (SELECT id, row_number() OVER () AS rn FROM users),
+                         o AS (SELECT id, row_number() OVER () AS rn FROM organizations)
+                    INSERT INTO join_requests (id, user_id, organization_id, status, created_at, handled_at)
+                    SELECT gen_random_uuid(), u.id, o.id,
+                           CASE WHEN u.rn % 10 = 0 THEN 'PENDING' WHEN u.rn % 3 = 0 THEN 'REJECTED' ELSE 'APPROVED' END,
+                           now() - (u.rn % 730) * interval '1 day',
+                           CASE WHEN u.rn % 10 <> 0 THEN now() - (u.rn % 730) * interval '1 day' + interval '1 day' END
+                      FROM u JOIN o ON o.rn = ((u.rn * 7) % 5000) + 1
+                """);
+                st.execute("""
+                    WITH u AS (SELECT id, row_number() OVER () AS rn FROM users),
+                         o AS (SELECT id, created_by_user_id, row_number() OVER () AS rn FROM organizations),
+                         s AS (SELECT u.id AS user_id, u.rn, o.id AS organization_id, o.created_by_user_id,
+                                      CASE WHEN u.rn % 10 = 0 THEN 'PENDING' WHEN u.rn % 10 = 1 THEN 'EXPIRED' ELSE 'ACCEPTED' END AS status,
+                                      CASE WHEN u.rn % 10 = 0 THEN now() - (u.rn % 8) * interval '1 day'
+                                           ELSE now() - (u.rn % 730) * interval '1 day' END AS created_at
+                                 FROM u JOIN o ON o.rn = ((u.rn * 13) % 5000) + 1)
+                    INSERT INTO invitations (id, organization_id, user_id, role, token, status, expires_at, created_at, created_by_user_id)
+                    SELECT gen_random_uuid(), s.organization_id, s.user_id, 'GUEST', md5(s.user_id::text), s.status,
+                           s.created_at + interval '7 days', s.created_at, s.created_by_user_id
+                      FROM s
+                """);
+                st.execute("""
+                    INSERT INTO join_requests_archive (id, user_id, organization_id, status, created_at, handled_at)
+                    SELECT gen_random_uuid(), m.user_id, m.organization_id, 'APPROVED',
+                           now() - (800 + m.rn % 365) * interval '1 day', now() - (800 + m.rn % 365) * interval '1 day'
+                      FROM (SELECT user_id, organization_id, row_number() OVER () AS rn FROM organization_memberships) m
+                """);
+                st.execute("""
+                    INSERT INTO invitations_archive (id, organization_id, user_id, role, status, expires_at, created_at, created_by_user_id)
+                    SELECT gen_random_uuid(), m.organization_id, m.user_id, 'GUEST', 'ACCEPTED',
+                           now() - (793 + m.rn % 365) * interval '1 day', now() - (800 + m.rn % 365) * interval '1 day', m.user_id
+                      FROM (SELECT user_id, organization_id, row_number() OVER () AS rn FROM organization_memberships) m
+                """);
+                st.execute("""
+                    INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, status, owner_token, response_status,
+                                                  response_body, created_at, updated_at, expires_at)
+                    SELECT 'register', 'key-' || g, md5(g::text), 'COMPLETED', gen_random_uuid(), 201, '{}',
+                           now() - (g % 1440) * interval '1 minute', now() - (g % 1440) * interval '1 minute',
+                           now() + ((g % 1440) - 10) * interval '1 minute'
+                      FROM generate_series(1, 200000) g
+                """);
+                st.execute("""
+                    INSERT INTO pending_registrations (id, username, email, status, attempts, next_attempt_at, created_at, updated_at)
+                    SELECT gen_random_uuid(), 'pending' || g, 'pending' || g || '@example.com',
+                           CASE WHEN g % 100 = 0 THEN 'PENDING' ELSE 'COMPLETED' END, 1,
+                           now() + ((g % 20) - 2) * interval '1 minute',
+                           now() - (g % 730) * interval '1 day', now() - (g % 730) * interval '1 day'
+                      FROM generate_series(1, 50000) g
+                """);
+                st.execute("ANALYZE");
+
+                try (ResultSet rs = st.executeQuery("""
+                    SELECT u.id, u.keycloak_id, u.email, u.username, m.organization_id, o.slug, i.token
+                      FROM users u
+                      JOIN organization_memberships m ON m.user_id = u.id AND m.role = 'ORG_ADMIN'
+                      JOIN organizations o ON o.id = m.organization_id
+                      JOIN invitations i ON i.user_id = u.id
+                     WHERE u.deleted_at IS NULL
+                     LIMIT 1
+                """)) {
+                    assertTrue(rs.next(), "Seed data missing");
+                    userId = rs.getObject(1, UUID.class);
+                    keycloakId = rs.getObject(2, UUID.class);
+                    email = rs.getString(3);
+                    username = rs.getString(4);
+                    orgId = rs.getObject(5, UUID.class);
+                    slug = rs.getString(6);
+                    token = rs.getString(7);
+                }
+                memberIds = uuids(st, "SELECT user_id FROM organization_memberships WHERE organization_id = '" + orgId + "' LIMIT 50");
+                pendingJoinRequestIds = uuids(st, "SELECT id FROM join_requests WHERE status = 'PENDING' LIMIT 50");
+                handledJoinRequestIds = uuids(st, "SELECT id FROM join_requests WHERE status <> 'PENDING' LIMIT 50");
+                resolvedInvitationIds = uuids(st, "SELECT id FROM invitations WHERE status <> 'PENDING' LIMIT 50");
+
+                List<UUID> pairUsers = new ArrayList<>();
+                List<UUID> pairOrgs = new ArrayList<>();
+                membershipIds = new ArrayList<>();
+                try (ResultSet rs = st.executeQuery("SELECT id, user_id, organization_id FROM organization_memberships LIMIT 50")) {
+                    while (rs.next()) {
+                        membershipIds.add(rs.getObject(1, UUID.class));
+                        pairUsers.add(rs.getObject(2, UUID.class));
+                        pairOrgs.add(rs.getObject(3, UUID.class));
+                    }
+                }
+                pairUserIds = pairUsers.toArray(UUID[]::new);
+                pairOrgIds = pairOrgs.toArray(UUID[]::new);
+
+                try (ResultSet rs = st.executeQuery("SELECT scope, idempotency_key FROM idempotency_keys LIMIT 1")) {
+                    assertTrue(rs.next(), "Seed data missing");
+                    idempotencyScope = rs.getString(1);
+                    idempotencyKey = rs.getString(2);
+                }
+                try (ResultSet rs = st.executeQuery("SELECT username, email FROM pending_registrations WHERE status = 'PENDING' LIMIT 1")) {
+                    assertTrue(rs.next(), "Seed data missing");
+                    pendingUsername = rs.getString(1);
+                    pendingEmail = rs.getString(2);
+                }
+                st.execute("RESET search_path");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Klici metod repozitorijev; tretji argument so tabele, ki jih metoda namenoma prebere v celoti.
+     */
+    Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                // UserRepository
+                query("UserRepository.findByKeycloakId", () -> userRepository.findByKeycloakId(keycloakId)),
+                query("UserRepository.findByEmail", () -> userRepository.findByEmail(email)),
+                query("UserRepository.existsByUsername", () -> userRepository.existsByUsername(username)),
+                query("UserRepository.existsByNormalizedUsername", () -> userRepository.existsByNormalizedUsername(username.toLowerCase(Locale.ROOT))),
+                query("UserRepository.existsByEmail", () -> userRepository.existsByEmail(email)),
+                query("UserRepository.findByIdAndDeletedAtIsNull", () -> userRepository.findByIdAndDeletedAtIsNull(userId)),
+                query("UserRepository.findByIdInAndDeletedAtIsNull", () -> userRepository.findByIdInAndDeletedAtIsNull(memberIds)),
+                query("UserRepository.findUsersBySearchValue", () -> userRepository.findUsersBySearchValue("user1234")),
+                query("UserRepository.findUserIdsBySearchValue", () -> userRepository.findUserIdsBySearchValue("user1234")),
+                query("UserRepository.findSuggestionsByUsernamePrefix",
+                        () -> userRepository.findSuggestionsByUsernamePrefix("user1234", PageRequest.of(0, 10))),
+                query("UserRepository.findUsersByOrganization", () -> userRepository.findUsersByOrganization(orgId)),
+                query("UserRepository.findUserIdsByOrganization", () -> userRepository.findUserIdsByOrganization(orgId)),
+                query("UserRepository.findOrganizationByUsers", () -> userRepository.findOrganizationByUsers(userId)),
+                query("UserRepository.findUserIdByKeycloakId", () -> userRepository.findUserIdByKeycloakId(keycloakId)),
+                query("UserRepository.findActiveByKeycloakId", () -> userRepository.findActiveByKeycloakId(keycloakId)),
+                query("UserRepository.findActiveProfilesByIdInOrKeycloakIdIn",
+                        () -> userRepository.findActiveProfilesByIdInOrKeycloakIdIn(memberIds, List.of(keycloakId))),
+                query("UserRepository.purgeSoftDeletedChunk", () -> userRepository.purgeSoftDeletedChunk(now.minusDays(30), CHUNK)),
+                fullScan("UserRepository.streamActiveUsernames", Set.of("users"), () -> first(userRepository.streamActiveUsernames())),
+                fullScan("UserRepository.streamActiveProfiles", Set.of("users"), () -> first(userRepository.streamActiveProfiles())),
+                fullScan("UserRepository.streamUsernames", Set.of("users"), () -> first(userRepository.streamUsernames())),
+                // OrganizationRepository
+                query("OrganizationRepository.findBySlug", () -> organizationRepository.findBySlug(slug)),
+                query("OrganizationRepository.existsBySlug", () -> organizationRepository.existsBySlug(slug)),
+                query("OrganizationRepository.findByCreatedByUserId", () -> organizationRepository.findByCreatedByUserId(userId)),
+                query("OrganizationRepository.findOrgsBySearchValue", () -> organizationRepository.findOrgsBySearchValue("org-12")),
+                query("OrganizationRepository.findSuggestionsBySlugOrNamePrefix",
+                        () -> organizationRepository.findSuggestionsBySlugOrNamePrefix("org-12", PageRequest.of(0, 10))),
+                query("OrganizationRepository.findByIdInOrSlugIn",
+                        () -> organizationRepository.findByIdInOrSlugIn(List.of(orgId), List.of(slug))),
+                fullScan("OrganizationRepository.streamSummaries", Set.of("organizations"), () -> first(organizationRepository.streamSummaries())),
+                fullScan("OrganizationRepository.streamSlugs", Set.of("organizations"), () -> first(organizationRepository.streamSlugs())),
+                // OrganizationMembershipRepository
+                query("OrganizationMembershipRepository.findByUserId", () -> membershipRepository.findByUserId(userId)),
+                query("OrganizationMembershipRepository.findByOrganizationId", () -> membershipRepository.findByOrganizationId(orgId)),
+                query("OrganizationMembershipRepository.findByOrganizationIdAndRole",
+                        () -> membershipRepository.findByOrganizationIdAndRole(orgId, KeycloakRole.ORG_ADMIN)),
+                query("OrganizationMembershipRepository.findByUserIdAndOrganizationId",
+                        () -> membershipRepository.findByUserIdAndOrganizationId(userId, orgId)),
+                query("OrganizationMembershipRepository.findByUserIdAndOrganizationIdAndRole",
+                        () -> membershipRepository.findByUserIdAndOrganizationIdAndRole(userId, orgId, KeycloakRole.ORG_ADMIN)),
+                query("OrganizationMembershipRepository.findOrganizationByAdmin", () -> membershipRepository.findOrganizationByAdmin(userId)),
+                query("OrganizationMembershipRepository.bulkDeleteByUserId", () -> membershipRepository.bulkDeleteByUserId(userId)),
+                query("OrganizationMembershipRepository.bulkDeleteByUserIdAndOrganizationId",
+                        () -> membershipRepository.bulkDeleteByUserIdAndOrganizationId(userId, orgId)),
+                query("OrganizationMembershipRepository.bulkDeleteByUserIdAndOrganizationIdAndRoleIn",
+                        () -> membershipRepository.bulkDeleteByUserIdAndOrganizationIdAndRoleIn(userId, orgId, List.of(KeycloakRole.GUEST))),
+                query("OrganizationMembershipRepository.findKeycloakIdsByOrganizationIdAndRole",
+                        () -> membershipRepository.findKeycloakIdsByOrganizationIdAndRole(orgId, KeycloakRole.ORG_ADMIN)),
+                query("OrganizationMembershipRepository.countMembersByOrganizationId",
+                        () -> membershipRepository.countMembersByOrganizationId(orgId)),
+                fullScan("OrganizationMembershipRepository.streamEdges", Set.of("organization_memberships", "users"),
+                        () -> first(membershipRepository.streamEdges())),
+                query("OrganizationMembershipRepository.findEdgesByUserIdIn", () -> membershipRepository.findEdgesByUserIdIn(memberIds)),
+                query("OrganizationMembershipRepository.checkPreconditions",
+                        () -> membershipRepository.checkPreconditions(orgId, userId, userId, KeycloakRole.GUEST)),
+                query("OrganizationMembershipRepository.checkJoinRequestPreconditions",
+                        () -> membershipRepository.checkJoinRequestPreconditions(orgId, userId)),
+                query("OrganizationMembershipRepository.findRolesByOrganizationIdAndUserIdIn",
+                        () -> membershipRepository.findRolesByOrganizationIdAndUserIdIn(orgId, memberIds)),
+                query("OrganizationMembershipRepository.findIdsByUserAndOrganizationPairs",
+                        () -> membershipRepository.findIdsByUserAndOrganizationPairs(pairUserIds, pairOrgIds)),
+                query("OrganizationMembershipRepository.findEdgesByIdIn", () -> membershipRepository.findEdgesByIdIn(membershipIds)),
+                // JoinRequestRepository
+                query("JoinRequestRepository.findByOrganizationIdAndStatus",
+                        () -> joinRequestRepository.findByOrganizationIdAndStatus(orgId, JoinRequestStatus.PENDING)),
+                query("JoinRequestRepository.findByUserIdAndOrganizationId",
+                        () -> joinRequestRepository.findByUserIdAndOrganizationId(userId, orgId)),
+                query("JoinRequestRepository.findByUserIdAndStatus",
+                        () -> joinRequestRepository.findByUserIdAndStatus(userId, JoinRequestStatus.PENDING)),
+                query("JoinRequestRepository.findPendingUserIds", () -> joinRequestRepository.findPendingUserIds(orgId, memberIds)),
+                query("JoinRequestRepository.findByIdForUpdate",
+                        () -> joinRequestRepository.findByIdForUpdate(pendingJoinRequestIds.get(0))),
+                query("JoinRequestRepository.lockPendingForUpdate",
+                        () -> joinRequestRepository.lockPendingForUpdate(orgId, pendingJoinRequestIds)),
+                query("JoinRequestRepository.findWithUserByIdIn", () -> joinRequestRepository.findWithUserByIdIn(pendingJoinRequestIds)),
+                query("JoinRequestRepository.findHistoryByOrganizationId",
+                        () -> joinRequestRepository.findHistoryByOrganizationId(orgId, PageRequest.of(0, 50))),
+                query("JoinRequestRepository.lockHandledBefore", () -> joinRequestRepository.lockHandledBefore(retentionCutoff, CHUNK)),
+                query("JoinRequestRepository.purgeHandledChunk", () -> joinRequestRepository.purgeHandledChunk(retentionCutoff, CHUNK)),
+                query("JoinRequestRepository.findPendingDashboardJoinRequests",
+                        () -> joinRequestRepository.findPendingDashboardJoinRequests(userId)),
+                // InvitationRepository
+                query("InvitationRepository.findByToken", () -> invitationRepository.findByToken(token)),
+                query("InvitationRepository.findByUserId", () -> invitationRepository.findByUserId(userId)),
+                query("InvitationRepository.findByUserIdAndStatus",
+                        () -> invitationRepository.findByUserIdAndStatus(userId, InvitationStatus.PENDING)),
+                query("InvitationRepository.findByOrganizationIdAndStatus",
+                        () -> invitationRepository.findByOrganizationIdAndStatus(orgId, InvitationStatus.PENDING)),
+                query("InvitationRepository.findByOrganizationIdAndStatusAndUserId",
+                        () -> invitationRepository.findByOrganizationIdAndStatusAndUserId(orgId, InvitationStatus.PENDING, userId)),
+                query("InvitationRepository.findPendingUserIds", () -> invitationRepository.findPendingUserIds(orgId, memberIds)),
+                query("InvitationRepository.findHistoryByOrganizationId",
+                        () -> invitationRepository.findHistoryByOrganizationId(orgId, PageRequest.of(0, 50))),
+                query("InvitationRepository.expirePendingChunk", () -> invitationRepository.expirePendingChunk(now, CHUNK)),
+                query("InvitationRepository.purgeExpiredChunk", () -> invitationRepository.purgeExpiredChunk(retentionCutoff, CHUNK)),
+                query("InvitationRepository.lockResolvedBefore", () -> invitationRepository.lockResolvedBefore(retentionCutoff, CHUNK)),
+                query("InvitationRepository.findPendingDashboardInvitations",
+                        () -> invitationRepository.findPendingDashboardInvitations(userId)),
+                // Arhiv
+                query("JoinRequestArchiveRepository.findHistoryByOrganizationId",
+                        () -> joinRequestArchiveRepository.findHistoryByOrganizationId(orgId, PageRequest.of(0, 50))),
+                query("JoinRequestArchiveRepository.ensurePartitions",
+                        () -> joinRequestArchiveRepository.ensurePartitions(handledJoinRequestIds)),
+                query("JoinRequestArchiveRepository.moveToArchive",
+                        () -> joinRequestArchiveRepository.moveToArchive(handledJoinRequestIds)),
+                query("InvitationArchiveRepository.findHistoryByOrganizationId",
+                        () -> invitationArchiveRepository.findHistoryByOrganizationId(orgId, PageRequest.of(0, 50))),
+                query("InvitationArchiveRepository.ensurePartitions",
+                        () -> invitationArchiveRepository.ensurePartitions(resolvedInvitationIds)),
+                query("InvitationArchiveRepository.moveToArchive",
+                        () -> invitationArchiveRepository.moveToArchive(resolvedInvitationIds)),
+                // IdempotencyKeyRepository
+                query("IdempotencyKeyRepository.claim", () -> idempotencyKeyRepository.claim(idempotencyScope, idempotencyKey,
+                        "hash", UUID.randomUUID(), now, now.minusMinutes(2), now.plusHours(24))),
+                query("IdempotencyKeyRepository.complete", () -> idempotencyKeyRepository.complete(idempotencyScope, idempotencyKey,
+                        UUID.randomUUID(), 201, "{}", now)),
+                query("IdempotencyKeyRepository.recordProgress", () -> idempotencyKeyRepository.recordProgress(idempotencyScope,
+                        idempotencyKey, UUID.randomUUID(), "progress", now)),
+                query("IdempotencyKeyRepository.fail",
+                        () -> idempotencyKeyRepository.fail(idempotencyScope, idempotencyKey, UUID.randomUUID(), now)),
+                query("IdempotencyKeyRepository.release",
+                        () -> idempotencyKeyRepository.release(idempotencyScope, idempotencyKey, UUID.randomUUID())),
+                query("IdempotencyKeyRepository.findOnPrimary",
+                        () -> idempotencyKeyRepository.findOnPrimary(idempotencyScope, idempotencyKey)),
+                query("IdempotencyKeyRepository.purgeExpiredChunk", () -> idempotencyKeyRepository.purgeExpiredChunk(now, CHUNK)),
+                // PendingRegistrationRepository
+                query("PendingRegistrationRepository.existsPending",
+                        () -> pendingRegistrationRepository.existsPending(pendingUsername, pendingEmail)),
+                query("PendingRegistrationRepository.countByStatus",
+                        () -> pendingRegistrationRepository.countByStatus(PendingRegistrationStatus.PENDING)),
+                query("PendingRegistrationRepository.lockNextDue", () -> pendingRegistrationRepository.lockNextDue(now)),
+                query("PendingRegistrationRepository.purgeFinishedChunk",
+                        () -> pendingRegistrationRepository.purgeFinishedChunk(retentionCutoff, CHUNK))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void testQueryPlan_NoSequentialScanOnLargeTables(String method, Set<String> fullScanTables, Runnable call) throws Exception {
+        // Act
+        List<String> statements = ((StatementCapturingDataSource) dataSource).capture(call);
+
+        // Assert
+        assertFalse(statements.isEmpty(), method + " did not execute any statement");
+        for (String sql : statements) {
+            String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+            JsonNode plan = objectMapper.readTree(json).get(0).get("Plan");
+
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(plan, seqScans);
+            seqScans.removeAll(fullScanTables);
+            assertTrue(seqScans.isEmpty(),
+                    method + " performs sequential scan on " + seqScans + ":\n" + sql + "\n" + plan.toPrettyString());
+        }
+    }
+
+    private static Arguments query(String method, Runnable call) {
+        return Arguments.of(method, Set.of(), call);
+    }
+
+    private static Arguments fullScan(String method, Set<String> tables, Runnable call) {
+        return Arguments.of(method, tables, call);
+    }
+
+    // Pretočne poizvedbe izvedejo stavek ob prvem branju
+    private static void first(Stream<?> stream) {
+        try (stream) {
+            stream.findFirst();
+        }
+    }
+
+    private void collectSeqScans(JsonNode node, List<String> seqScans) {
+        // Particije arhiva (npr. join_requests_archive_default, invitations_archive_2024_05) štejemo k nadrejeni tabeli
+        String table = node.path("Relation Name").asText().replaceFirst("_(default|\\d{4}_\\d{2})$", "");
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && LARGE_TABLES.contains(table)) {
+            seqScans.add(table);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+
+    private static List<UUID> uuids(Statement st, String sql) throws SQLException {
+        List<UUID> result = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getObject(1, UUID.class));
+            }
+        }
+        assertFalse(result.isEmpty(), "Seed data missing");
+        return result;
+    }
+
+    /**
+     * DataSource, ki med {@link #capture(Runnable)} zabeleži vsak izveden pripravljen stavek.
+     * pgjdbc v toString() izpiše SQL z vezanimi vrednostmi kot literali, zato ga lahko neposredno razložimo z EXPLAIN.
+     */
+    static class StatementCapturingDataSource extends DelegatingDataSource {
+
+        private static final Set<String> EXECUTE_METHODS =
+                Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+        private volatile List<String> captured;
+
+        StatementCapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        List<String> capture(Runnable call) {
+            List<String> statements = new CopyOnWriteArrayList<>();
+            captured = statements;
+            try {
+                call.run();
+            } finally {
+                captured = null;
+            }
+            return statements;
+        }
+
+        // Ob zaprtju konteksta zapremo tudi bazen povezav
+        public void close() throws Exception {
+            if (getTargetDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+
+        private Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, args) -> {
+                Object result = invoke(method, connection, args);
+                return "prepareStatement".equals(method.getName()) ? wrap((PreparedStatement) result) : result;
+            });
+        }
+
+        private PreparedStatement wrap(PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement, (method, args) -> {
+                List<String> target = captured;
+                if (target != null && args == null && EXECUTE_METHODS.contains(method.getName())) {
+                    // Hikari ovoj razkrije gonilnikov stavek, katerega toString vsebuje vezane vrednosti
+                    target.add(statement.unwrap(PreparedStatement.class).toString());
+                }
+                return invoke(method, statement, args);
+            });
+        }
+
+        private interface Handler {
+            Object handle(Method method, Object[] args) throws Throwable;
+        }
+
+        private static <T> T proxy(Class<T> type, T target, Handler handler) {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+                    switch (method.getName()) {
+                        case "equals" -> self == args[0];
+                        case "hashCode" -> System.identityHashCode(self);
+                        case "toString" -> target.toString();
+                        default -> handler.handle(method, args);
+                    });
+            return type.cast(proxy);
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.planify.user_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void testTryAcquire_RejectsAboveLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 5, 100, 1.5, 0.2);
+
+        // Act
+        int acquired = 0;
+        for (int i = 0; i < 15; i++) {
+            if (limit.tryAcquire()) {
+                acquired++;
+            }
+        }
+
+        // Assert
+        assertEquals(10, acquired);
+        assertEquals(10, limit.getInFlight());
+    }
+
+    @Test
+    void testRelease_StableLatencyUnderLoad_IncreasesLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 5, 100, 1.5, 0.2);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            saturate(limit, 10 * MS);
+        }
+
+        // Assert
+        assertTrue(limit.getLimit() > 10, "limit should grow, was " + limit.getLimit());
+    }
+
+    @Test
+    void testRelease_LatencyIncrease_DecreasesLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 5, 100, 1.5, 0.2);
+        for (int i = 0; i < 20; i++) {
+            saturate(limit, 10 * MS);
+        }
+        int before = limit.getLimit();
+
+        // Act
+        // Trajno višja latenca sčasoma postane nova osnova, zato merimo takoj po spremembi
+        for (int i = 0; i < 2; i++) {
+            saturate(limit, 50 * MS);
+        }
+
+        // Assert
+        assertTrue(limit.getLimit() < before, "limit should drop from " + before + ", was " + limit.getLimit());
+        assertTrue(limit.getLimit() >= 5);
+    }
+
+    @Test
+    void testRelease_LowUtilization_DoesNotGrow() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 100, 1.5, 0.2);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(10 * MS);
+        }
+
+        // Assert
+        assertEquals(20, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    /**
+     * Zasede vsa mesta do omejitve in jih sprosti z enako latenco.
+     */
+    private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.release(rttNanos);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.AutocompleteSuggestion;
+import com.planify.user_service.model.OrganizationEntity;
+import com.planify.user_service.model.OrganizationSummary;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.OrganizationRepository;
+import com.planify.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AutocompleteServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OrganizationRepository organizationRepository;
+
+    private AutocompleteService autocompleteService;
+
+    @BeforeEach
+    void setUp() {
+        autocompleteService = new AutocompleteService(userRepository, organizationRepository, new SimpleMeterRegistry(),
+                10, 1000);
+    }
+
+    @Test
+    void testSuggestUsers_NegativeLimit_ReturnsEmpty() {
+        // Act & Assert
+        assertTrue(autocompleteService.suggestUsers("an", -1).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testSuggestOrganizations_NegativeLimit_ReturnsEmpty() {
+        // Act & Assert
+        assertTrue(autocompleteService.suggestOrganizations("pl", -5).isEmpty());
+        verifyNoInteractions(organizationRepository);
+    }
+
+    @Test
+    void testSuggestUsers_IndexNotReady_QueriesNormalizedEscapedPrefix() {
+        // Arrange
+        AutocompleteSuggestion anna = new AutocompleteSuggestion(UUID.randomUUID(), "An_na");
+        when(userRepository.findSuggestionsByUsernamePrefix("an!_", PageRequest.of(0, 5))).thenReturn(List.of(anna));
+
+        // Act
+        List<AutocompleteSuggestion> result = autocompleteService.suggestUsers(" An_ ", 5);
+
+        // Assert
+        assertEquals(List.of(anna), result);
+    }
+
+    @Test
+    void testSuggestOrganizations_IndexNotReady_QueriesNormalizedPrefix() {
+        // Arrange
+        when(organizationRepository.findSuggestionsBySlugOrNamePrefix("pl!%", PageRequest.of(0, 10))).thenReturn(List.of());
+
+        // Act
+        List<AutocompleteSuggestion> result = autocompleteService.suggestOrganizations("PL%", 50);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(organizationRepository).findSuggestionsBySlugOrNamePrefix("pl!%", PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testOnCacheInvalidation_RenamedOrganization_RemovesOldKeys() {
+        // Arrange
+        UUID orgId = UUID.randomUUID();
+        when(userRepository.streamActiveUsernames()).thenReturn(Stream.empty());
+        when(organizationRepository.streamSummaries())
+                .thenReturn(Stream.of(new OrganizationSummary("Old Name", "old-slug", orgId)));
+        autocompleteService.rebuild();
+
+        OrganizationEntity renamed = new OrganizationEntity();
+        renamed.setId(orgId);
+        renamed.setName("New Name");
+        renamed.setSlug("new-slug");
+        when(organizationRepository.findById(orgId)).thenReturn(Optional.of(renamed));
+
+        // Act
+        autocompleteService.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ORGANIZATION, orgId));
+
+        // Assert
+        assertTrue(autocompleteService.suggestOrganizations("old", 10).isEmpty());
+        assertEquals(List.of(new AutocompleteSuggestion(orgId, "New Name")),
+                autocompleteService.suggestOrganizations("new", 10));
+    }
+
+    @Test
+    void testOnCacheInvalidation_DeletedOrganization_RemovesKeys() {
+        // Arrange
+        UUID orgId = UUID.randomUUID();
+        when(userRepository.streamActiveUsernames()).thenReturn(Stream.empty());
+        when(organizationRepository.streamSummaries())
+                .thenReturn(Stream.of(new OrganizationSummary("Planify", "planify", orgId)));
+        autocompleteService.rebuild();
+        when(organizationRepository.findById(orgId)).thenReturn(Optional.empty());
+
+        // Act
+        autocompleteService.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ORGANIZATION, orgId));
+
+        // Assert
+        assertTrue(autocompleteService.suggestOrganizations("plan", 10).isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.repository.OrganizationRepository;
+import com.planify.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OrganizationRepository organizationRepository;
+
+    private AvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        availabilityService = new AvailabilityService(userRepository, organizationRepository, new SimpleMeterRegistry(),
+                1000, 0.01, 2);
+    }
+
+    @Test
+    void testIsUsernameAvailable_FilterHit_ConfirmsLowercase() {
+        // Arrange
+        when(userRepository.count()).thenReturn(1L);
+        when(organizationRepository.count()).thenReturn(0L);
+        when(userRepository.streamUsernames()).thenReturn(Stream.of("Alice"));
+        when(userRepository.streamEmails()).thenReturn(Stream.of("alice@planify.si"));
+        when(organizationRepository.streamSlugs()).thenReturn(Stream.empty());
+        availabilityService.rebuild();
+        when(userRepository.existsByNormalizedUsername("alice")).thenReturn(true);
+
+        // Act
+        boolean available = availabilityService.isUsernameAvailable("ALICE");
+
+        // Assert
+        assertFalse(available);
+        verify(userRepository).existsByNormalizedUsername("alice");
+    }
+
+    @Test
+    void testIsUsernameAvailable_FiltersNotBuilt_QueriesLowercase() {
+        // Arrange
+        when(userRepository.existsByNormalizedUsername("bor")).thenReturn(false);
+
+        // Act
+        boolean available = availabilityService.isUsernameAvailable("Bor");
+
+        // Assert
+        assertTrue(available);
+        verify(userRepository, never()).existsByUsername(anyString());
+    }
+
+    @Test
+    void testTryAcquireEmailCheck_LimitedPerClient() {
+        // Act & Assert
+        assertTrue(availabilityService.tryAcquireEmailCheck("10.0.0.1"));
+        assertTrue(availabilityService.tryAcquireEmailCheck("10.0.0.1"));
+        assertFalse(availabilityService.tryAcquireEmailCheck("10.0.0.1"));
+        assertTrue(availabilityService.tryAcquireEmailCheck("10.0.0.2"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.*;
+import com.planify.user_service.repository.OrganizationMembershipRepository;
+import com.planify.user_service.repository.OrganizationRepository;
+import com.planify.user_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchLookupServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OrganizationRepository organizationRepository;
+
+    @Mock
+    private OrganizationMembershipRepository membershipRepository;
+
+    private BatchLookupService batchLookupService;
+
+    @BeforeEach
+    void setUp() {
+        batchLookupService = new BatchLookupService(userRepository, organizationRepository, membershipRepository, 3);
+    }
+
+    @Test
+    void testFindUsers_DeduplicatesKeysIntoSingleQuery() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        UUID keycloakId = UUID.randomUUID();
+        when(userRepository.findActiveProfilesByIdInOrKeycloakIdIn(Set.of(id), Set.of(keycloakId))).thenReturn(List.of());
+
+        // Act
+        batchLookupService.findUsers(new UserBatchRequest(List.of(id, id, id), Arrays.asList(keycloakId, null)));
+
+        // Assert
+        verify(userRepository, times(1)).findActiveProfilesByIdInOrKeycloakIdIn(Set.of(id), Set.of(keycloakId));
+    }
+
+    @Test
+    void testFindUsers_TooManyKeys_Throws() {
+        // Arrange
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> keycloakIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> batchLookupService.findUsers(new UserBatchRequest(ids, keycloakIds)));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testFindOrganizations_Empty_SkipsQuery() {
+        // Act
+        List<OrganizationEntity> result = batchLookupService.findOrganizations(new OrganizationBatchRequest(null, List.of()));
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(organizationRepository);
+    }
+
+    @Test
+    void testFindMemberships_PassesAlignedPairsToDatabase() {
+        // Arrange
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        UUID orgA = UUID.randomUUID();
+        UUID orgB = UUID.randomUUID();
+        UUID aliceInAId = UUID.randomUUID();
+        UUID bobInBId = UUID.randomUUID();
+        MembershipEdge aliceInA = new MembershipEdge(alice, UUID.randomUUID(), orgA, KeycloakRole.ORG_ADMIN);
+        MembershipEdge bobInB = new MembershipEdge(bob, UUID.randomUUID(), orgB, KeycloakRole.ORGANISER);
+        when(membershipRepository.findIdsByUserAndOrganizationPairs(
+                new UUID[]{alice, bob}, new UUID[]{orgA, orgB}))
+                .thenReturn(List.of(aliceInAId, bobInBId));
+        when(membershipRepository.findEdgesByIdIn(List.of(aliceInAId, bobInBId)))
+                .thenReturn(List.of(aliceInA, bobInB));
+
+        // Act
+        List<MembershipEdge> result = batchLookupService.findMemberships(List.of(
+                new MembershipKey(alice, orgA),
+                new MembershipKey(bob, orgB),
+                new MembershipKey(alice, orgA),
+                new MembershipKey(bob, null)));
+
+        // Assert
+        assertEquals(List.of(aliceInA, bobInB), result);
+    }
+
+    @Test
+    void testFindMemberships_NoMatchingPairs_SkipsEdgeQuery() {
+        // Arrange
+        when(membershipRepository.findIdsByUserAndOrganizationPairs(any(), any())).thenReturn(List.of());
+
+        // Act
+        List<MembershipEdge> result = batchLookupService.findMemberships(List.of(
+                new MembershipKey(UUID.randomUUID(), UUID.randomUUID())));
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(membershipRepository, never()).findEdgesByIdIn(any());
+    }
+
+    @Test
+    void testFindMemberships_TooManyPairs_Throws() {
+        // Arrange
+        List<MembershipKey> pairs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pairs.add(new MembershipKey(UUID.randomUUID(), UUID.randomUUID()));
+        }
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> batchLookupService.findMemberships(pairs));
+        verify(membershipRepository, never()).findIdsByUserAndOrganizationPairs(any(), any());
+    }
+}
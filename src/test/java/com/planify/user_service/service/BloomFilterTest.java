@@ -0,0 +1,64 @@
+package com.planify.user_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertEquals(10_000, filter.insertions());
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRateNearTarget() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@planify.si");
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i + "@planify.si")) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFpp() < 0.02);
+    }
+
+    @Test
+    void testEmptyFilter() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        // Act & Assert
+        assertFalse(filter.mightContain("ana"));
+        assertEquals(0.0, filter.expectedFpp());
+        assertTrue(filter.memoryBytes() > 0);
+    }
+
+    @Test
+    void testInvalidParameters() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
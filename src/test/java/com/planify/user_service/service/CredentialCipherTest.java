@@ -0,0 +1,62 @@
+package com.planify.user_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialCipherTest {
+
+    private final CredentialCipher cipher = new CredentialCipher(Base64.getEncoder().encodeToString(new byte[32]));
+
+    @Test
+    void testEncryptDecrypt_RoundTrip() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+
+        // Act
+        byte[] encrypted = cipher.encrypt(id, "geslo-čšž");
+
+        // Assert
+        assertEquals("geslo-čšž", cipher.decrypt(id, encrypted));
+    }
+
+    @Test
+    void testEncrypt_UsesFreshNonce() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+
+        // Act & Assert
+        assertFalse(Arrays.equals(cipher.encrypt(id, "secret"), cipher.encrypt(id, "secret")));
+    }
+
+    @Test
+    void testDecrypt_OtherRegistrationIdFails() {
+        // Arrange
+        byte[] encrypted = cipher.encrypt(UUID.randomUUID(), "secret");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> cipher.decrypt(UUID.randomUUID(), encrypted));
+    }
+
+    @Test
+    void testDecrypt_TamperedCiphertextFails() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        byte[] encrypted = cipher.encrypt(id, "secret");
+        encrypted[encrypted.length - 1] ^= 1;
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> cipher.decrypt(id, encrypted));
+    }
+
+    @Test
+    void testConstructor_RejectsShortKey() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new CredentialCipher(Base64.getEncoder().encodeToString(new byte[16])));
+    }
+}
@@ -0,0 +1,193 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.*;
+import com.planify.user_service.repository.InvitationRepository;
+import com.planify.user_service.repository.JoinRequestRepository;
+import com.planify.user_service.repository.OrganizationMembershipRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private OrganizationMembershipRepository membershipRepository;
+
+    @Mock
+    private InvitationRepository invitationRepository;
+
+    @Mock
+    private JoinRequestRepository joinRequestRepository;
+
+    @Mock
+    private MembershipGraphService membershipGraphService;
+
+    @Mock
+    private OrganizationCache organizationCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DashboardService dashboardService;
+
+    private UserEntity testUser;
+    private OrganizationEntity testOrganization;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dashboardService = service(4);
+
+        testUser = new UserEntity();
+        testUser.setId(UUID.randomUUID());
+        testUser.setKeycloakId(UUID.randomUUID());
+        testUser.setUsername("alice");
+
+        testOrganization = new OrganizationEntity();
+        testOrganization.setId(UUID.randomUUID());
+        testOrganization.setName("Planify");
+        testOrganization.setSlug("planify");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dashboardService.close();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetDashboard_CombinesAllSections() {
+        // Arrange
+        UUID userId = testUser.getId();
+        UUID orgId = testOrganization.getId();
+        DashboardInvitation invitation = new DashboardInvitation(UUID.randomUUID(), "token", orgId, "Planify",
+                KeycloakRole.GUEST, LocalDateTime.now().plusDays(7));
+        DashboardJoinRequest joinRequest = new DashboardJoinRequest(UUID.randomUUID(), orgId, "Planify", LocalDateTime.now());
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(membershipGraphService.organizationsOf(userId)).thenReturn(Optional.of(List.of(orgId)));
+        when(membershipGraphService.roles(userId, orgId)).thenReturn(Optional.of(Set.of(KeycloakRole.ORGANISER, KeycloakRole.ORG_ADMIN)));
+        when(organizationCache.findById(orgId)).thenReturn(OrganizationProfile.of(testOrganization));
+        when(invitationRepository.findPendingDashboardInvitations(userId)).thenReturn(List.of(invitation));
+        when(joinRequestRepository.findPendingDashboardJoinRequests(userId)).thenReturn(List.of(joinRequest));
+
+        // Act
+        UserDashboard dashboard = dashboardService.getDashboard();
+
+        // Assert
+        assertEquals(userId, dashboard.profile().id());
+        assertEquals(1, dashboard.organizations().size());
+        DashboardOrganization organization = dashboard.organizations().get(0);
+        assertEquals("planify", organization.slug());
+        assertEquals(Set.of(KeycloakRole.ORGANISER, KeycloakRole.ORG_ADMIN), Set.copyOf(organization.roles()));
+        assertEquals(List.of(invitation), dashboard.invitations());
+        assertEquals(List.of(joinRequest), dashboard.joinRequests());
+        verify(userService, times(1)).getCurrentUser();
+        verifyNoInteractions(membershipRepository);
+    }
+
+    @Test
+    void testGetDashboard_GraphUnavailable_ReadsRolesFromDatabase() {
+        // Arrange
+        UUID userId = testUser.getId();
+        UUID orgId = testOrganization.getId();
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(membershipGraphService.organizationsOf(userId)).thenReturn(Optional.empty());
+        when(membershipRepository.findEdgesByUserIdIn(List.of(userId))).thenReturn(List.of(
+                new MembershipEdge(userId, testUser.getKeycloakId(), orgId, KeycloakRole.GUEST),
+                new MembershipEdge(userId, testUser.getKeycloakId(), orgId, KeycloakRole.ORGANISER)));
+        when(organizationCache.findById(orgId)).thenReturn(OrganizationProfile.of(testOrganization));
+        when(invitationRepository.findPendingDashboardInvitations(userId)).thenReturn(List.of());
+        when(joinRequestRepository.findPendingDashboardJoinRequests(userId)).thenReturn(List.of());
+
+        // Act
+        UserDashboard dashboard = dashboardService.getDashboard();
+
+        // Assert
+        assertEquals(1, dashboard.organizations().size());
+        assertEquals(Set.of(KeycloakRole.GUEST, KeycloakRole.ORGANISER), Set.copyOf(dashboard.organizations().get(0).roles()));
+    }
+
+    @Test
+    void testGetDashboard_PropagatesSecurityContextToWorkers() {
+        // Arrange
+        Authentication authentication = new TestingAuthenticationToken("alice", null);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        UUID userId = testUser.getId();
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(membershipGraphService.organizationsOf(userId)).thenReturn(Optional.of(List.of()));
+        when(invitationRepository.findPendingDashboardInvitations(userId)).thenAnswer(invocation -> {
+            seen.set(SecurityContextHolder.getContext().getAuthentication());
+            return List.of();
+        });
+        when(joinRequestRepository.findPendingDashboardJoinRequests(userId)).thenReturn(List.of());
+
+        // Act
+        dashboardService.getDashboard();
+
+        // Assert
+        assertSame(authentication, seen.get());
+        assertEquals(3.0, meterRegistry.get("planify.dashboard.subqueries").tag("mode", "parallel").counter().count());
+    }
+
+    @Test
+    void testGetDashboard_NoPermits_RunsInline() {
+        // Arrange
+        dashboardService.close();
+        dashboardService = service(0);
+        UUID userId = testUser.getId();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(membershipGraphService.organizationsOf(userId)).thenReturn(Optional.of(List.of()));
+        when(invitationRepository.findPendingDashboardInvitations(userId)).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread());
+            return List.of();
+        });
+        when(joinRequestRepository.findPendingDashboardJoinRequests(userId)).thenReturn(List.of());
+
+        // Act
+        dashboardService.getDashboard();
+
+        // Assert
+        assertSame(Thread.currentThread(), thread.get());
+        assertEquals(3.0, meterRegistry.get("planify.dashboard.subqueries").tag("mode", "inline").counter().count());
+    }
+
+    @Test
+    void testGetDashboard_SubqueryFails_Throws() {
+        // Arrange
+        UUID userId = testUser.getId();
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(membershipGraphService.organizationsOf(userId)).thenReturn(Optional.of(List.of()));
+        when(invitationRepository.findPendingDashboardInvitations(userId)).thenThrow(new RuntimeException("db down"));
+        lenient().when(joinRequestRepository.findPendingDashboardJoinRequests(userId)).thenReturn(List.of());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> dashboardService.getDashboard());
+        assertEquals("db down", exception.getMessage());
+    }
+
+    private DashboardService service(int maxConcurrency) {
+        return new DashboardService(userService, membershipRepository, invitationRepository, joinRequestRepository,
+                membershipGraphService, organizationCache, meterRegistry, maxConcurrency, false);
+    }
+}
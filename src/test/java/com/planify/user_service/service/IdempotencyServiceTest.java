@@ -0,0 +1,279 @@
+package com.planify.user_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planify.user_service.model.IdempotencyKeyEntity;
+import com.planify.user_service.model.IdempotencyStatus;
+import com.planify.user_service.model.RegisterRequest;
+import com.planify.user_service.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository repository;
+
+    private IdempotencyService idempotencyService;
+    private RegisterRequest request;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(repository, new ObjectMapper(), new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofMinutes(2), Duration.ofMillis(200), Duration.ofMillis(10), 100);
+
+        request = new RegisterRequest();
+        request.setUsername("ana");
+        request.setEmail("ana@planify.si");
+        request.setPassword("secret");
+        executions = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testExecute_WithoutKey_AlwaysExecutes() {
+        // Act
+        idempotencyService.execute("register", null, request, this::register);
+        idempotencyService.execute("register", null, request, this::register);
+
+        // Assert
+        assertEquals(2, executions.get());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testExecute_RetryReplaysStoredResponse() {
+        // Arrange
+        when(repository.claim(eq("register"), eq("key-1"), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.complete(eq("register"), eq("key-1"), any(UUID.class), eq(200), anyString(), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        // Act
+        ResponseEntity<?> first = idempotencyService.execute("register", "key-1", request, this::register);
+        ResponseEntity<?> retry = idempotencyService.execute("register", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("{\"message\":\"User registration successful\"}", retry.getBody());
+    }
+
+    @Test
+    void testExecute_DifferentRequestWithSameKey_Returns422() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.complete(anyString(), anyString(), any(UUID.class), anyInt(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(1);
+        idempotencyService.execute("register", "key-1", request, this::register);
+
+        RegisterRequest other = new RegisterRequest();
+        other.setUsername("bor");
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("register", "key-1", other, this::register);
+
+        // Assert
+        assertEquals(422, response.getStatusCode().value());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_DifferentPasswordWithSameKey_Returns422() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.complete(anyString(), anyString(), any(UUID.class), anyInt(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(1);
+        idempotencyService.execute("register", "key-1", request, this::register);
+        request.setPassword("other");
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("register", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(422, response.getStatusCode().value());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_FailureAfterSideEffect_KeepsKeyAndResumes() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        IdempotencyKeyEntity failed = new IdempotencyKeyEntity();
+        failed.setStatus(IdempotencyStatus.FAILED);
+        failed.setProgress("keycloak-1");
+        when(repository.findOnPrimary("register", "key-1")).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(failed));
+        AtomicReference<String> resumed = new AtomicReference<>();
+
+        // Act
+        ResponseEntity<?> first = idempotencyService.execute("register", "key-1", request, checkpoint -> {
+            checkpoint.resume();
+            checkpoint.record("keycloak-1");
+            return ResponseEntity.badRequest().body("Failed to create user in Keycloak");
+        }, body -> body);
+        ResponseEntity<?> retry = idempotencyService.execute("register", "key-1", request, checkpoint -> {
+            resumed.set(checkpoint.resume().orElse(null));
+            return ResponseEntity.badRequest().body("Failed to create user in Keycloak");
+        }, body -> body);
+
+        // Assert
+        assertEquals(400, first.getStatusCode().value());
+        assertEquals(400, retry.getStatusCode().value());
+        assertEquals("keycloak-1", resumed.get());
+        verify(repository).recordProgress(eq("register"), eq("key-1"), any(UUID.class), eq("keycloak-1"), any(LocalDateTime.class));
+        verify(repository, times(2)).fail(eq("register"), eq("key-1"), any(UUID.class), any(LocalDateTime.class));
+        verify(repository, never()).release(anyString(), anyString(), any(UUID.class));
+    }
+
+    @Test
+    void testExecute_FailedWithDifferentRequest_Returns422() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+        IdempotencyKeyEntity failed = new IdempotencyKeyEntity();
+        failed.setStatus(IdempotencyStatus.FAILED);
+        failed.setRequestHash("other-request");
+        when(repository.findOnPrimary("register", "key-1")).thenReturn(Optional.of(failed));
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("register", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(422, response.getStatusCode().value());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testExecute_StoresOnlyProjectedBody() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.complete(anyString(), anyString(), any(UUID.class), anyInt(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        // Act
+        ResponseEntity<?> first = idempotencyService.execute("register", "key-1", request,
+                checkpoint -> ResponseEntity.ok(Map.of("email", "ana@planify.si")), body -> Map.of("userId", "u-1"));
+        ResponseEntity<?> retry = idempotencyService.execute("register", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(Map.of("email", "ana@planify.si"), first.getBody());
+        assertEquals("{\"userId\":\"u-1\"}", retry.getBody());
+        verify(repository).complete(eq("register"), eq("key-1"), any(UUID.class), eq(200), eq("{\"userId\":\"u-1\"}"),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void testExecute_AuthenticatedCaller_KeyScopedToPrincipal() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null, "ROLE_USER"));
+        when(repository.claim(eq("create-organization"), eq("alice:key-1"), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.complete(eq("create-organization"), eq("alice:key-1"), any(UUID.class), eq(200), anyString(),
+                any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("create-organization", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_FailureIsNotStored() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("register", "key-1", request,
+                () -> ResponseEntity.badRequest().body("Username already exists"));
+
+        // Assert
+        assertEquals(400, response.getStatusCode().value());
+        verify(repository).release(eq("register"), eq("key-1"), any(UUID.class));
+        verify(repository, never()).complete(anyString(), anyString(), any(UUID.class), anyInt(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testExecute_CompletedOnAnotherReplica_Replays() {
+        // Arrange
+        // Druga replika je ključ zasedla z enakim zahtevkom, zato shranjen odtis vzamemo iz klica claim
+        AtomicReference<String> requestHash = new AtomicReference<>();
+        doAnswer(inv -> {
+            requestHash.set(inv.getArgument(2));
+            return 0;
+        }).when(repository).claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class));
+        when(repository.findOnPrimary("register", "key-1")).thenAnswer(inv -> {
+            IdempotencyKeyEntity stored = new IdempotencyKeyEntity();
+            stored.setStatus(IdempotencyStatus.COMPLETED);
+            stored.setRequestHash(requestHash.get());
+            stored.setResponseStatus(200);
+            stored.setResponseBody("{\"message\":\"User registration successful\"}");
+            return Optional.of(stored);
+        });
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("register", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(0, executions.get());
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("true", response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testExecute_InProgressElsewhere_Returns409AfterWaiting() {
+        // Arrange
+        when(repository.claim(anyString(), anyString(), anyString(), any(UUID.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+        IdempotencyKeyEntity running = new IdempotencyKeyEntity();
+        running.setStatus(IdempotencyStatus.IN_PROGRESS);
+        when(repository.findOnPrimary("register", "key-1")).thenReturn(Optional.of(running));
+
+        // Act
+        ResponseEntity<?> response = idempotencyService.execute("register", "key-1", request, this::register);
+
+        // Assert
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals(0, executions.get());
+    }
+
+    private ResponseEntity<?> register() {
+        executions.incrementAndGet();
+        return ResponseEntity.ok(Map.of("message", "User registration successful"));
+    }
+}
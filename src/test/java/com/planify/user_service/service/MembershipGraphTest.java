@@ -0,0 +1,104 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.KeycloakRole;
+import com.planify.user_service.model.MembershipEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MembershipGraphTest {
+
+    private MembershipGraph graph;
+
+    private final UUID ana = UUID.randomUUID();
+    private final UUID anaKeycloak = UUID.randomUUID();
+    private final UUID bor = UUID.randomUUID();
+    private final UUID borKeycloak = UUID.randomUUID();
+    private final UUID orgA = UUID.randomUUID();
+    private final UUID orgB = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        graph = new MembershipGraph();
+        graph.add(new MembershipEdge(ana, anaKeycloak, orgA, KeycloakRole.ORG_ADMIN));
+        graph.add(new MembershipEdge(ana, anaKeycloak, orgA, KeycloakRole.GUEST));
+        graph.add(new MembershipEdge(ana, anaKeycloak, orgB, KeycloakRole.GUEST));
+        graph.add(new MembershipEdge(bor, borKeycloak, orgA, KeycloakRole.ORGANISER));
+    }
+
+    @Test
+    void testAdd_CollapsesRolesIntoOneEdge() {
+        // Act & Assert
+        assertEquals(EnumSet.of(KeycloakRole.ORG_ADMIN, KeycloakRole.GUEST), graph.roles(ana, orgA));
+        assertEquals(3, graph.edgeCount());
+        assertEquals(2, graph.memberCount(orgA));
+        assertEquals(1, graph.memberCount(orgB));
+    }
+
+    @Test
+    void testMembersOf_ReturnsKeycloakIdsAndRoles() {
+        // Act
+        List<MembershipGraph.Member> members = graph.membersOf(orgA);
+
+        // Assert
+        assertEquals(Set.of(
+                new MembershipGraph.Member(ana, anaKeycloak, EnumSet.of(KeycloakRole.ORG_ADMIN, KeycloakRole.GUEST)),
+                new MembershipGraph.Member(bor, borKeycloak, EnumSet.of(KeycloakRole.ORGANISER))
+        ), Set.copyOf(members));
+    }
+
+    @Test
+    void testOrganizationsOf() {
+        // Act & Assert
+        assertEquals(Set.of(orgA, orgB), Set.copyOf(graph.organizationsOf(ana)));
+        assertEquals(List.of(orgA), graph.organizationsOf(bor));
+        assertEquals(List.of(), graph.organizationsOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void testReplaceUser_RemovesOldEdges() {
+        // Act
+        graph.replaceUser(ana, List.of(new MembershipEdge(ana, anaKeycloak, orgB, KeycloakRole.ORGANISER)));
+
+        // Assert
+        assertEquals(Set.of(), graph.roles(ana, orgA));
+        assertEquals(EnumSet.of(KeycloakRole.ORGANISER), graph.roles(ana, orgB));
+        assertEquals(1, graph.memberCount(orgA));
+        assertEquals(bor, graph.membersOf(orgA).get(0).userId());
+        assertEquals(2, graph.edgeCount());
+    }
+
+    @Test
+    void testReplaceUser_EmptyRemovesUserFromAllOrganizations() {
+        // Act
+        graph.replaceUser(ana, List.of());
+
+        // Assert
+        assertEquals(List.of(), graph.organizationsOf(ana));
+        assertEquals(0, graph.memberCount(orgB));
+        assertEquals(1, graph.edgeCount());
+    }
+
+    @Test
+    void testGrowth_ManyUsers() {
+        // Arrange
+        UUID org = UUID.randomUUID();
+        long before = graph.memoryBytes();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            graph.add(new MembershipEdge(UUID.randomUUID(), UUID.randomUUID(), org, KeycloakRole.GUEST));
+        }
+
+        // Assert
+        assertEquals(10_000, graph.memberCount(org));
+        assertEquals(10_002, graph.userCount());
+        assertTrue(graph.memoryBytes() > before);
+    }
+}
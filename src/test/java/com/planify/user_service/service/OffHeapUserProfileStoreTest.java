@@ -0,0 +1,116 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUserProfileStoreTest {
+
+    private OffHeapUserProfileStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapUserProfileStore(4);
+    }
+
+    @Test
+    void testPut_ReadBackByIdAndKeycloakId() {
+        // Arrange
+        UserProfile profile = profile("žiga", "Žiga", "Čepin", "+38640111222");
+
+        // Act
+        assertTrue(store.put(profile));
+
+        // Assert
+        assertEquals(Optional.of(profile), store.get(profile.id()));
+        assertEquals(Optional.of(profile), store.getByKeycloakId(profile.keycloakId()));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testPut_NullableFields() {
+        // Arrange
+        UserProfile profile = new UserProfile(UUID.randomUUID(), UUID.randomUUID(), "a@example.com",
+                null, "Ana", "Novak", null, false, true, null);
+
+        // Act
+        store.put(profile);
+
+        // Assert
+        assertEquals(Optional.of(profile), store.get(profile.id()));
+    }
+
+    @Test
+    void testPut_OverwritesAndMovesKeycloakId() {
+        // Arrange
+        UserProfile original = profile("ana", "Ana", "Novak", null);
+        store.put(original);
+        UserProfile updated = new UserProfile(original.id(), UUID.randomUUID(), original.email(), "ana2",
+                "Ana", "Kovač", null, false, false, original.createdAt());
+
+        // Act
+        store.put(updated);
+
+        // Assert
+        assertEquals(Optional.of(updated), store.get(original.id()));
+        assertEquals(Optional.of(updated), store.getByKeycloakId(updated.keycloakId()));
+        assertTrue(store.getByKeycloakId(original.keycloakId()).isEmpty());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testPut_TooLongValueHidesStaleRecord() {
+        // Arrange
+        UserProfile profile = profile("ana", "Ana", "Novak", null);
+        store.put(profile);
+
+        // Act
+        boolean stored = store.put(new UserProfile(profile.id(), profile.keycloakId(), profile.email(),
+                "a".repeat(200), "Ana", "Novak", null, false, false, profile.createdAt()));
+
+        // Assert
+        assertFalse(stored);
+        assertTrue(store.get(profile.id()).isEmpty());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testPut_FullStore() {
+        // Arrange
+        for (int i = 0; i < store.capacity(); i++) {
+            assertTrue(store.put(profile("user" + i, "Ime", "Priimek", null)));
+        }
+
+        // Act & Assert
+        assertFalse(store.put(profile("extra", "Ime", "Priimek", null)));
+        assertEquals(store.capacity(), store.size());
+    }
+
+    @Test
+    void testRemove_AndPutAgain() {
+        // Arrange
+        UserProfile profile = profile("ana", "Ana", "Novak", null);
+        store.put(profile);
+
+        // Act & Assert
+        assertTrue(store.remove(profile.id()));
+        assertFalse(store.remove(profile.id()));
+        assertTrue(store.get(profile.id()).isEmpty());
+        assertTrue(store.getByKeycloakId(profile.keycloakId()).isEmpty());
+
+        assertTrue(store.put(profile));
+        assertEquals(Optional.of(profile), store.get(profile.id()));
+        assertEquals(1, store.size());
+    }
+
+    private static UserProfile profile(String username, String firstName, String lastName, String phone) {
+        return new UserProfile(UUID.randomUUID(), UUID.randomUUID(), username + "@example.com", username,
+                firstName, lastName, phone, true, false, LocalDateTime.of(2025, 11, 3, 10, 15, 30, 123_456_000));
+    }
+}
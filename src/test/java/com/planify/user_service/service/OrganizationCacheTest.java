@@ -0,0 +1,176 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.config.CacheConfig;
+import com.planify.user_service.model.OrganizationEntity;
+import com.planify.user_service.model.OrganizationProfile;
+import com.planify.user_service.model.event.CacheInvalidationEvent;
+import com.planify.user_service.repository.OrganizationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Preverja OrganizationCache skupaj s Spring Cache posredniki (zadetki in odstranjevanje).
+ */
+@SpringJUnitConfig(OrganizationCacheTest.Config.class)
+class OrganizationCacheTest {
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        OrganizationRepository organizationRepository() {
+            return mock(OrganizationRepository.class);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.ORGANIZATIONS, CacheConfig.ORGANIZATIONS_BY_SLUG);
+        }
+
+        @Bean
+        OrganizationCache organizationCache(OrganizationRepository organizationRepository, CacheManager cacheManager) {
+            return new OrganizationCache(organizationRepository, cacheManager);
+        }
+    }
+
+    @Autowired
+    private OrganizationCache organizationCache;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private OrganizationEntity organization;
+
+    @BeforeEach
+    void setUp() {
+        reset(organizationRepository);
+        cacheManager.getCache(CacheConfig.ORGANIZATIONS).clear();
+        cacheManager.getCache(CacheConfig.ORGANIZATIONS_BY_SLUG).clear();
+
+        organization = new OrganizationEntity();
+        organization.setId(UUID.randomUUID());
+        organization.setName("Planify");
+        organization.setSlug("planify");
+        when(organizationRepository.findById(organization.getId())).thenReturn(Optional.of(organization));
+        when(organizationRepository.findBySlug("planify")).thenReturn(Optional.of(organization));
+    }
+
+    @Test
+    void testFindById_SecondCallIsServedFromCache() {
+        // Act
+        OrganizationProfile first = organizationCache.findById(organization.getId());
+        OrganizationProfile second = organizationCache.findById(organization.getId());
+
+        // Assert
+        assertEquals("Planify", first.name());
+        assertSame(first, second);
+        verify(organizationRepository, times(1)).findById(organization.getId());
+    }
+
+    @Test
+    void testFindById_CachesImmutableProfile() {
+        // Arrange
+        OrganizationProfile cached = organizationCache.findById(organization.getId());
+
+        // Act
+        organization.setName("Changed");
+        OrganizationEntity copy = cached.toEntity();
+        copy.setName("Changed too");
+
+        // Assert
+        assertEquals("Planify", organizationCache.findById(organization.getId()).name());
+        assertTrue(copy.getMemberships().isEmpty());
+    }
+
+    @Test
+    void testFindById_Missing_IsNotCached() {
+        // Arrange
+        UUID missing = UUID.randomUUID();
+        when(organizationRepository.findById(missing)).thenReturn(Optional.empty());
+
+        // Act
+        organizationCache.findById(missing);
+        organizationCache.findById(missing);
+
+        // Assert
+        verify(organizationRepository, times(2)).findById(missing);
+    }
+
+    @Test
+    void testEvict_AfterUpdate_ReloadsById() {
+        // Arrange
+        organizationCache.findById(organization.getId());
+        organization.setDescription("Updated");
+
+        // Act
+        organizationCache.evict(organization.getId());
+        OrganizationProfile reloaded = organizationCache.findById(organization.getId());
+
+        // Assert
+        assertEquals("Updated", reloaded.description());
+        verify(organizationRepository, times(2)).findById(organization.getId());
+    }
+
+    @Test
+    void testEvict_AfterDelete_ReturnsNull() {
+        // Arrange
+        organizationCache.findById(organization.getId());
+        organizationCache.findBySlug("planify");
+        when(organizationRepository.findById(organization.getId())).thenReturn(Optional.empty());
+        when(organizationRepository.findBySlug("planify")).thenReturn(Optional.empty());
+
+        // Act
+        organizationCache.evict(organization.getId());
+
+        // Assert
+        assertNull(organizationCache.findById(organization.getId()));
+        assertNull(organizationCache.findBySlug("planify"));
+    }
+
+    @Test
+    void testEvict_AfterRename_RemovesOldSlugWithoutIdEntry() {
+        // Arrange
+        organizationCache.findBySlug("planify");
+        organization.setSlug("planify-renamed");
+        when(organizationRepository.findBySlug("planify")).thenReturn(Optional.empty());
+        when(organizationRepository.findBySlug("planify-renamed")).thenReturn(Optional.of(organization));
+
+        // Act
+        organizationCache.evict(organization.getId());
+
+        // Assert
+        assertNull(organizationCache.findBySlug("planify"));
+        assertEquals(organization.getId(), organizationCache.findBySlug("planify-renamed").id());
+    }
+
+    @Test
+    void testOnCacheInvalidation_Organization_EvictsEntry() {
+        // Arrange
+        organizationCache.findById(organization.getId());
+
+        // Act
+        organizationCache.onCacheInvalidation(
+                new CacheInvalidationEvent(CacheInvalidationEvent.Type.ORGANIZATION, organization.getId()));
+        organizationCache.findById(organization.getId());
+
+        // Assert
+        verify(organizationRepository, times(2)).findById(organization.getId());
+    }
+}
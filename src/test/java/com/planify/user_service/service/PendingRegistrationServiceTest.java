@@ -0,0 +1,159 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.PendingRegistrationEntity;
+import com.planify.user_service.model.PendingRegistrationStatus;
+import com.planify.user_service.model.RegisterRequest;
+import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.repository.PendingRegistrationRepository;
+import com.planify.user_service.repository.UserRepository;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PendingRegistrationServiceTest {
+
+    private static final String ENCRYPTION_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private PendingRegistrationRepository repository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AuthService authService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PendingRegistrationService pendingRegistrationService;
+    private PendingRegistrationEntity registration;
+    private UUID keycloakId;
+
+    @BeforeEach
+    void setUp() {
+        pendingRegistrationService = new PendingRegistrationService(repository, userRepository, authService, userService,
+                CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), transactionManager,
+                new SimpleMeterRegistry(), true, ENCRYPTION_KEY, 1, Duration.ofMinutes(2), Duration.ofSeconds(10),
+                Duration.ofMinutes(10), MAX_ATTEMPTS);
+
+        registration = new PendingRegistrationEntity();
+        registration.setId(UUID.randomUUID());
+        registration.setUsername("ana");
+        registration.setEmail("ana@planify.si");
+        registration.setEncryptedPassword(new CredentialCipher(ENCRYPTION_KEY).encrypt(registration.getId(), "secret"));
+        registration.setStatus(PendingRegistrationStatus.PENDING);
+        registration.setNextAttemptAt(LocalDateTime.now());
+        registration.setCreatedAt(LocalDateTime.now());
+        keycloakId = UUID.randomUUID();
+
+        when(repository.lockNextDue(any(LocalDateTime.class))).thenReturn(Optional.of(registration));
+        when(repository.save(any(PendingRegistrationEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.findById(registration.getId())).thenReturn(Optional.of(registration));
+    }
+
+    @Test
+    void testProcessDue_Success_CompletesAndClearsCredential() {
+        // Arrange
+        UserEntity user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        when(authService.createKeycloakUser(any(RegisterRequest.class), isNull(), any())).thenReturn(keycloakId);
+        when(userRepository.findByKeycloakId(keycloakId)).thenReturn(Optional.empty());
+        when(userService.createLocalUserProfile(eq(keycloakId), eq("ana@planify.si"), isNull(), eq("ana"),
+                isNull(), isNull(), isNull(), isNull())).thenReturn(user);
+
+        // Act
+        pendingRegistrationService.processDue();
+
+        // Assert
+        ArgumentCaptor<RegisterRequest> request = ArgumentCaptor.forClass(RegisterRequest.class);
+        verify(authService).createKeycloakUser(request.capture(), isNull(), any());
+        assertEquals("secret", request.getValue().getPassword());
+        assertEquals(PendingRegistrationStatus.COMPLETED, registration.getStatus());
+        assertEquals(keycloakId, registration.getKeycloakId());
+        assertEquals(user.getId(), registration.getUserId());
+        assertNull(registration.getEncryptedPassword());
+        assertEquals(1, registration.getAttempts());
+    }
+
+    @Test
+    void testProcessDue_TransientFailure_ReschedulesWithBackoff() {
+        // Arrange
+        when(authService.createKeycloakUser(any(RegisterRequest.class), isNull(), any()))
+                .thenThrow(new RuntimeException("Keycloak unavailable"));
+
+        // Act
+        pendingRegistrationService.processDue();
+
+        // Assert
+        assertEquals(PendingRegistrationStatus.PENDING, registration.getStatus());
+        assertEquals(1, registration.getAttempts());
+        assertEquals("Keycloak unavailable", registration.getLastError());
+        assertTrue(registration.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(5)));
+        assertNotNull(registration.getEncryptedPassword(), "credential is kept for the next attempt");
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testProcessDue_KeycloakUserCreatedBeforeFailure_RetryReusesIt() {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<UUID> onCreated = invocation.getArgument(2);
+            onCreated.accept(keycloakId);
+            throw new RuntimeException("Failed to assign role");
+        }).when(authService).createKeycloakUser(any(RegisterRequest.class), isNull(), any());
+        pendingRegistrationService.processDue();
+        when(authService.createKeycloakUser(any(RegisterRequest.class), eq(keycloakId), any()))
+                .thenThrow(new RuntimeException("Keycloak unavailable"));
+
+        // Act
+        pendingRegistrationService.processDue();
+
+        // Assert
+        assertEquals(keycloakId, registration.getKeycloakId());
+        assertEquals(2, registration.getAttempts());
+        verify(authService).createKeycloakUser(any(RegisterRequest.class), eq(keycloakId), any());
+    }
+
+    @Test
+    void testProcessDue_LastAttemptFails_GivesUpAndClearsCredential() {
+        // Arrange
+        registration.setAttempts(MAX_ATTEMPTS - 1);
+        when(authService.createKeycloakUser(any(RegisterRequest.class), isNull(), any()))
+                .thenThrow(new RuntimeException("Keycloak unavailable"));
+
+        // Act
+        pendingRegistrationService.processDue();
+
+        // Assert
+        assertEquals(PendingRegistrationStatus.FAILED, registration.getStatus());
+        assertEquals(MAX_ATTEMPTS, registration.getAttempts());
+        assertNull(registration.getEncryptedPassword());
+        assertEquals("Keycloak unavailable", registration.getLastError());
+    }
+}
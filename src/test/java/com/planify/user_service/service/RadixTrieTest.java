@@ -0,0 +1,101 @@
+package com.planify.user_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixTrieTest {
+
+    private RadixTrie<String> trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new RadixTrie<>(3, Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+    }
+
+    @Test
+    void testSearch_ReturnsTopKByOrder() {
+        // Arrange
+        List.of("anna", "andrej", "ana", "anton", "andreja", "bojan").forEach(v -> trie.put(v, v));
+
+        // Act
+        List<String> result = trie.search("an", 10);
+
+        // Assert
+        assertEquals(List.of("ana", "anna", "anton"), result);
+        assertEquals(6, trie.size());
+    }
+
+    @Test
+    void testSearch_PrefixEndsInsideEdge() {
+        // Arrange
+        trie.put("organization", "organization");
+
+        // Act & Assert
+        assertEquals(List.of("organization"), trie.search("org", 10));
+        assertEquals(List.of(), trie.search("orx", 10));
+        assertEquals(List.of(), trie.search("organizations", 10));
+    }
+
+    @Test
+    void testSearch_RespectsLimit() {
+        // Arrange
+        List.of("ana", "anna", "anton").forEach(v -> trie.put(v, v));
+
+        // Act & Assert
+        assertEquals(List.of("ana"), trie.search("a", 1));
+    }
+
+    @Test
+    void testPut_Duplicate() {
+        // Act & Assert
+        assertTrue(trie.put("ana", "ana"));
+        assertFalse(trie.put("ana", "ana"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void testRemove_RefillsTopKFromSubtree() {
+        // Arrange
+        List.of("ana", "anna", "anton", "andreja").forEach(v -> trie.put(v, v));
+
+        // Act
+        boolean removed = trie.remove("anna", "anna");
+
+        // Assert
+        assertTrue(removed);
+        assertEquals(List.of("ana", "anton", "andreja"), trie.search("an", 10));
+        assertEquals(List.of(), trie.search("ann", 10));
+    }
+
+    @Test
+    void testRemove_Missing() {
+        // Arrange
+        trie.put("ana", "ana");
+
+        // Act & Assert
+        assertFalse(trie.remove("an", "ana"));
+        assertFalse(trie.remove("ana", "anna"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void testRemove_MergesNodesAndKeepsSearchable() {
+        // Arrange
+        List.of("test", "team", "toast").forEach(v -> trie.put(v, v));
+
+        // Act
+        trie.remove("team", "team");
+        trie.remove("toast", "toast");
+
+        // Assert
+        assertEquals(List.of("test"), trie.search("te", 10));
+        assertEquals(List.of("test"), trie.search("", 10));
+        assertTrue(trie.put("tea", "tea"));
+        assertEquals(List.of("tea", "test"), trie.search("te", 10));
+    }
+}
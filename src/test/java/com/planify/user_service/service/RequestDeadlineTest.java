@@ -0,0 +1,49 @@
+package com.planify.user_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeadlineTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void testWithoutDeadline_Unbounded() {
+        // Act & Assert
+        assertTrue(RequestDeadline.remaining().isEmpty());
+        assertFalse(RequestDeadline.expired());
+        assertTrue(RequestDeadline.hasAtLeast(Duration.ofHours(1)));
+        assertDoesNotThrow(RequestDeadline::check);
+    }
+
+    @Test
+    void testHasAtLeast_ComparesRemainingBudget() {
+        // Arrange
+        RequestDeadline.set(Duration.ofSeconds(10));
+
+        // Act & Assert
+        assertFalse(RequestDeadline.expired());
+        assertTrue(RequestDeadline.hasAtLeast(Duration.ofSeconds(2)));
+        assertFalse(RequestDeadline.hasAtLeast(Duration.ofSeconds(20)));
+    }
+
+    @Test
+    void testCheck_ExpiredDeadline_Throws() {
+        // Arrange
+        RequestDeadline.set(Duration.ZERO);
+
+        // Act
+        RequestDeadline.ExceededException e = assertThrows(RequestDeadline.ExceededException.class, RequestDeadline::check);
+
+        // Assert
+        assertTrue(RequestDeadline.expired());
+        assertEquals("request", e.getOperation());
+    }
+}
@@ -0,0 +1,85 @@
+package com.planify.user_service.service;
+
+import com.planify.user_service.model.UserEntity;
+import com.planify.user_service.model.UserProfile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH primerjava branja profila iz OffHeapUserProfileStore in iz navadne ConcurrentHashMap z entitetami na kopici.
+ * Ni JUnit test; zaženemo ga ročno:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *      com.planify.user_service.service.UserProfileStoreBenchmark
+ * </pre>
+ * Profil "gc" izpiše tudi alokacije na operacijo (gc.alloc.rate.norm) za obe različici.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=2g"})
+@State(Scope.Benchmark)
+public class UserProfileStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private UUID[] ids;
+    private OffHeapUserProfileStore offHeap;
+    private Map<UUID, UserEntity> onHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ids = new UUID[users];
+        offHeap = new OffHeapUserProfileStore(users);
+        onHeap = new ConcurrentHashMap<>(users * 2);
+        for (int i = 0; i < users; i++) {
+            UserProfile profile = new UserProfile(UUID.randomUUID(), UUID.randomUUID(), "user" + i + "@example.com",
+                    "user" + i, "Ime" + i, "Priimek" + i, null, i % 2 == 0, false, LocalDateTime.now());
+            ids[i] = profile.id();
+            offHeap.put(profile);
+            onHeap.put(profile.id(), profile.toEntity());
+        }
+    }
+
+    @Benchmark
+    public void offHeapGet(Blackhole bh) {
+        bh.consume(offHeap.get(ids[ThreadLocalRandom.current().nextInt(users)]));
+    }
+
+    @Benchmark
+    public void onHeapGet(Blackhole bh) {
+        bh.consume(onHeap.get(ids[ThreadLocalRandom.current().nextInt(users)]));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void offHeapGetConcurrent(Blackhole bh) {
+        bh.consume(offHeap.get(ids[ThreadLocalRandom.current().nextInt(users)]));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void onHeapGetConcurrent(Blackhole bh) {
+        bh.consume(onHeap.get(ids[ThreadLocalRandom.current().nextInt(users)]));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserProfileStoreBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -1,5 +1,6 @@
 package com.planify.user_service.service;
 
+import com.planify.user_service.event.CacheInvalidationBus;
 import com.planify.user_service.event.KafkaProducer;
 import com.planify.user_service.model.*;
 import com.planify.user_service.repository.*;
@@ -9,10 +10,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -20,6 +25,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +49,27 @@ class UserServiceTest {
     @Mock
     private KafkaProducer kafkaProducer;
 
+    @Mock
+    private AutocompleteService autocompleteService;
+
+    @Mock
+    private AvailabilityService availabilityService;
+
+    @Mock
+    private OrganizationCache organizationCache;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    @Mock
+    private MembershipGraphService membershipGraphService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private UserService userService;
 
@@ -145,6 +172,8 @@ class UserServiceTest {
         // Assert
         verify(userRepository).findById(testUserId);
         verify(userRepository).save(any(UserEntity.class));
+        verify(cacheInvalidationBus).userChanged(testUserId);
+        verify(membershipGraphService).membershipsChanged(testUserId);
         // verify(auditService).logAction(eq(testUserId), eq(testUserId), eq("DELETE"),
         // eq("USER"), eq(testUserId), anyString());
     }
@@ -204,6 +233,42 @@ class UserServiceTest {
         assertEquals(testUserId, result.get(0).getId());
     }
 
+    @Test
+    void testGetUserByKeycoakId_FromProfileStore() {
+        // Arrange
+        when(userProfileCache.getByKeycloakId(testUserKecloakId)).thenReturn(Optional.of(UserProfile.of(testUser)));
+
+        // Act
+        UserEntity result = userService.getUserByKeycoakId(testUserKecloakId);
+
+        // Assert
+        assertEquals(testUserId, result.getId());
+        verify(userRepository, never()).findActiveByKeycloakId(any());
+    }
+
+    @Test
+    void testGetUserByKeycoakId_NotInProfileStore_QueriesDatabase() {
+        // Arrange
+        when(userProfileCache.getByKeycloakId(testUserKecloakId)).thenReturn(Optional.empty());
+        when(userRepository.findActiveByKeycloakId(testUserKecloakId)).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserEntity result = userService.getUserByKeycoakId(testUserKecloakId);
+
+        // Assert
+        assertEquals(testUserId, result.getId());
+    }
+
+    @Test
+    void testGetUserByKeycoakId_NotFound() {
+        // Arrange
+        when(userProfileCache.getByKeycloakId(testUserKecloakId)).thenReturn(Optional.empty());
+        when(userRepository.findActiveByKeycloakId(testUserKecloakId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> userService.getUserByKeycoakId(testUserKecloakId));
+    }
+
     @Test
     void testGetUsersOfOrganization() {
         // Arrange
@@ -219,20 +284,42 @@ class UserServiceTest {
         assertEquals(testUserId, result.get(0).getId());
     }
 
+    @Test
+    void testGetUsersOfOrganization_FromProfileStore() {
+        // Arrange
+        when(userProfileCache.isReady()).thenReturn(true);
+        when(userRepository.findUserIdsByOrganization(testOrgId)).thenReturn(List.of(testUserId));
+        when(userProfileCache.getAll(List.of(testUserId))).thenReturn(Optional.of(List.of(UserProfile.of(testUser))));
+
+        // Act
+        List<UserEntity> result = userService.getUsersOfOrganization(testOrgId);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(testUserId, result.get(0).getId());
+        assertEquals(testUser.getUsername(), result.get(0).getUsername());
+        verify(userRepository, never()).findUsersByOrganization(any());
+    }
+
+    @Test
+    void testSearchUsers_ProfileStoreNotReady_SingleQuery() {
+        // Arrange
+        when(userRepository.findUsersBySearchValue("test")).thenReturn(List.of(testUser));
+
+        // Act
+        List<UserEntity> result = userService.searchUsers("test");
+
+        // Assert
+        assertEquals(List.of(testUser), result);
+        verify(userRepository, never()).findUserIdsBySearchValue(any());
+        verify(userProfileCache, never()).getAll(any());
+    }
+
     @Test
     void testSendJoinRequest_Success() {
         // Arrange
-        when(organizationRepository.findById(testOrgId))
-                .thenReturn(Optional.of(testOrganization));
-        when(userRepository.findByIdAndDeletedAtIsNull(testUserId))
-                .thenReturn(Optional.of(testUser));
-        when(membershipRepository.findByUserIdAndOrganizationId(testUserId, testOrgId))
-                .thenReturn(List.of());
-        when(joinRequestRepository.findByUserIdAndOrganizationId(testUserId, testOrgId))
-                .thenReturn(Collections.emptyList());
-        when(invitationRepository.findByOrganizationIdAndStatusAndUserId(
-                testOrgId, InvitationStatus.PENDING, testUserId))
-                .thenReturn(Collections.emptyList());
+        when(membershipRepository.checkJoinRequestPreconditions(testOrgId, testUserId))
+                .thenReturn(Optional.of(new MembershipPrecondition(testOrganization, testUser, 0)));
 
         JoinRequestEntity savedRequest = new JoinRequestEntity();
         savedRequest.setId(UUID.randomUUID());
@@ -240,8 +327,10 @@ class UserServiceTest {
         savedRequest.setOrganization(testOrganization);
         savedRequest.setStatus(JoinRequestStatus.PENDING);
 
-        when(joinRequestRepository.save(any(JoinRequestEntity.class)))
+        when(joinRequestRepository.saveAndFlush(any(JoinRequestEntity.class)))
                 .thenReturn(savedRequest);
+        when(membershipRepository.findKeycloakIdsByOrganizationIdAndRole(testOrgId, KeycloakRole.ORG_ADMIN))
+                .thenReturn(List.of(UUID.randomUUID()));
 
         // Act
         JoinRequestEntity result = userService.sendJoinRequest(testOrgId, testUserId);
@@ -249,46 +338,47 @@ class UserServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(JoinRequestStatus.PENDING, result.getStatus());
-        verify(joinRequestRepository).save(any(JoinRequestEntity.class));
+        verify(joinRequestRepository).saveAndFlush(any(JoinRequestEntity.class));
         verify(kafkaProducer).publishJoinRequestSentEvent(any());
     }
 
     @Test
     void testSendJoinRequest_AlreadyMember() {
         // Arrange
-        OrganizationMembershipEntity membership = new OrganizationMembershipEntity();
-        when(organizationRepository.findById(testOrgId))
-                .thenReturn(Optional.of(testOrganization));
-        when(userRepository.findByIdAndDeletedAtIsNull(testUserId))
-                .thenReturn(Optional.of(testUser));
-        when(membershipRepository.findByUserIdAndOrganizationId(testUserId, testOrgId))
-                .thenReturn(List.of(membership));
+        when(membershipRepository.checkJoinRequestPreconditions(testOrgId, testUserId))
+                .thenReturn(Optional.of(new MembershipPrecondition(testOrganization, testUser, MembershipPrecondition.MEMBER)));
 
         // Act & Assert
         assertThrows(RuntimeException.class,
                 () -> userService.sendJoinRequest(testOrgId, testUserId));
-        verify(joinRequestRepository, never()).save(any());
+        verify(joinRequestRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void testSendJoinRequest_PendingRequestExists() {
         // Arrange
-        JoinRequestEntity existingRequest = new JoinRequestEntity();
-        existingRequest.setStatus(JoinRequestStatus.PENDING);
-
-        when(organizationRepository.findById(testOrgId))
-                .thenReturn(Optional.of(testOrganization));
-        when(userRepository.findByIdAndDeletedAtIsNull(testUserId))
-                .thenReturn(Optional.of(testUser));
-        when(membershipRepository.findByUserIdAndOrganizationId(testUserId, testOrgId))
-                .thenReturn(List.of());
-        when(joinRequestRepository.findByUserIdAndOrganizationId(testUserId, testOrgId))
-                .thenReturn(List.of(existingRequest));
+        when(membershipRepository.checkJoinRequestPreconditions(testOrgId, testUserId))
+                .thenReturn(Optional.of(new MembershipPrecondition(testOrganization, testUser, MembershipPrecondition.PENDING_JOIN_REQUEST)));
 
         // Act & Assert
         assertThrows(RuntimeException.class,
                 () -> userService.sendJoinRequest(testOrgId, testUserId));
-        verify(joinRequestRepository, never()).save(any());
+        verify(joinRequestRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testSendJoinRequest_ConcurrentPendingRequest() {
+        // Arrange
+        when(membershipRepository.checkJoinRequestPreconditions(testOrgId, testUserId))
+                .thenReturn(Optional.of(new MembershipPrecondition(testOrganization, testUser, 0)));
+        when(joinRequestRepository.saveAndFlush(any(JoinRequestEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_join_requests_user_org_pending"));
+
+        // Act & Assert
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> userService.sendJoinRequest(testOrgId, testUserId));
+        assertEquals("User already has a pending join request", ex.getMessage());
+        verify(kafkaProducer, never()).publishJoinRequestSentEvent(any());
     }
 
     @Test
@@ -332,6 +422,63 @@ class UserServiceTest {
         verify(userRepository).save(any(UserEntity.class));
     }
 
+    @Test
+    void testProvisionUser_NewUser_InsertsInSingleWriteTransaction() {
+        UUID newKeycloakId = UUID.randomUUID();
+        // Arrange
+        when(userRepository.findByKeycloakId(newKeycloakId))
+                .thenReturn(Optional.empty());
+        when(userRepository.save(any(UserEntity.class)))
+                .thenReturn(testUser);
+
+        // Act
+        userService.provisionUser(newKeycloakId, "provision@example.com",
+                "provisionuser", "Provision", "User");
+
+        // Assert
+        verify(transactionManager, times(1)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRED
+                        && !definition.isReadOnly()));
+        verify(userRepository, times(2)).findByKeycloakId(newKeycloakId);
+    }
+
+    @Test
+    void testProvisionUser_NewUserInsideReadOnlyTransaction_UsesSeparateWriteTransaction() {
+        UUID newKeycloakId = UUID.randomUUID();
+        // Arrange
+        when(userRepository.findByKeycloakId(newKeycloakId))
+                .thenReturn(Optional.empty());
+        when(userRepository.save(any(UserEntity.class)))
+                .thenReturn(testUser);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        try {
+            userService.provisionUser(newKeycloakId, "provision@example.com",
+                    "provisionuser", "Provision", "User");
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+
+        // Assert
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void testProvisionUser_ExistingUser_NoWriteTransaction() {
+        // Arrange
+        when(userRepository.findByKeycloakId(testUserKecloakId))
+                .thenReturn(Optional.of(testUser));
+
+        // Act
+        userService.provisionUser(testUserKecloakId, "test@example.com",
+                "testuser", "Test", "User");
+
+        // Assert
+        verifyNoInteractions(transactionManager);
+    }
+
     @Test
     void testProvisionUser_ExistingUser() {
         // Arrange